@@ -2,6 +2,7 @@ from locust import HttpUser, task, between
 import random
 import string
 import logging
+import os
 from decimal import Decimal
 
 # 生成随机整数作为 long 类型的数据
@@ -14,8 +15,8 @@ def random_string(length):
     return ''.join(random.choice(letters) for i in range(length))
 
 class TransactionUser(HttpUser):
-    # 每个任务执行之间的等待时间范围，单位为秒
-    wait_time = between(1, 5)
+    # 每个任务执行之间的等待时间范围，单位为秒；压满服务端时可设置 LOCUST_WAIT_MIN=0 LOCUST_WAIT_MAX=0
+    wait_time = between(float(os.getenv("LOCUST_WAIT_MIN", "1")), float(os.getenv("LOCUST_WAIT_MAX", "5")))
 
     @task(2)
     def list_transactions(self):
@@ -48,7 +49,7 @@ class TransactionUser(HttpUser):
         response = self.client.post("/api/transactions", json=transaction_data)
         if response.status_code == 200:
             # 如果创建成功，记录交易 ID 用于后续的修改和删除操作
-            transaction_id = response.json().get("id")
+            transaction_id = (response.json().get("data") or {}).get("id")
             if transaction_id:
                 self.created_transaction_ids.append(transaction_id)
                 logging.info(f"Created transaction with ID: {transaction_id}")
@@ -0,0 +1,91 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.AccountRole;
+import com.hsbc.management.common.CursorCodec;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大账号按账号查询交易的基准测试：账号索引上的游标查询与OR条件排序查询的对比
+ * <p>
+ * 在rows条背景数据之后为同一账号追加accountRows条交易，一半作为来源账号、一半作为收款账号
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountTransactionBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final long ACCOUNT_ID = 1_000_000L;
+
+    @Param({"1000000"})
+    private long rows;
+
+    @Param({"100000", "1000000"})
+    private long accountRows;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 账号历史中间位置的游标
+     */
+    private String deepCursor;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        BenchmarkContexts.seedAccount(context, ACCOUNT_ID, rows + 1, accountRows);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("analyze");
+        transactionService = context.getBean(TransactionService.class);
+        long middleId = rows + accountRows / 2;
+        Long middleCreateTime = jdbcTemplate.queryForObject("select create_time from transaction_management where id = ?", Long.class, middleId);
+        deepCursor = CursorCodec.encode(middleCreateTime, middleId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPageVO<TransactionVO> sourceFirstPage() {
+        return transactionService.listAccountTransactions(ACCOUNT_ID, AccountRole.SOURCE, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPageVO<TransactionVO> anyFirstPage() {
+        return transactionService.listAccountTransactions(ACCOUNT_ID, AccountRole.ANY, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPageVO<TransactionVO> anyDeepPage() {
+        return transactionService.listAccountTransactions(ACCOUNT_ID, AccountRole.ANY, deepCursor, PAGE_SIZE);
+    }
+
+    /**
+     * 对照：单条SQL用OR同时匹配来源和收款账号，只能取出账号的全部交易后排序
+     */
+    @Benchmark
+    public List<Map<String, Object>> orConditionFirstPage() {
+        return jdbcTemplate.queryForList("select * from transaction_management where source_account_id = ? or target_account_id = ?"
+                + " order by create_time desc, id desc fetch first " + PAGE_SIZE + " rows only", ACCOUNT_ID, ACCOUNT_ID);
+    }
+}
@@ -0,0 +1,126 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.HomeworkApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基准测试用的应用上下文和数据准备工具
+ */
+public final class BenchmarkContexts {
+
+    private static final int SEED_CHUNK = 50_000;
+
+    private static final int MAX_GRAM_POSITION = 8;
+
+    private BenchmarkContexts() {
+    }
+
+    /**
+     * 启动不带Web容器的应用上下文，每个上下文使用独立的内存库，并关闭SQL和缓存日志
+     * <p>
+     * 关闭H2的结果复用：表未修改时相同参数的查询会直接返回上一次的结果，基准测试反复执行同一查询时测不到真实耗时
+     * <p>
+     * 配置以命令行参数传入，优先级高于application.properties
+     *
+     * @param properties 额外的配置项，格式为key=value
+     * @return 应用上下文
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * 同start(properties)，但启动Web容器并监听随机端口，端口号见local.server.port
+     *
+     * @param properties 额外的配置项，格式为key=value
+     * @return 应用上下文
+     */
+    public static ConfigurableApplicationContext startServer(String... properties) {
+        List<String> args = new ArrayList<>(List.of(properties));
+        args.add("server.port=0");
+        return start(WebApplicationType.SERVLET, args.toArray(new String[0]));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.cache=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(HomeworkApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * 用集合SQL直接生成rows条交易及其n-gram索引，交易编号为"T"+ID
+     * <p>
+     * 按5万条分段提交，H2在单个大事务下写入会明显变慢；gram按位置逐个merge，同一编号内重复的gram自然去重
+     *
+     * @param context 应用上下文
+     * @param rows    交易条数
+     */
+    public static void seed(ConfigurableApplicationContext context, long rows) {
+        seed(context, rows, System.currentTimeMillis(), 0L);
+    }
+
+    /**
+     * 同seed(context, rows)，第x条交易的创建时间为startTime + x * stepMillis
+     *
+     * @param context    应用上下文
+     * @param rows       交易条数
+     * @param startTime  创建时间起点，ms
+     * @param stepMillis 相邻交易的创建时间间隔，ms
+     */
+    public static void seed(ConfigurableApplicationContext context, long rows, long startTime, long stepMillis) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long now = System.currentTimeMillis();
+        for (long from = 1; from <= rows; from += SEED_CHUNK) {
+            long to = Math.min(rows, from + SEED_CHUNK - 1);
+            jdbcTemplate.update("insert into transaction_management (id, transaction_no, source_account_id, target_account_id,"
+                    + " amount, description, create_time, update_time)"
+                    + " select x, concat('T', x), mod(x, 1000), mod(x * 7, 1000), 100.00, 'seed', ? + x * ?, ?"
+                    + " from system_range(?, ?)", startTime, stepMillis, now, from, to);
+            for (int position = 1; position <= MAX_GRAM_POSITION; position++) {
+                jdbcTemplate.update("merge into transaction_no_gram (gram, transaction_id) key (gram, transaction_id)"
+                        + " select substring(transaction_no, ?, 3), id from transaction_management"
+                        + " where id between ? and ? and char_length(transaction_no) >= ?", position, from, to, position + 2);
+            }
+        }
+        jdbcTemplate.execute("alter sequence transaction_seq restart with " + (rows + 1));
+    }
+
+    /**
+     * 在已有数据之后为同一账号追加rows条交易，奇数ID作为来源账号、偶数ID作为收款账号，
+     * 创建时间每条递增1ms，交易编号为"A"+ID，不生成n-gram索引
+     *
+     * @param context   应用上下文
+     * @param accountId 账号ID
+     * @param fromId    第一条交易的ID，需大于已有的最大ID
+     * @param rows      交易条数
+     */
+    public static void seedAccount(ConfigurableApplicationContext context, long accountId, long fromId, long rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long now = System.currentTimeMillis();
+        long lastId = fromId + rows - 1;
+        for (long from = fromId; from <= lastId; from += SEED_CHUNK) {
+            long to = Math.min(lastId, from + SEED_CHUNK - 1);
+            jdbcTemplate.update("insert into transaction_management (id, transaction_no, source_account_id, target_account_id,"
+                    + " amount, description, create_time, update_time)"
+                    + " select x, concat('A', x), case when mod(x, 2) = 1 then ? else mod(x, 1000) end,"
+                    + " case when mod(x, 2) = 0 then ? else mod(x * 7, 1000) end, 100.00, 'seed', ? + x, ?"
+                    + " from system_range(?, ?)", accountId, accountId, now, now, from, to);
+        }
+        jdbcTemplate.execute("alter sequence transaction_seq restart with " + (lastId + 1));
+    }
+}
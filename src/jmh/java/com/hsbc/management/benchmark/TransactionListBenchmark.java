@@ -0,0 +1,69 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.CursorCodec;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同翻页深度下分页查询与游标查询的基准测试，每次调用前清空缓存以测量数据库路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionListBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"1000000"})
+    private long rows;
+
+    @Param({"0", "1000", "90000"})
+    private int pageNumber;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private Cache cache;
+
+    private String cursor;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        transactionService = context.getBean(TransactionService.class);
+        cache = context.getBean(CacheManager.class).getCache(CacheConfig.PAGE_CACHE);
+        long lastIdOfPreviousPage = (long) pageNumber * PAGE_SIZE;
+        cursor = lastIdOfPreviousPage == 0 ? null : CursorCodec.encode(lastIdOfPreviousPage);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<TransactionVO> listAllTransactions() {
+        cache.clear();
+        return transactionService.listAllTransactions(null, null, null, PageRequest.of(pageNumber, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CursorPageVO<TransactionVO> scrollTransactions() {
+        return transactionService.scrollTransactions(null, null, null, cursor, PAGE_SIZE);
+    }
+}
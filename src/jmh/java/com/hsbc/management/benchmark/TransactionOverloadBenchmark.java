@@ -0,0 +1,164 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.service.TransactionService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 过载压测：通过HTTP请求真实的Web容器，模拟数据库变慢：每次取得连接后等待20ms再执行，连接池只有2个连接，Tomcat只有16个线程。
+ * 48个线程不断请求未缓存的查询（随机的创建时间下限），同时4个线程请求已在响应缓存中的热点交易，测量两类请求的延迟分布
+ * <p>
+ * 不限流时未缓存的查询占满Tomcat线程并在连接池排队，缓存命中的请求也要等待空闲线程；限流时超出上限的查询立即返回503，
+ * 客户端等待10ms后重试，Tomcat线程不再被占满，缓存命中的请求延迟保持稳定。各迭代的成功数和503数在结束时打印
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class TransactionOverloadBenchmark {
+
+    private static final long QUERY_DELAY_MILLIS = 20;
+
+    private static final long BACKOFF_MILLIS = 10;
+
+    @Param({"true", "false"})
+    private boolean limited;
+
+    @Param({"10000"})
+    private long rows;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private long hotId;
+
+    private final LongAdder succeeded = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContexts.startServer(
+                "transaction.concurrency-limit.enabled=" + limited,
+                "server.tomcat.threads.max=16",
+                "spring.datasource.hikari.maximum-pool-size=2",
+                "spring.datasource.hikari.minimum-idle=2",
+                "context.initializer.classes=" + SlowDatabase.class.getName());
+        BenchmarkContexts.seed(context, rows);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/transactions";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build();
+        // 集合SQL生成的数据不经过布隆过滤器，热点交易通过服务创建，再请求一次写入响应缓存
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo("HOT");
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.25"));
+        dto.setDescription("benchmark transaction");
+        hotId = context.getBean(TransactionService.class).createTransaction(dto).getId();
+        send(baseUrl + "/" + hotId);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        succeeded.reset();
+        rejected.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        Gauge limit = context.getBean(MeterRegistry.class).find("transaction.concurrency.limit").tag("budget", "read").gauge();
+        System.out.printf("uncached reads: %d succeeded, %d rejected, read limit %.0f%n", succeeded.sum(), rejected.sum(), limit.value());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 随机的创建时间下限，每次都是新的缓存key，需要查库
+     */
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(48)
+    public int uncachedRead() throws Exception {
+        long startTime = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE / 2);
+        int status = send(baseUrl + "?startTime=" + startTime);
+        if (status == 503) {
+            rejected.increment();
+            Thread.sleep(BACKOFF_MILLIS);
+        } else {
+            succeeded.increment();
+        }
+        return status;
+    }
+
+    /**
+     * 已在响应缓存中的热点交易
+     */
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(4)
+    public int cachedRead() throws Exception {
+        return send(baseUrl + "/" + hotId);
+    }
+
+    private int send(String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * 把数据源包装为取得连接后等待QUERY_DELAY_MILLIS，连接在等待期间被占用，模拟慢查询但不占用CPU
+     */
+    public static class SlowDatabase implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+        @Override
+        public void initialize(ConfigurableApplicationContext context) {
+            context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            Connection connection = super.getConnection();
+                            try {
+                                Thread.sleep(QUERY_DELAY_MILLIS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return connection;
+                        }
+                    };
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.dao.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体查询后逐字段复制与直接投影到TransactionVO的对照，只走数据库路径，不经过缓存
+ * <p>
+ * 两组都在只读事务内执行；配合-prof gc比较每次调用的分配量(gc.alloc.rate.norm)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionProjectionBenchmark {
+
+    @Param({"100000"})
+    private long rows;
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionRepository transactionRepository;
+
+    private TransactionTemplate readOnly;
+
+    private long id;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        id = rows / 2;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 对照：加载托管实体后复制为VO，与改动前的列表路径相同
+     */
+    @Benchmark
+    public Page<TransactionVO> listEntities() {
+        return readOnly.execute(status -> transactionRepository.findAll(PageRequest.of(0, pageSize)).map(TransactionProjectionBenchmark::convert));
+    }
+
+    @Benchmark
+    public Page<TransactionVO> listProjection() {
+        return readOnly.execute(status -> transactionRepository.findAllVO(PageRequest.of(0, pageSize)));
+    }
+
+    /**
+     * 对照：按ID加载实体后复制为VO，与改动前的详情路径相同
+     */
+    @Benchmark
+    public Optional<TransactionVO> getEntity() {
+        return transactionRepository.findById(id).map(TransactionProjectionBenchmark::convert);
+    }
+
+    @Benchmark
+    public Optional<TransactionVO> getProjection() {
+        return transactionRepository.findVOById(id);
+    }
+
+    private static TransactionVO convert(Transaction transaction) {
+        return new TransactionVO(transaction.getId(), transaction.getTransactionNo(), transaction.getSourceAccountId(),
+                transaction.getTargetAccountId(), transaction.getAmount(), transaction.getDescription(),
+                transaction.getCreateTime(), transaction.getUpdateTime(), transaction.getVersion());
+    }
+}
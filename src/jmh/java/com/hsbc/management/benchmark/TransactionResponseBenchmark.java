@@ -0,0 +1,107 @@
+package com.hsbc.management.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.cache.TransactionResponseCache;
+import com.hsbc.management.common.BaseResult;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点查询的响应编码：服务层缓存命中后每次序列化BaseResult，与响应缓存直接返回JSON字节的对照
+ * <p>
+ * 两组都已命中缓存，差异即为每次请求的包装和序列化开销；配合-prof gc比较分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionResponseBenchmark {
+
+    @Param({"10000"})
+    private long rows;
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private TransactionResponseCache responseCache;
+
+    private ObjectMapper objectMapper;
+
+    private long hotId;
+
+    private Pageable pageable;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        transactionService = context.getBean(TransactionService.class);
+        responseCache = context.getBean(TransactionResponseCache.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        // 集合SQL生成的数据不经过布隆过滤器，热点交易通过服务创建，保证按ID查询有结果
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo("HOT");
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.25"));
+        dto.setDescription("benchmark transaction");
+        hotId = transactionService.createTransaction(dto).getId();
+        pageable = PageRequest.of(0, pageSize);
+        if (transactionService.getTransactionById(hotId).isEmpty()) {
+            throw new IllegalStateException("hot transaction not found");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 对照：服务层缓存命中后序列化，与改动前的详情接口相同
+     */
+    @Benchmark
+    public byte[] getSerialized() {
+        return encode(transactionService.getTransactionById(hotId).orElse(null));
+    }
+
+    @Benchmark
+    public byte[] getResponseCached() {
+        return responseCache.getTransaction(hotId, () -> transactionService.getTransactionById(hotId)).body();
+    }
+
+    /**
+     * 对照：服务层缓存命中后序列化，与改动前的分页接口相同
+     */
+    @Benchmark
+    public byte[] listSerialized() {
+        return encode(transactionService.listAllTransactions(null, null, null, pageable));
+    }
+
+    @Benchmark
+    public byte[] listResponseCached() {
+        return responseCache.getPage(null, null, null, pageable, () -> transactionService.listAllTransactions(null, null, null, pageable)).body();
+    }
+
+    private byte[] encode(Object data) {
+        try {
+            return objectMapper.writeValueAsBytes(BaseResult.succeed(data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.dao.TransactionRepository;
+import com.hsbc.management.service.index.TransactionNoGramIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交易编号子串搜索：trigram索引与LIKE扫描的对比，绕过缓存直接调用Repository
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class TransactionSearchBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private long rows;
+
+    @Param({"31415", "9265"})
+    private String term;
+
+    private final Pageable pageable = PageRequest.of(0, 10);
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionRepository transactionRepository;
+
+    private Set<String> grams;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        grams = TransactionNoGramIndex.grams(term);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<TransactionVO> gramIndexSearch() {
+        return transactionRepository.searchByTransactionNoGrams(term, grams, grams.size(), pageable);
+    }
+
+    @Benchmark
+    public Page<TransactionVO> likeScanSearch() {
+        return transactionRepository.findByTransactionNoContaining(term, pageable);
+    }
+}
@@ -0,0 +1,78 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TransactionService单条读写路径的基准测试，基于内存H2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    @Param({"100000"})
+    private long rows;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private Cache cache;
+
+    private long hotId;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        transactionService = context.getBean(TransactionService.class);
+        cache = context.getBean(CacheManager.class).getCache("transactions");
+        hotId = rows / 2;
+        transactionService.getTransactionById(hotId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<TransactionVO> getTransactionByIdCacheHit() {
+        return transactionService.getTransactionById(hotId);
+    }
+
+    @Benchmark
+    public Optional<TransactionVO> getTransactionByIdCacheMiss() {
+        long id = ThreadLocalRandom.current().nextLong(1, rows + 1);
+        cache.evict(id);
+        return transactionService.getTransactionById(id);
+    }
+
+    @Benchmark
+    public TransactionVO createTransaction() {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo("C" + Long.toString(sequence.incrementAndGet(), 36));
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.25"));
+        dto.setDescription("benchmark transaction");
+        return transactionService.createTransaction(dto);
+    }
+}
@@ -0,0 +1,127 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.dao.TransactionRepository;
+import com.hsbc.management.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 热点交易缓存被淘汰后的突发请求：burst个线程同时请求同一个ID，测量整批请求完成的耗时和执行的查询数
+ * <p>
+ * 对照组每个线程各自查询一次，与未合并加载时每个未命中线程各自查库相同；每次调用前淘汰缓存。
+ * 每次调用平均执行的查询数在结束时打印
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionStampedeBenchmark {
+
+    @Param({"100000"})
+    private long rows;
+
+    @Param({"32"})
+    private int burst;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private TransactionRepository transactionRepository;
+
+    private Cache cache;
+
+    private Statistics statistics;
+
+    private ExecutorService executor;
+
+    private long hotId;
+
+    private long calls;
+
+    private long queriesBefore;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        transactionService = context.getBean(TransactionService.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        cache = context.getBean(CacheManager.class).getCache("transactions");
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        executor = Executors.newFixedThreadPool(burst);
+        // 集合SQL生成的数据不经过布隆过滤器，热点交易通过服务创建，保证按ID查询会访问数据库
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo("HOT");
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.25"));
+        dto.setDescription("benchmark transaction");
+        hotId = transactionService.createTransaction(dto).getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        calls = 0;
+        queriesBefore = statistics.getQueryExecutionCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printQueries() {
+        System.out.printf("queries per burst: %.1f%n", (double) (statistics.getQueryExecutionCount() - queriesBefore) / calls);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    /**
+     * 对照：每个线程各自查询
+     */
+    @Benchmark
+    public int burstUncoalesced() throws Exception {
+        return fire(() -> transactionRepository.findVOById(hotId));
+    }
+
+    @Benchmark
+    public int burstCoalesced() throws Exception {
+        return fire(() -> transactionService.getTransactionById(hotId));
+    }
+
+    private int fire(Supplier<Optional<TransactionVO>> request) throws Exception {
+        calls++;
+        cache.evict(hotId);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<TransactionVO>>> results = new ArrayList<>(burst);
+        for (int i = 0; i < burst; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return request.get();
+            }));
+        }
+        start.countDown();
+        int found = 0;
+        for (Future<Optional<TransactionVO>> result : results) {
+            found += result.get().isPresent() ? 1 : 0;
+        }
+        return found;
+    }
+}
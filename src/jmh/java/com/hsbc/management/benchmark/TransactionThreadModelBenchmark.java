@@ -0,0 +1,204 @@
+package com.hsbc.management.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 平台线程与虚拟线程的对照压测：通过HTTP请求真实的Web容器，请求组合与locust-press/transaction-test.py一致
+ * （列表2、创建3、修改2、删除2、按ID查询2，已创建的ID不足10个时先创建），300个客户端线程不间断发送请求
+ * <p>
+ * 数据库每次取得连接后等待20ms（见TransactionOverloadBenchmark.SlowDatabase），模拟远程数据库的往返耗时：
+ * 平台线程模式下Tomcat最多200个线程，每个阻塞在JDBC上的请求占用一个线程；虚拟线程模式下阻塞的请求不占用载体线程。
+ * 连接池大小分别取10（Hikari默认值）和300（virtual profile的默认值，覆盖读、写限流的最大在途数之和），其余配置与发布时一致，
+ * 自适应限流开启。限流拒绝的请求返回503，客户端按Retry-After等待后再发下一个请求，否则单核下立即重试的503会占满CPU；
+ * 503也计入吞吐量，因此各迭代结束时另外打印每秒成功的请求数，以及按状态码统计的失败请求数（200表示HTTP成功但业务失败，-1表示客户端超时）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 15)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(300)
+public class TransactionThreadModelBenchmark {
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    /**
+     * 客户端等待超过60秒，按状态码-1统计
+     */
+    private static final int TIMEOUT = -1;
+
+    /**
+     * 交易编号最长10位，"L"加最多9位36进制数
+     */
+    private static final long MAX_TRANSACTION_NO = 101_559_956_668_416L;
+
+    @Param({"false", "true"})
+    private boolean virtual;
+
+    @Param({"10", "300"})
+    private int poolSize;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private final Map<Integer, LongAdder> failed = new ConcurrentHashMap<>();
+
+    private final LongAdder succeeded = new LongAdder();
+
+    private long iterationStart;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.startServer(
+                "spring.profiles.active=" + (virtual ? "virtual" : "default"),
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "transaction.concurrency-limit.enabled=true",
+                "context.initializer.classes=" + TransactionOverloadBenchmark.SlowDatabase.class.getName());
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/transactions";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        failed.clear();
+        succeeded.reset();
+        iterationStart = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        System.out.printf("succeeded requests: %.1f/s, failed requests by status: %s%n", succeeded.sum() / seconds, failed);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 每个客户端线程各自记录创建成功的交易ID，与locust的每个用户一致
+     */
+    @State(Scope.Thread)
+    public static class User {
+
+        private final List<Long> createdIds = new ArrayList<>();
+    }
+
+    @Benchmark
+    public int locustMix(User user) throws Exception {
+        int task = ThreadLocalRandom.current().nextInt(11);
+        if (task < 2) {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + "?page=1&size=10")).GET());
+        }
+        if (task < 5) {
+            return create(user);
+        }
+        if (user.createdIds.size() < 10) {
+            create(user);
+        }
+        if (user.createdIds.isEmpty()) {
+            return 0;
+        }
+        int index = ThreadLocalRandom.current().nextInt(user.createdIds.size());
+        Long id = user.createdIds.get(index);
+        if (task < 7) {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).PUT(json(randomTransaction())));
+        }
+        if (task < 9) {
+            user.createdIds.remove(index);
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).DELETE());
+        }
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET());
+    }
+
+    private int create(User user) throws Exception {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request(HttpRequest.newBuilder(URI.create(baseUrl)).POST(json(randomTransaction()))),
+                    HttpResponse.BodyHandlers.ofString());
+        } catch (HttpTimeoutException e) {
+            fail(TIMEOUT);
+            return TIMEOUT;
+        }
+        Matcher matcher = ID.matcher(response.body());
+        if (response.statusCode() == 200 && matcher.find()) {
+            user.createdIds.add(Long.parseLong(matcher.group(1)));
+            succeeded.increment();
+        } else {
+            fail(response.statusCode());
+            backOff(response);
+        }
+        return response.statusCode();
+    }
+
+    private int send(HttpRequest.Builder builder) throws Exception {
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request(builder), HttpResponse.BodyHandlers.discarding());
+        } catch (HttpTimeoutException e) {
+            fail(TIMEOUT);
+            return TIMEOUT;
+        }
+        if (response.statusCode() / 100 == 2) {
+            succeeded.increment();
+        } else {
+            fail(response.statusCode());
+            backOff(response);
+        }
+        return response.statusCode();
+    }
+
+    /**
+     * 与遵守Retry-After的客户端一致，被限流拒绝后等待服务端给出的秒数
+     */
+    private static void backOff(HttpResponse<?> response) throws InterruptedException {
+        Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+        if (retryAfter.isPresent()) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.get())));
+        }
+    }
+
+    private void fail(int status) {
+        failed.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    private static HttpRequest request(HttpRequest.Builder builder) {
+        return builder.timeout(Duration.ofSeconds(60)).header("Content-Type", "application/json").build();
+    }
+
+    private static HttpRequest.BodyPublisher json(String body) {
+        return HttpRequest.BodyPublishers.ofString(body);
+    }
+
+    private static String randomTransaction() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return "{\"sourceAccountId\":" + random.nextLong(1_000_000_000L, 10_000_000_000L)
+                + ",\"targetAccountId\":" + random.nextLong(1_000_000_000L, 10_000_000_000L)
+                + ",\"transactionNo\":\"L" + Long.toString(random.nextLong(MAX_TRANSACTION_NO), 36)
+                + "\",\"amount\":\"" + random.nextInt(1, 1000) + "." + random.nextInt(10, 100)
+                + "\",\"description\":\"benchmark\"}";
+    }
+}
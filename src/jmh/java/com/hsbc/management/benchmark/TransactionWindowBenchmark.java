@@ -0,0 +1,94 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按创建时间范围查询的基准测试：rows条交易均匀分布在最近30天内，查询最近windowHours小时
+ * <p>
+ * 游标翻页只读取窗口起点之后的一页；分页的count和导出与窗口内的记录数成正比；对照组不使用索引，每次扫描全表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TransactionWindowBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final long SPAN_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    @Param({"1000000"})
+    private long rows;
+
+    @Param({"1", "24", "168"})
+    private long windowHours;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Cache cache;
+
+    private long startTime;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        long now = System.currentTimeMillis();
+        long step = SPAN_MILLIS / rows;
+        BenchmarkContexts.seed(context, rows, now - step * rows, step);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("analyze");
+        transactionService = context.getBean(TransactionService.class);
+        cache = context.getBean(CacheManager.class).getCache(CacheConfig.PAGE_CACHE);
+        startTime = now - TimeUnit.HOURS.toMillis(windowHours);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPageVO<TransactionVO> scrollFirstPage() {
+        return transactionService.scrollTransactions(null, startTime, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<TransactionVO> listFirstPageWithCount() {
+        cache.clear();
+        return transactionService.listAllTransactions(null, startTime, null, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public long exportWindow() throws IOException {
+        return transactionService.exportTransactions(startTime, null, ExportFormat.NDJSON, OutputStream.nullOutputStream());
+    }
+
+    /**
+     * 对照：不使用创建时间索引统计窗口内的记录数，需要扫描全表
+     */
+    @Benchmark
+    public Long countWithoutIndex() {
+        return jdbcTemplate.queryForObject("select count(*) from transaction_management use index () where create_time >= ?", Long.class, startTime);
+    }
+}
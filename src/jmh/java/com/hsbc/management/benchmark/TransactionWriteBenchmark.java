@@ -0,0 +1,125 @@
+package com.hsbc.management.benchmark;
+
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.dao.TransactionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 修改、删除的先查询再写入与单条语句写入的对照，只走数据库路径，不经过缓存和事件
+ * <p>
+ * 每次调用在独立事务中执行；删除在flush后回滚，表大小保持不变。每个迭代结束时打印每次调用的JDBC语句数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionWriteBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("80.00");
+
+    @Param({"100000"})
+    private long rows;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionRepository transactionRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private final LongAdder operations = new LongAdder();
+
+    private long statementsBefore;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        BenchmarkContexts.seed(context, rows);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        operations.reset();
+        statementsBefore = statistics.getPrepareStatementCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        System.out.printf("%.2f statements/op%n", (double) (statistics.getPrepareStatementCount() - statementsBefore) / operations.sum());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 对照：加载实体后修改并flush，与改动前的修改路径相同
+     */
+    @Benchmark
+    public Transaction modifyLoadAndSave() {
+        long id = randomId();
+        operations.increment();
+        return transactionTemplate.execute(status -> {
+            Transaction transaction = transactionRepository.findById(id).orElseThrow();
+            transaction.setAmount(AMOUNT);
+            transaction.setDescription("modified");
+            transaction.setUpdateTime(System.currentTimeMillis());
+            return transactionRepository.saveAndFlush(transaction);
+        });
+    }
+
+    @Benchmark
+    public List<Object[]> modifySingleStatement() {
+        long id = randomId();
+        operations.increment();
+        return transactionTemplate.execute(status -> transactionRepository.updateReturningPrevious(id, 1001L, 2002L, AMOUNT, "modified",
+                System.currentTimeMillis(), null));
+    }
+
+    /**
+     * 对照：加载实体后删除并flush，与改动前的删除路径相同
+     */
+    @Benchmark
+    public void deleteLoadAndDelete() {
+        long id = randomId();
+        operations.increment();
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.delete(transactionRepository.findById(id).orElseThrow());
+            transactionRepository.flush();
+            status.setRollbackOnly();
+        });
+    }
+
+    @Benchmark
+    public List<Object[]> deleteSingleStatement() {
+        long id = randomId();
+        operations.increment();
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return transactionRepository.deleteReturningFlow(id);
+        });
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+}
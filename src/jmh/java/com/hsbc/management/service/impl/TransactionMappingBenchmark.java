@@ -0,0 +1,50 @@
+package com.hsbc.management.service.impl;
+
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.vo.TransactionVO;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO、实体、VO之间转换的基准测试
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionMappingBenchmark {
+
+    private TransactionServiceImpl transactionService;
+
+    private TransactionDTO dto;
+
+    private Transaction transaction;
+
+    @Setup
+    public void setup() {
+        transactionService = new TransactionServiceImpl();
+        dto = new TransactionDTO();
+        dto.setTransactionNo("T1234567");
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.25"));
+        dto.setDescription("benchmark transaction");
+        transaction = transactionService.convertToEntity(dto);
+        transaction.setId(1L);
+    }
+
+    @Benchmark
+    public Transaction convertToEntity() {
+        return transactionService.convertToEntity(dto);
+    }
+
+    @Benchmark
+    public TransactionVO convertToVO() {
+        return transactionService.convertToVO(transaction);
+    }
+}
@@ -0,0 +1,117 @@
+package com.hsbc.management.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hsbc.management.common.dto.CacheRegionDTO;
+import com.hsbc.management.common.vo.CacheRegionVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查看和运行时调整各缓存区域：容量上限、过期时间和刷新间隔，调整只作用于当前进程，重启后恢复配置文件中的值
+ */
+@Component
+public class CacheRegions {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * 获取全部区域
+     *
+     * @return 各区域的配置和统计
+     */
+    public List<CacheRegionVO> list() {
+        return cacheManager.getCacheNames().stream().map(name -> toVO(name, nativeCache(name))).toList();
+    }
+
+    /**
+     * 调整区域的容量和过期时间
+     *
+     * @param name 缓存名
+     * @param dto  需要调整的项
+     * @return 调整后的配置和统计
+     * @throws BizException 如果区域不存在，或调整的过期方式在启动时没有配置，则抛出BizException异常
+     */
+    public CacheRegionVO resize(String name, CacheRegionDTO dto) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = nativeCache(name);
+        Policy<Object, Object> policy = cache.policy();
+        if (dto.getExpireAfterAccessMs() != null && policy.expireAfterAccess().isEmpty()) {
+            throw notConfigured(name, "expireAfterAccess");
+        }
+        if (dto.getRefreshAfterWriteMs() != null && policy.refreshAfterWrite().isEmpty()) {
+            throw notConfigured(name, "refreshAfterWrite");
+        }
+        if (dto.getMaxBytes() != null) {
+            policy.eviction().orElseThrow().setMaximum(dto.getMaxBytes());
+        }
+        if (dto.getExpireAfterWriteMs() != null) {
+            policy.expireAfterWrite().orElseThrow().setExpiresAfter(Duration.ofMillis(dto.getExpireAfterWriteMs()));
+        }
+        if (dto.getExpireAfterAccessMs() != null) {
+            policy.expireAfterAccess().orElseThrow().setExpiresAfter(Duration.ofMillis(dto.getExpireAfterAccessMs()));
+        }
+        if (dto.getRefreshAfterWriteMs() != null) {
+            policy.refreshAfterWrite().orElseThrow().setRefreshesAfter(Duration.ofMillis(dto.getRefreshAfterWriteMs()));
+        }
+        cache.cleanUp();
+        return toVO(name, cache);
+    }
+
+    /**
+     * 清空区域
+     *
+     * @param name 缓存名
+     * @throws BizException 如果区域不存在，则抛出BizException异常
+     */
+    public void clear(String name) {
+        nativeCache(name).invalidateAll();
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Cache region " + name + " does not exist.");
+        }
+        return caffeineCache.getNativeCache();
+    }
+
+    private static CacheRegionVO toVO(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        Policy<Object, Object> policy = cache.policy();
+        CacheStats stats = cache.stats();
+        CacheRegionVO vo = new CacheRegionVO();
+        vo.setName(name);
+        policy.eviction().ifPresent(eviction -> {
+            vo.setMaxBytes(eviction.getMaximum());
+            vo.setWeightedBytes(eviction.weightedSize().orElse(0L));
+        });
+        vo.setSize(cache.estimatedSize());
+        vo.setExpireAfterWriteMs(policy.expireAfterWrite().map(expiration -> expiration.getExpiresAfter(TimeUnit.MILLISECONDS)).orElse(null));
+        vo.setExpireAfterAccessMs(policy.expireAfterAccess().map(expiration -> expiration.getExpiresAfter(TimeUnit.MILLISECONDS)).orElse(null));
+        vo.setRefreshAfterWriteMs(policy.refreshAfterWrite().map(refresh -> refresh.getRefreshesAfter(TimeUnit.MILLISECONDS)).orElse(null));
+        vo.setHitCount(stats.hitCount());
+        vo.setMissCount(stats.missCount());
+        vo.setHitRate(stats.hitRate());
+        vo.setEvictionCount(stats.evictionCount());
+        vo.setEvictionBytes(stats.evictionWeight());
+        vo.setAverageLoadMs(stats.averageLoadPenalty() / 1_000_000.0);
+        return vo;
+    }
+
+    private static BizException notConfigured(String name, String policy) {
+        return new BizException(BizErrorEnum.INVALID_PARAM, "Cache region " + name + " was not configured with " + policy + ".");
+    }
+}
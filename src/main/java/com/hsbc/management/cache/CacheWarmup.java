@@ -0,0 +1,295 @@
+package com.hsbc.management.cache;
+
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.service.TransactionService;
+import com.hsbc.management.service.memory.MemoryTransactionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存预热：把服务层缓存中访问最频繁的key写入本地快照，启动时在就绪前按快照并行预加载
+ * <p>
+ * 快照只保存key（交易ID和分页查询条件），不保存缓存值，预加载时经过服务层重新查询，不会载入过期的数据；
+ * 分页key不保存列表版本号，按启动后的当前版本号生成。正常关闭时写入快照，save-interval-ms大于0时还会定期写入，
+ * 异常退出后使用最近一次定期写入的快照。
+ * <p>
+ * 预加载作为ApplicationRunner执行，完成后应用才发布就绪状态；总耗时受timeout-ms限制，超时后未开始的key直接跳过，
+ * 已在查询的key不中断，避免中断H2的文件读写。
+ */
+@Slf4j
+@Component
+@Profile("!" + MemoryTransactionService.PROFILE)
+public class CacheWarmup implements ApplicationRunner {
+
+    private static final int SNAPSHOT_MAGIC = 0x54584857;
+
+    private static final byte NULL = 0;
+
+    private static final byte PRESENT = 1;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    /**
+     * 快照文件，为空时不预热
+     */
+    private final Path snapshot;
+
+    @Value("${transaction.cache.warmup.max-ids:10000}")
+    private int maxIds;
+
+    @Value("${transaction.cache.warmup.max-pages:100}")
+    private int maxPages;
+
+    @Value("${transaction.cache.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${transaction.cache.warmup.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${transaction.cache.warmup.save-interval-ms:300000}")
+    private long saveIntervalMs;
+
+    private ScheduledExecutorService saver;
+
+    /**
+     * 预加载完成后才允许写入快照，避免启动中途关闭时用空缓存覆盖上一次的快照
+     */
+    private volatile boolean ready;
+
+    public CacheWarmup(@Value("${transaction.cache.warmup.snapshot:}") String snapshot) {
+        this.snapshot = snapshot.isEmpty() ? null : Paths.get(snapshot);
+    }
+
+    /**
+     * 快照中的热点key
+     *
+     * @param ids   交易ID，按访问频率从高到低
+     * @param pages 分页查询条件，按访问频率从高到低
+     */
+    public record HotKeys(List<Long> ids, List<TransactionPageKey> pages) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (snapshot == null) {
+            return;
+        }
+        HotKeys hotKeys = loadSnapshot();
+        if (hotKeys != null) {
+            preload(hotKeys);
+        }
+        ready = true;
+        if (saveIntervalMs > 0) {
+            saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-warmup-saver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            saver.scheduleWithFixedDelay(this::saveSnapshot, saveIntervalMs, saveIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 正常关闭时写入快照，此时Web容器已停止，缓存内容不再变化
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (saver != null) {
+            saver.shutdown();
+            saver.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        saveSnapshot();
+    }
+
+    /**
+     * 把当前缓存中最热的key写入快照；先写临时文件再原子替换
+     */
+    public synchronized void saveSnapshot() {
+        if (snapshot == null || !ready) {
+            return;
+        }
+        HotKeys hotKeys = hotKeys();
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            if (snapshot.getParent() != null) {
+                Files.createDirectories(snapshot.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                write(hotKeys, out);
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("saved cache warmup snapshot of {} ids and {} pages", hotKeys.ids().size(), hotKeys.pages().size());
+        } catch (IOException e) {
+            log.warn("failed to save cache warmup snapshot {}", snapshot, e);
+        }
+    }
+
+    /**
+     * 取各缓存区域中访问频率最高的key，分页区域和搜索区域合并后共用max-pages
+     */
+    HotKeys hotKeys() {
+        List<Long> ids = new ArrayList<>();
+        for (Object key : hottest(CacheConfig.TRANSACTION_CACHE, maxIds).keySet()) {
+            ids.add((Long) key);
+        }
+        List<TransactionPageKey> pages = new ArrayList<>();
+        for (String name : new String[]{CacheConfig.PAGE_CACHE, CacheConfig.SEARCH_CACHE}) {
+            for (Object key : hottest(name, maxPages - pages.size()).keySet()) {
+                pages.add((TransactionPageKey) key);
+            }
+        }
+        return new HotKeys(ids, pages);
+    }
+
+    private Map<Object, Object> hottest(String name, int limit) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        if (limit <= 0 || !(cache instanceof CaffeineCache caffeineCache)) {
+            return Map.of();
+        }
+        return caffeineCache.getNativeCache().policy().eviction().map(eviction -> eviction.hottest(limit)).orElse(Map.of());
+    }
+
+    private HotKeys loadSnapshot() {
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            return read(in);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("ignored cache warmup snapshot {}: {}", snapshot, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 经过服务层按快照并行查询，结果由缓存切面写入缓存；ID在前、分页在后，各自按访问频率从高到低提交
+     */
+    private void preload(HotKeys hotKeys) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        long deadline = start + timeoutMs;
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Long id : hotKeys.ids()) {
+            executor.execute(() -> load(deadline, loaded, skipped, () -> transactionService.getTransactionById(id)));
+        }
+        for (TransactionPageKey key : hotKeys.pages()) {
+            executor.execute(() -> load(deadline, loaded, skipped, () -> transactionService.listAllTransactions(
+                    key.transactionNo(), key.startTime(), key.endTime(), key.pageable())));
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(Math.max(deadline - System.currentTimeMillis(), 0L), TimeUnit.MILLISECONDS)) {
+            log.warn("cache warmup exceeded {} ms, continuing startup while in-flight loads finish", timeoutMs);
+        }
+        log.info("warmed up caches with {} of {} keys in {} ms, skipped {}", loaded.get(),
+                hotKeys.ids().size() + hotKeys.pages().size(), System.currentTimeMillis() - start, skipped.get());
+    }
+
+    private static void load(long deadline, AtomicInteger loaded, AtomicInteger skipped, Runnable query) {
+        if (System.currentTimeMillis() >= deadline) {
+            skipped.incrementAndGet();
+            return;
+        }
+        try {
+            query.run();
+            loaded.incrementAndGet();
+        } catch (RuntimeException e) {
+            skipped.incrementAndGet();
+            log.debug("cache warmup load failed", e);
+        }
+    }
+
+    /**
+     * 快照格式：magic、ID数及各ID、分页数及各分页的交易编号、时间范围（可为空）和页码、每页条数
+     */
+    static void write(HotKeys hotKeys, DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(hotKeys.ids().size());
+        for (Long id : hotKeys.ids()) {
+            out.writeLong(id);
+        }
+        out.writeInt(hotKeys.pages().size());
+        for (TransactionPageKey key : hotKeys.pages()) {
+            if (key.transactionNo() == null) {
+                out.writeByte(NULL);
+            } else {
+                out.writeByte(PRESENT);
+                out.writeUTF(key.transactionNo());
+            }
+            writeNullable(key.startTime(), out);
+            writeNullable(key.endTime(), out);
+            out.writeInt(key.pageable().getPageNumber());
+            out.writeInt(key.pageable().getPageSize());
+        }
+    }
+
+    static HotKeys read(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IllegalArgumentException("unknown format");
+        }
+        int idCount = in.readInt();
+        List<Long> ids = new ArrayList<>(idCount);
+        for (int i = 0; i < idCount; i++) {
+            ids.add(in.readLong());
+        }
+        int pageCount = in.readInt();
+        List<TransactionPageKey> pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            String transactionNo = in.readByte() == NULL ? null : in.readUTF();
+            Long startTime = readNullable(in);
+            Long endTime = readNullable(in);
+            pages.add(new TransactionPageKey(0L, transactionNo, startTime, endTime, PageRequest.of(in.readInt(), in.readInt())));
+        }
+        return new HotKeys(ids, pages);
+    }
+
+    private static void writeNullable(Long value, DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else {
+            out.writeByte(PRESENT);
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullable(DataInputStream in) throws IOException {
+        return in.readByte() == NULL ? null : in.readLong();
+    }
+}
@@ -0,0 +1,65 @@
+package com.hsbc.management.cache;
+
+import com.hsbc.management.common.vo.TransactionVO;
+import org.springframework.data.domain.Page;
+
+/**
+ * 估算缓存条目占用的堆内存字节数，作为Caffeine的权重
+ * <p>
+ * 按64位JVM开启压缩指针的对象布局粗略估算，只用于区域间按相近的尺度限制容量，不要求精确
+ */
+public final class CacheWeigher {
+
+    /**
+     * Caffeine节点及ConcurrentHashMap槽位的开销
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * TransactionVO本身加装箱的Long字段和BigDecimal，不含字符串内容
+     */
+    private static final int TRANSACTION_OVERHEAD = 280;
+
+    /**
+     * PageImpl、内容列表和Pageable
+     */
+    private static final int PAGE_OVERHEAD = 160;
+
+    private static final int STRING_OVERHEAD = 40;
+
+    private CacheWeigher() {
+    }
+
+    public static int weigh(Object key, Object value) {
+        long weight = ENTRY_OVERHEAD + weighKey(key) + weighValue(value);
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static long weighKey(Object key) {
+        if (key instanceof TransactionPageKey pageKey) {
+            return 96 + weighString(pageKey.transactionNo());
+        }
+        if (key instanceof String string) {
+            return weighString(string);
+        }
+        return 16;
+    }
+
+    private static long weighValue(Object value) {
+        if (value instanceof TransactionVO transaction) {
+            return TRANSACTION_OVERHEAD + weighString(transaction.getTransactionNo()) + weighString(transaction.getDescription());
+        }
+        if (value instanceof Page<?> page) {
+            long weight = PAGE_OVERHEAD + 4L * page.getNumberOfElements();
+            for (Object element : page.getContent()) {
+                weight += weighValue(element);
+            }
+            return weight;
+        }
+        return 16;
+    }
+
+    private static long weighString(String string) {
+        return string == null ? 0 : STRING_OVERHEAD + string.length();
+    }
+}
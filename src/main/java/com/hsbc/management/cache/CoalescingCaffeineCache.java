@@ -0,0 +1,112 @@
+package com.hsbc.management.cache;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 同一key的并发未命中合并为一次加载，加载期间不持有锁
+ * <p>
+ * CaffeineCache.get(key, loader)在ConcurrentHashMap.compute中调用loader，compute持有synchronized锁，
+ * 虚拟线程在其中等待连接、执行JDBC时固定载体线程；载体线程数等于CPU核数，少量固定即可让其余请求全部停顿。
+ * 这里改为先登记一个CompletableFuture，第一个线程在锁外加载并写入缓存，其余线程等待该future，等待时不固定载体线程。
+ * <p>
+ * put、evict、clear先撤销进行中的加载，加载完成后不再写入缓存，避免把加载期间读到的旧值写回
+ */
+public class CoalescingCaffeineCache extends CaffeineCache {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    public CoalescingCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = getIfPresent(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            // 前一次加载可能在get与putIfAbsent之间完成；复查不计入命中统计
+            Object present = getNativeCache().policy().getIfPresentQuietly(key);
+            T value;
+            if (present != null) {
+                value = (T) fromStoreValue(present);
+            } else {
+                value = valueLoader.call();
+                loading.computeIfPresent(key, (k, current) -> {
+                    if (current == future) {
+                        super.put(key, value);
+                    }
+                    return current;
+                });
+            }
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 只查询不加载：分页区域是LoadingCache，get(key)未命中时会在compute中调用区域的加载方
+     */
+    private ValueWrapper getIfPresent(Object key) {
+        Object value = getNativeCache().getIfPresent(key);
+        return value != null ? toValueWrapper(value) : null;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        loading.remove(key);
+        super.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        loading.remove(key);
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        loading.remove(key);
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        loading.remove(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        loading.clear();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        loading.clear();
+        return super.invalidate();
+    }
+}
@@ -0,0 +1,42 @@
+package com.hsbc.management.cache;
+
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.configuration.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 新建交易提交后淘汰单条缓存中的同一ID
+ * <p>
+ * 单个创建通过@CachePut写入缓存，批量创建、批量导入不经过缓存注解；布隆过滤器误判为可能存在时，
+ * 提交前按该ID的查询会把空结果写入缓存，这里统一淘汰。其他节点新建的ID由CacheInvalidationBus收到广播后淘汰。
+ * <p>
+ * 在事务完成后执行：此时事务同步已清除，淘汰立即生效，不会被TransactionAwareCacheDecorator再次推迟而丢失；
+ * 单个创建的@CachePut在事务拦截器返回后执行，晚于这里的淘汰
+ */
+@Component
+public class TransactionCreatedCacheEviction {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * 淘汰新建交易ID的缓存
+     *
+     * @param event 交易变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (event.type() != TransactionChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_CACHE);
+        if (cache != null) {
+            cache.evict(event.id());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hsbc.management.cache;
+
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 交易列表缓存的版本号
+ * <p>
+ * 列表缓存的key中带有当前版本号，任何交易变更提交后版本号加一，旧版本的分页缓存不再被命中，
+ * 由Caffeine按过期策略自然淘汰，从而避免每次写操作都清空整个缓存。
+ */
+@Component
+public class TransactionListCacheVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 获取当前列表缓存版本号
+     *
+     * @return 当前版本号
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * 交易变更提交后递增版本号，使所有已缓存的分页失效
+     *
+     * @param event 交易变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        advance();
+    }
+
+    /**
+     * 递增版本号，使所有已缓存的分页失效
+     */
+    public void advance() {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,33 @@
+package com.hsbc.management.cache;
+
+import com.hsbc.management.configuration.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * listAllTransactions(transactionNo, startTime, endTime, pageable)的分页缓存区域：
+ * 带交易编号或时间范围的查询进入搜索结果区域，其余进入分页区域
+ * <p>
+ * 搜索条件的组合远多于普通翻页，且大多只访问一次，分开后不会挤掉热点分页
+ */
+@Component("transactionPageCacheResolver")
+public class TransactionPageCacheResolver implements CacheResolver {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        Object[] args = context.getArgs();
+        String transactionNo = (String) args[0];
+        boolean search = (transactionNo != null && !transactionNo.isEmpty()) || args[1] != null || args[2] != null;
+        return List.of(cacheManager.getCache(search ? CacheConfig.SEARCH_CACHE : CacheConfig.PAGE_CACHE));
+    }
+}
@@ -0,0 +1,15 @@
+package com.hsbc.management.cache;
+
+import org.springframework.data.domain.Pageable;
+
+/**
+ * 分页缓存的key，包含查询条件和生成时的列表版本号，缓存刷新时按key中的条件重新查询
+ *
+ * @param version       列表版本号
+ * @param transactionNo 交易编号
+ * @param startTime     创建时间下限
+ * @param endTime       创建时间上限
+ * @param pageable      分页参数
+ */
+public record TransactionPageKey(long version, String transactionNo, Long startTime, Long endTime, Pageable pageable) {
+}
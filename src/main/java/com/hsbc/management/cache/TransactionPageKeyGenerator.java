@@ -0,0 +1,23 @@
+package com.hsbc.management.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * 为listAllTransactions(transactionNo, startTime, endTime, pageable)生成带当前列表版本号的分页缓存key
+ */
+@Component("transactionPageKeyGenerator")
+public class TransactionPageKeyGenerator implements KeyGenerator {
+
+    @Autowired
+    private TransactionListCacheVersion transactionListCacheVersion;
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return new TransactionPageKey(transactionListCacheVersion.current(), (String) params[0], (Long) params[1], (Long) params[2], (Pageable) params[3]);
+    }
+}
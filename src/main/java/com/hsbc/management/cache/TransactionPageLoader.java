@@ -0,0 +1,18 @@
+package com.hsbc.management.cache;
+
+import com.hsbc.management.common.vo.TransactionVO;
+import org.springframework.data.domain.Page;
+
+/**
+ * 分页缓存的加载方，缓存提前刷新时在后台线程中调用，不经过缓存切面
+ */
+public interface TransactionPageLoader {
+
+    /**
+     * 按key中的条件查询一页交易
+     *
+     * @param key 分页缓存的key
+     * @return 分页结果
+     */
+    Page<TransactionVO> loadPage(TransactionPageKey key);
+}
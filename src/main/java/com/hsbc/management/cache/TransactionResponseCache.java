@@ -0,0 +1,249 @@
+package com.hsbc.management.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hsbc.management.common.BaseResult;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.vo.TransactionVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 热点GET接口的响应缓存，保存已编码好的JSON字节及其ETag，命中时直接写回响应，不再经过BaseResult包装和Jackson序列化
+ * <p>
+ * 容量按字节计算：每个条目的权重为响应体字节数加key的字符数，总量超过上限时由Caffeine按访问频率淘汰，
+ * 热点ID和常用分页留在缓存中。
+ * <p>
+ * 失效与写路径发布的交易变更事件挂钩：事务结束后递增分页代数和该ID所在分段的代数，并淘汰对应ID的响应；
+ * 分页的key带有分页代数，任何变更后旧分页不再命中。单条交易按ID分段记录代数，其他交易的写入不影响它的缓存写回，
+ * 持续写入时热点交易仍然可以被缓存。写入前后各检查一次代数，读到旧数据的请求不会在变更提交之后把旧响应写回缓存。
+ * <p>
+ * 单条交易的ETag为交易的版本号；分页的ETag为启动标识加代数，代数在查询之前读取，只可能比数据旧，
+ * 客户端带回的ETag与当前代数一致时说明之后没有任何变更，无需查询即可返回304。
+ */
+@Component
+public class TransactionResponseCache {
+
+    private static final String CACHE_NAME = "transactionResponses";
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, Response> cache;
+
+    /**
+     * 单条交易代数的分段数，同一分段内的ID共用代数，只在并发写回时互相影响
+     */
+    private static final int ID_STRIPES = 1024;
+
+    /**
+     * 分页代数，任何交易变更都会递增
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 单条交易按ID分段的代数
+     */
+    private final AtomicLongArray idGenerations = new AtomicLongArray(ID_STRIPES);
+
+    /**
+     * 清空次数，清空时所有单条交易的代数都视为变化
+     */
+    private final AtomicLong clears = new AtomicLong();
+
+    /**
+     * 代数只保存在内存中，重启后从0开始；分页ETag带上启动标识，重启前发出的ETag不会与重启后的代数混淆
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * 编码好的响应
+     *
+     * @param body JSON响应体
+     * @param eTag 响应的ETag，带引号，没有时为null
+     */
+    public record Response(byte[] body, String eTag) {
+    }
+
+    public TransactionResponseCache(ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${transaction.response-cache.max-bytes:16777216}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Response response) -> key.length() + response.body().length)
+                .expireAfterWrite(30, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 获取单条交易的响应，ETag为交易的版本号，交易不存在时没有ETag
+     *
+     * @param id     交易ID
+     * @param loader 查询交易
+     * @return 响应
+     */
+    public Response getTransaction(Long id, Supplier<Optional<TransactionVO>> loader) {
+        int stripe = stripe(id);
+        // 两个计数都只增不减，其中任何一个递增都会使和变化
+        return get(idKey(id), () -> idGenerations.get(stripe) + clears.get(), () -> loader.get().orElse(null),
+                (stamp, transaction) -> versionETag(transaction.getVersion()));
+    }
+
+    /**
+     * 获取分页的响应，ETag为查询前的代数
+     *
+     * @param transactionNo 交易编号
+     * @param startTime     创建时间下限
+     * @param endTime       创建时间上限
+     * @param pageable      分页参数
+     * @param loader        查询分页
+     * @return 响应
+     */
+    public Response getPage(String transactionNo, Long startTime, Long endTime, Pageable pageable, Supplier<Page<TransactionVO>> loader) {
+        String key = "page:" + generation.get() + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize()
+                + ":" + startTime + ":" + endTime + ":" + (transactionNo == null ? "" : transactionNo);
+        return get(key, generation::get, loader, (stamp, page) -> pageETag(stamp));
+    }
+
+    /**
+     * 当前代数对应的分页ETag，与客户端带回的ETag一致时分页内容一定没有变化
+     *
+     * @return 带引号的ETag
+     */
+    public String currentPageETag() {
+        return pageETag(generation.get());
+    }
+
+    /**
+     * 版本号对应的单条交易ETag
+     *
+     * @param version 版本号
+     * @return 带引号的ETag，版本号为空时返回null
+     */
+    public static String versionETag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * 交易变更的事务结束后淘汰该交易的响应，并使所有分页响应失效；同一分段外的单条交易不受影响
+     * <p>
+     * 在AFTER_COMPLETION阶段执行，晚于服务层缓存在提交后的put/evict，之后开始的查询不会再读到服务层缓存中的旧数据；
+     * 回滚时多淘汰一次，不影响正确性
+     *
+     * @param event 交易变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        generation.incrementAndGet();
+        idGenerations.incrementAndGet(stripe(event.id()));
+        cache.invalidate(idKey(event.id()));
+    }
+
+    /**
+     * 淘汰指定交易的响应，并使所有分页响应失效，用于应用其他节点的变更
+     *
+     * @param ids 交易ID
+     */
+    public void invalidate(Collection<Long> ids) {
+        generation.incrementAndGet();
+        ids.forEach(id -> idGenerations.incrementAndGet(stripe(id)));
+        cache.invalidateAll(ids.stream().map(TransactionResponseCache::idKey).toList());
+    }
+
+    /**
+     * 清空全部响应，进行中的查询不会再写回
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        clears.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * 当前缓存占用的字节数
+     *
+     * @return 各条目权重之和
+     */
+    public long weightedSize() {
+        cache.cleanUp();
+        return cache.policy().eviction().orElseThrow().weightedSize().orElse(0L);
+    }
+
+    /**
+     * 获取BaseResult.succeed(data)的响应，未命中时调用loader查询并编码
+     * <p>
+     * 查询结果为空时不缓存，避免交易创建后仍返回缓存的空响应
+     *
+     * @param key         缓存key
+     * @param generations 该key对应的代数
+     * @param loader      查询响应数据
+     * @param eTag        由查询前的代数和查询结果计算ETag
+     * @return 响应
+     */
+    private <T> Response get(String key, LongSupplier generations, Supplier<T> loader, ETagFunction<T> eTag) {
+        Response response = cache.getIfPresent(key);
+        if (response != null) {
+            return response;
+        }
+        long stamp = generations.getAsLong();
+        T data = loader.get();
+        if (data == null) {
+            return new Response(encode(null), null);
+        }
+        response = new Response(encode(data), eTag.apply(stamp, data));
+        if (generations.getAsLong() == stamp) {
+            cache.put(key, response);
+            if (generations.getAsLong() != stamp) {
+                cache.invalidate(key);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 由查询前的代数和查询结果计算ETag
+     */
+    @FunctionalInterface
+    private interface ETagFunction<T> {
+        String apply(long stamp, T data);
+    }
+
+    private static int stripe(Long id) {
+        return (int) (Long.hashCode(id) & (ID_STRIPES - 1));
+    }
+
+    private static String idKey(Long id) {
+        return "id:" + id;
+    }
+
+    private String pageETag(long stamp) {
+        return "\"" + epoch + "-" + stamp + "\"";
+    }
+
+    private byte[] encode(Object data) {
+        try {
+            return objectMapper.writeValueAsBytes(BaseResult.succeed(data));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
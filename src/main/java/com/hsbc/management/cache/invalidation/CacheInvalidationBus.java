@@ -0,0 +1,262 @@
+package com.hsbc.management.cache.invalidation;
+
+import com.hsbc.management.cache.TransactionListCacheVersion;
+import com.hsbc.management.cache.TransactionResponseCache;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.service.index.TransactionExistenceFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多实例部署的缓存失效广播，transaction.cache-invalidation.enabled=true时启用
+ * <p>
+ * 本节点提交的交易变更先按ID合并，第一条变更之后flush-interval-ms内的变更与它合并为一批，
+ * 每条消息最多max-batch个ID；待发送的修改、删除超过max-pending时改为发送一条全部失效。
+ * 新建的ID总是逐个发送，对端把它们记入布隆过滤器，按ID查询时不必先经过一次不缓存的查库确认。
+ * <p>
+ * 对端收到后淘汰服务层缓存中对应的交易、使分页缓存和响应缓存失效，不发布交易变更事件。
+ * <p>
+ * 广播只尽力送达：修改、删除的消息丢失时，对端最多在缓存过期时间内读到旧数据；新建的消息丢失时，该ID不在对端的布隆过滤器中，
+ * 对端按ID查询仍会查库确认并补入过滤器，另外每隔filter-resync-interval-ms从库中重新回填过滤器（为0时不回填）。
+ * <p>
+ * 账号汇总（AccountAggregates）只累加本节点提交的变更，多实例部署时各节点的/accounts/{id}/summary都只反映本节点的写入，
+ * 结果是错误的；需要准确汇总时通过重建接口在查询的节点上从库中重建，或只部署单个实例。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.cache-invalidation", name = "enabled", havingValue = "true")
+public class CacheInvalidationBus {
+
+    private static final long[] NO_IDS = new long[0];
+
+    @Value("${transaction.cache-invalidation.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${transaction.cache-invalidation.max-batch:128}")
+    private int maxBatch;
+
+    @Value("${transaction.cache-invalidation.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${transaction.cache-invalidation.filter-resync-interval-ms:600000}")
+    private long filterResyncIntervalMs;
+
+    @Autowired
+    private InvalidationTransport transport;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionListCacheVersion transactionListCacheVersion;
+
+    @Autowired
+    private TransactionResponseCache transactionResponseCache;
+
+    @Autowired
+    private TransactionExistenceFilter transactionExistenceFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 节点标识，用于忽略自己发出的消息
+     */
+    private final long node = new SecureRandom().nextLong();
+
+    private final Object lock = new Object();
+
+    /**
+     * 待发送的变更，由lock保护
+     */
+    private Set<Long> created = new LinkedHashSet<>();
+
+    private Set<Long> changed = new LinkedHashSet<>();
+
+    private boolean all;
+
+    private boolean scheduled;
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * 过滤器回填按主键扫描全表，与flusher分开，避免推迟失效消息的发送
+     */
+    private ScheduledExecutorService resyncer;
+
+    private Counter sent;
+
+    private Counter received;
+
+    @PostConstruct
+    public void start() {
+        sent = Counter.builder("transaction.cache.invalidation.messages").tag("direction", "sent").register(meterRegistry);
+        received = Counter.builder("transaction.cache.invalidation.messages").tag("direction", "received").register(meterRegistry);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        resyncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "existence-filter-resync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (filterResyncIntervalMs > 0) {
+            resyncer.scheduleWithFixedDelay(this::resyncFilter, filterResyncIntervalMs, filterResyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        transport.start(this::receive);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        resyncer.shutdownNow();
+        flusher.shutdown();
+        flusher.awaitTermination(1, TimeUnit.SECONDS);
+        flush();
+        transport.stop();
+    }
+
+    /**
+     * 记录本节点提交的交易变更，等待合并发送；事务回滚时不发送
+     *
+     * @param event 交易变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        synchronized (lock) {
+            if (event.type() == TransactionChangedEvent.ChangeType.CREATED) {
+                created.add(event.id());
+            } else if (!all) {
+                changed.add(event.id());
+                if (changed.size() > maxPending) {
+                    all = true;
+                    changed.clear();
+                }
+            }
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            flusher.schedule(this::flush, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    /**
+     * 立即发送所有待发送的变更
+     */
+    public void flush() {
+        Set<Long> createdIds;
+        Set<Long> changedIds;
+        boolean invalidateAll;
+        synchronized (lock) {
+            createdIds = created;
+            changedIds = changed;
+            invalidateAll = all;
+            created = new LinkedHashSet<>();
+            changed = new LinkedHashSet<>();
+            all = false;
+            scheduled = false;
+        }
+        if (invalidateAll) {
+            send(new InvalidationMessage(node, true, NO_IDS, NO_IDS));
+        }
+        List<Long> ids = new ArrayList<>(createdIds);
+        ids.addAll(changedIds);
+        for (int from = 0; from < ids.size(); from += maxBatch) {
+            int to = Math.min(from + maxBatch, ids.size());
+            int split = Math.max(Math.min(createdIds.size(), to), from);
+            send(new InvalidationMessage(node, false, toArray(ids.subList(from, split)), toArray(ids.subList(split, to))));
+        }
+    }
+
+    private void resyncFilter() {
+        try {
+            long start = System.currentTimeMillis();
+            long scanned = transactionExistenceFilter.resync();
+            log.debug("resynced existence filter with {} transactions in {} ms", scanned, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("existence filter resync failed", e);
+        }
+    }
+
+    private void send(InvalidationMessage message) {
+        try {
+            transport.send(message.encode());
+            sent.increment();
+        } catch (RuntimeException e) {
+            log.warn("cache invalidation send failed", e);
+        }
+    }
+
+    /**
+     * 应用其他节点的失效：先淘汰服务层缓存再使响应缓存失效，与本节点提交后的顺序一致，
+     * 响应缓存中基于旧数据、在失效前开始的查询不会被写回
+     */
+    private void receive(byte[] bytes) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            log.warn("ignored malformed cache invalidation message: {}", e.getMessage());
+            return;
+        }
+        if (message.node() == node) {
+            return;
+        }
+        received.increment();
+        Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_CACHE);
+        for (long id : message.created()) {
+            transactionExistenceFilter.addId(id);
+        }
+        if (message.all()) {
+            if (cache != null) {
+                cache.clear();
+            }
+            transactionListCacheVersion.advance();
+            transactionResponseCache.clear();
+            return;
+        }
+        List<Long> ids = new ArrayList<>(message.created().length + message.changed().length);
+        for (long id : message.created()) {
+            ids.add(id);
+        }
+        for (long id : message.changed()) {
+            ids.add(id);
+        }
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+        transactionListCacheVersion.advance();
+        transactionResponseCache.invalidate(ids);
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.hsbc.management.cache.invalidation;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * 一批缓存失效，只携带交易ID
+ * <p>
+ * 编码格式：magic(int) node(long) all(byte) created数量(int) created(long...) changed数量(int) changed(long...)
+ *
+ * @param node    发送节点标识
+ * @param all     为true时对端清空全部交易缓存，changed为空
+ * @param created 新建的交易ID，对端需要记入布隆过滤器
+ * @param changed 修改或删除的交易ID
+ */
+public record InvalidationMessage(long node, boolean all, long[] created, long[] changed) {
+
+    private static final int MAGIC = 0x54584956;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + 1 + Integer.BYTES * 2;
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + Long.BYTES * (created.length + changed.length));
+        buffer.putInt(MAGIC).putLong(node).put((byte) (all ? 1 : 0));
+        buffer.putInt(created.length);
+        for (long id : created) {
+            buffer.putLong(id);
+        }
+        buffer.putInt(changed.length);
+        for (long id : changed) {
+            buffer.putLong(id);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 解码消息
+     *
+     * @param bytes 编码后的消息
+     * @return 消息
+     * @throws IllegalArgumentException 格式不正确时抛出
+     */
+    public static InvalidationMessage decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("not a cache invalidation message");
+            }
+            long node = buffer.getLong();
+            boolean all = buffer.get() != 0;
+            long[] created = readIds(buffer);
+            long[] changed = readIds(buffer);
+            return new InvalidationMessage(node, all, created, changed);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated cache invalidation message", e);
+        }
+    }
+
+    private static long[] readIds(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / Long.BYTES) {
+            throw new IllegalArgumentException("invalid id count " + count);
+        }
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = buffer.getLong();
+        }
+        return ids;
+    }
+}
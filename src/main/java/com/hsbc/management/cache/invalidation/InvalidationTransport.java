@@ -0,0 +1,32 @@
+package com.hsbc.management.cache.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效消息的传输通道，负责把本节点编码好的消息送达其他节点
+ * <p>
+ * 只要求尽力送达：消息丢失时对端缓存最多在过期时间内读到旧数据，不影响数据库中的数据。
+ * 发送方自己也可能收到自己的消息，由CacheInvalidationBus按节点标识过滤。
+ * 其他传输方式（如消息队列的广播主题）实现本接口并注册为Bean，同时把transaction.cache-invalidation.transport设为其他值即可替换内置实现。
+ */
+public interface InvalidationTransport {
+
+    /**
+     * 开始接收消息，收到的消息在传输层的线程中回调
+     *
+     * @param receiver 消息处理
+     */
+    void start(Consumer<byte[]> receiver);
+
+    /**
+     * 发送一条消息
+     *
+     * @param message 编码好的消息
+     */
+    void send(byte[] message);
+
+    /**
+     * 停止接收并释放资源
+     */
+    void stop();
+}
@@ -0,0 +1,45 @@
+package com.hsbc.management.cache.invalidation;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 进程内传输：同一JVM中订阅同一频道的应用上下文互相投递，在发送线程中同步回调
+ * <p>
+ * 用于在一台机器上启动多个应用上下文验证多节点缓存一致性，消息同样经过编码和解码
+ */
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    private static final Map<String, Set<Consumer<byte[]>>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+
+    private Consumer<byte[]> receiver;
+
+    public LocalInvalidationTransport(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, key -> ConcurrentHashMap.newKeySet()).add(receiver);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        for (Consumer<byte[]> subscriber : CHANNELS.getOrDefault(channel, Set.of())) {
+            subscriber.accept(message);
+        }
+    }
+
+    @Override
+    public void stop() {
+        Set<Consumer<byte[]>> subscribers = CHANNELS.get(channel);
+        if (subscribers != null && receiver != null) {
+            subscribers.remove(receiver);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.hsbc.management.cache.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * UDP传输：每条消息以一个报文发送给配置的每个对端，本节点在port上接收
+ * <p>
+ * 不重传、不保证顺序，报文丢失的代价见InvalidationTransport。消息需小于链路MTU以免分片，
+ * 由CacheInvalidationBus的max-batch控制每条消息的ID数
+ * <p>
+ * 收到的报文会清空缓存、写入布隆过滤器，因此只绑定配置的地址，并丢弃来源地址不在peers中的报文；
+ * 报文没有签名，来源地址可以伪造，端口仍应只在内网可达
+ */
+@Slf4j
+public class UdpInvalidationTransport implements InvalidationTransport {
+
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private final DatagramSocket socket;
+
+    private final List<InetSocketAddress> peers;
+
+    /**
+     * 允许的来源地址，只比较IP，发送端口可能经过NAT改变
+     */
+    private final Set<InetAddress> peerAddresses;
+
+    private Thread listener;
+
+    /**
+     * @param bindAddress 本节点接收地址
+     * @param port        本节点接收端口，0表示由系统分配
+     * @param peers       对端地址，同时是允许的来源地址
+     */
+    public UdpInvalidationTransport(String bindAddress, int port, List<InetSocketAddress> peers) {
+        try {
+            this.socket = new DatagramSocket(new InetSocketAddress(bindAddress, port));
+        } catch (SocketException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.peers = peers;
+        this.peerAddresses = peers.stream()
+                .filter(peer -> !peer.isUnresolved())
+                .map(InetSocketAddress::getAddress)
+                .collect(Collectors.toUnmodifiableSet());
+        peers.stream().filter(InetSocketAddress::isUnresolved)
+                .forEach(peer -> log.warn("cache invalidation peer {} could not be resolved, its messages will be dropped", peer));
+    }
+
+    /**
+     * 解析逗号分隔的host:port列表
+     *
+     * @param peers 对端地址列表，可以为空
+     * @return 对端地址
+     */
+    public static List<InetSocketAddress> parsePeers(String peers) {
+        return Arrays.stream(peers.split(","))
+                .map(String::trim)
+                .filter(peer -> !peer.isEmpty())
+                .map(peer -> {
+                    int colon = peer.lastIndexOf(':');
+                    return new InetSocketAddress(peer.substring(0, colon), Integer.parseInt(peer.substring(colon + 1)));
+                })
+                .toList();
+    }
+
+    /**
+     * 实际绑定的接收端口
+     *
+     * @return 端口
+     */
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        listener = new Thread(() -> {
+            byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+            while (!socket.isClosed()) {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                } catch (IOException e) {
+                    if (!socket.isClosed()) {
+                        log.warn("cache invalidation receive failed", e);
+                    }
+                    continue;
+                }
+                if (!peerAddresses.contains(packet.getAddress())) {
+                    log.warn("dropped cache invalidation message from unknown sender {}", packet.getSocketAddress());
+                    continue;
+                }
+                try {
+                    receiver.accept(Arrays.copyOfRange(packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength()));
+                } catch (RuntimeException e) {
+                    // 回调异常不能结束接收线程，否则之后的失效消息全部丢失
+                    log.warn("cache invalidation message handling failed", e);
+                }
+            }
+        }, "cache-invalidation-udp");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void send(byte[] message) {
+        for (InetSocketAddress peer : peers) {
+            try {
+                socket.send(new DatagramPacket(message, message.length, peer));
+            } catch (IOException e) {
+                log.warn("cache invalidation send to {} failed: {}", peer, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        socket.close();
+    }
+}
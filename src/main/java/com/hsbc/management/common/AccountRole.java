@@ -0,0 +1,42 @@
+package com.hsbc.management.common;
+
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+
+import java.util.Locale;
+
+/**
+ * 按账号查询交易时账号在交易中的角色
+ */
+public enum AccountRole {
+
+    /**
+     * 来源账号
+     */
+    SOURCE,
+
+    /**
+     * 收款账号
+     */
+    TARGET,
+
+    /**
+     * 来源账号或收款账号
+     */
+    ANY;
+
+    /**
+     * 解析账号角色，忽略大小写
+     *
+     * @param role 角色名称
+     * @return 账号角色
+     * @throws BizException 如果角色不支持，则抛出BizException异常
+     */
+    public static AccountRole of(String role) {
+        try {
+            return valueOf(role.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Unsupported account role " + role + ".");
+        }
+    }
+}
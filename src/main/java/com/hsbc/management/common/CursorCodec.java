@@ -0,0 +1,59 @@
+package com.hsbc.management.common;
+
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * 游标编解码工具，将排序键编码为对客户端不透明的字符串
+ */
+public final class CursorCodec {
+
+    private static final byte VERSION = 1;
+
+    private CursorCodec() {
+    }
+
+    /**
+     * 将排序键编码为游标
+     *
+     * @param keys 排序键，按排序优先级依次传入
+     * @return URL安全的Base64游标
+     */
+    public static String encode(long... keys) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + keys.length * Long.BYTES);
+        buffer.put(VERSION);
+        for (long key : keys) {
+            buffer.putLong(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor    游标字符串
+     * @param keyCount  期望的排序键个数
+     * @return 排序键数组
+     * @throws BizException 如果游标格式不合法，则抛出BizException异常
+     */
+    public static long[] decode(String cursor, int keyCount) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Invalid cursor " + cursor + ".");
+        }
+        if (bytes.length != 1 + keyCount * Long.BYTES || bytes[0] != VERSION) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Invalid cursor " + cursor + ".");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        long[] keys = new long[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = buffer.getLong();
+        }
+        return keys;
+    }
+}
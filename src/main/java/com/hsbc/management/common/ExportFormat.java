@@ -0,0 +1,54 @@
+package com.hsbc.management.common;
+
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+
+import java.util.Locale;
+
+/**
+ * 交易导出、导入文件格式
+ */
+public enum ExportFormat {
+
+    /**
+     * 每行一个JSON对象
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /**
+     * 首行为表头的CSV
+     */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 解析导出格式，忽略大小写
+     *
+     * @param format 格式名称
+     * @return 导出格式
+     * @throws BizException 如果格式不支持，则抛出BizException异常
+     */
+    public static ExportFormat of(String format) {
+        try {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Unsupported export format " + format + ".");
+        }
+    }
+}
@@ -5,6 +5,8 @@ public enum ResultCodeEnum {
     SUCCESS(0, "成功"),
     PARAM_ERROR(1001, "参数校验错误"),
     BIZ_ERROR(1002, "业务错误"),
+    OVERLOADED(1003, "系统繁忙，请稍后重试"),
+    NOT_READY(1004, "服务启动中，请稍后重试"),
     SYSTEM_ERROR(-1, "系统错误");
 
     private int code;
@@ -0,0 +1,42 @@
+package com.hsbc.management.common;
+
+import com.hsbc.management.common.vo.TransactionVO;
+
+/**
+ * 交易CSV格式工具，导出与导入共用同一列顺序
+ */
+public final class TransactionCsv {
+
+    public static final String HEADER = "id,transactionNo,sourceAccountId,targetAccountId,amount,description,createTime,updateTime\n";
+
+    private TransactionCsv() {
+    }
+
+    /**
+     * 将交易转换为一行CSV，以换行结尾
+     *
+     * @param transaction 交易
+     * @return CSV行
+     */
+    public static String line(TransactionVO transaction) {
+        return transaction.getId() + "," + field(transaction.getTransactionNo()) + ","
+                + field(transaction.getSourceAccountId()) + "," + field(transaction.getTargetAccountId()) + ","
+                + field(transaction.getAmount() == null ? null : transaction.getAmount().toPlainString()) + ","
+                + field(transaction.getDescription()) + "," + field(transaction.getCreateTime()) + ","
+                + field(transaction.getUpdateTime()) + "\n";
+    }
+
+    /**
+     * 按RFC 4180转义CSV字段，包含逗号、引号或换行时整体加引号
+     */
+    private static String field(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
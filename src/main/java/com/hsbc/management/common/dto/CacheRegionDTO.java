@@ -0,0 +1,31 @@
+package com.hsbc.management.common.dto;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * 运行时调整缓存区域的请求，为空的字段保持不变
+ */
+@Data
+public class CacheRegionDTO {
+    /**
+     * 容量上限，估算字节数，缩小后立即淘汰超出的条目
+     */
+    @Positive(message = "maxBytes必须大于0")
+    private Long maxBytes;
+    /**
+     * 写入后过期时间，ms
+     */
+    @Positive(message = "expireAfterWriteMs必须大于0")
+    private Long expireAfterWriteMs;
+    /**
+     * 最后访问后过期时间，ms，只能调整启动时已配置的区域
+     */
+    @Positive(message = "expireAfterAccessMs必须大于0")
+    private Long expireAfterAccessMs;
+    /**
+     * 后台刷新间隔，ms，只能调整启动时已配置的区域
+     */
+    @Positive(message = "refreshAfterWriteMs必须大于0")
+    private Long refreshAfterWriteMs;
+}
@@ -0,0 +1,20 @@
+package com.hsbc.management.common.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量创建交易数据传输对象
+ */
+@Data
+public class TransactionBatchDTO {
+    /**
+     * 待创建的交易列表，逐条校验，单条失败不影响其他记录
+     */
+    @NotEmpty(message = "transactions不能为空")
+    @Size(max = 500, message = "transactions单次最多500条")
+    private List<TransactionDTO> transactions;
+}
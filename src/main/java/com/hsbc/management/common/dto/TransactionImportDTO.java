@@ -0,0 +1,20 @@
+package com.hsbc.management.common.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * 批量导入请求
+ */
+@Data
+public class TransactionImportDTO {
+    /**
+     * 导入目录下的相对路径
+     */
+    @NotBlank(message = "path不能为空")
+    private String path;
+    /**
+     * 文件格式，ndjson或csv，为空时按扩展名判断
+     */
+    private String format;
+}
@@ -33,4 +33,8 @@ public class TransactionModifyDTO {
     @NotBlank(message = "description不能为空")
     @Size(min = 2, max = 30, message = "description长度必须大于2小于30")
     private String description;
+    /**
+     * 期望的当前版本号，可选，不为空时与交易的当前版本不一致则修改失败；也可以通过If-Match请求头传入
+     */
+    private Long version;
 }
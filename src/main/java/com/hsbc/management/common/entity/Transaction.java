@@ -2,6 +2,7 @@ package com.hsbc.management.common.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -10,7 +11,10 @@ import java.math.BigDecimal;
  */
 @Data
 @Table(name = "transaction_management", indexes = {
-        @Index(name = "idx_transaction_no", columnList = "transaction_no", unique = true)
+        @Index(name = "idx_transaction_no", columnList = "transaction_no", unique = true),
+        @Index(name = "idx_source_account_time", columnList = "source_account_id, create_time desc, id desc"),
+        @Index(name = "idx_target_account_time", columnList = "target_account_id, create_time desc, id desc"),
+        @Index(name = "idx_create_time", columnList = "create_time, id")
 })
 @Entity
 public class Transaction {
@@ -18,7 +22,8 @@ public class Transaction {
      * 主键ID
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     @Column(nullable = false)
     private Long id;
     /**
@@ -49,4 +54,11 @@ public class Transaction {
      * 更新时间
      */
     private Long updateTime;
+    /**
+     * 版本号，创建时为0，每次修改加一，用于乐观锁和ETag；绕过JPA插入的行取列默认值0
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
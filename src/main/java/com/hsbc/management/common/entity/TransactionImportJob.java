@@ -0,0 +1,67 @@
+package com.hsbc.management.common.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 批量导入任务，同时作为断点：每批交易与已处理位置在同一事务中提交，中断后从该位置继续
+ */
+@Data
+@Table(name = "transaction_import_job")
+@Entity
+public class TransactionImportJob {
+    /**
+     * 导入文件相对导入目录的路径
+     */
+    @Id
+    @Column(length = 1024)
+    private String path;
+    /**
+     * 文件格式，NDJSON或CSV
+     */
+    @Column(length = 16)
+    private String format;
+    /**
+     * 任务状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Status status;
+    /**
+     * 文件大小，字节
+     */
+    private Long fileSize;
+    /**
+     * 已处理到的字节位置，下一行从该位置开始
+     */
+    private Long position;
+    /**
+     * 已处理的行数
+     */
+    private Long lineNo;
+    /**
+     * 导入成功的记录数
+     */
+    private Long imported;
+    /**
+     * 被拒绝的记录数，明细见拒绝文件
+     */
+    private Long rejected;
+    /**
+     * 失败原因
+     */
+    @Column(length = 1024)
+    private String message;
+    /**
+     * 创建时间
+     */
+    private Long createTime;
+    /**
+     * 更新时间
+     */
+    private Long updateTime;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+}
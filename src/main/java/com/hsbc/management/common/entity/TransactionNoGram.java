@@ -0,0 +1,51 @@
+package com.hsbc.management.common.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * 交易编号n-gram索引实体
+ * <p>
+ * 每条交易按交易编号拆分出的每个trigram对应一行，主键(gram, transaction_id)即倒排索引，
+ * 子串搜索先按gram定位候选交易ID，避免对交易表做LIKE '%x%'全表扫描。
+ */
+@Data
+@NoArgsConstructor
+@Table(name = "transaction_no_gram", indexes = {
+        @Index(name = "idx_gram_transaction_id", columnList = "transaction_id")
+})
+@Entity
+@IdClass(TransactionNoGramId.class)
+public class TransactionNoGram implements Persistable<TransactionNoGramId> {
+    /**
+     * n-gram片段
+     */
+    @Id
+    @Column(length = 3)
+    private String gram;
+    /**
+     * 交易ID
+     */
+    @Id
+    private Long transactionId;
+
+    public TransactionNoGram(String gram, Long transactionId) {
+        this.gram = gram;
+        this.transactionId = transactionId;
+    }
+
+    @Override
+    public TransactionNoGramId getId() {
+        return new TransactionNoGramId(gram, transactionId);
+    }
+
+    /**
+     * 索引行只插入和删除，从不更新，始终按新实体persist，避免saveAll逐条merge查询
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package com.hsbc.management.common.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 交易编号n-gram索引的联合主键
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionNoGramId implements Serializable {
+    /**
+     * n-gram片段
+     */
+    private String gram;
+    /**
+     * 交易ID
+     */
+    private Long transactionId;
+}
@@ -0,0 +1,57 @@
+package com.hsbc.management.common.event;
+
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.vo.TransactionVO;
+
+import java.math.BigDecimal;
+
+/**
+ * 交易变更事件，由写路径发布，供缓存等组件在事务提交后精确失效
+ *
+ * @param type   变更类型
+ * @param id     变更的交易ID
+ * @param before 变更前的资金流向，创建时为null
+ * @param after  变更后的资金流向，删除时为null
+ */
+public record TransactionChangedEvent(ChangeType type, Long id, Flow before, Flow after) {
+
+    public enum ChangeType {
+        CREATED,
+        MODIFIED,
+        DELETED
+    }
+
+    /**
+     * 交易对账号的影响：从来源账号转出amount，转入收款账号
+     *
+     * @param sourceAccountId 来源账号ID
+     * @param targetAccountId 收款账号ID
+     * @param amount          交易金额
+     */
+    public record Flow(Long sourceAccountId, Long targetAccountId, BigDecimal amount) {
+
+        public static Flow of(Transaction transaction) {
+            return new Flow(transaction.getSourceAccountId(), transaction.getTargetAccountId(), transaction.getAmount());
+        }
+
+        public static Flow of(TransactionVO transaction) {
+            return new Flow(transaction.getSourceAccountId(), transaction.getTargetAccountId(), transaction.getAmount());
+        }
+    }
+
+    public static TransactionChangedEvent created(Transaction transaction) {
+        return new TransactionChangedEvent(ChangeType.CREATED, transaction.getId(), null, Flow.of(transaction));
+    }
+
+    public static TransactionChangedEvent created(TransactionVO transaction) {
+        return new TransactionChangedEvent(ChangeType.CREATED, transaction.getId(), null, Flow.of(transaction));
+    }
+
+    public static TransactionChangedEvent modified(Long id, Flow before, Flow after) {
+        return new TransactionChangedEvent(ChangeType.MODIFIED, id, before, after);
+    }
+
+    public static TransactionChangedEvent deleted(Long id, Flow before) {
+        return new TransactionChangedEvent(ChangeType.DELETED, id, before, null);
+    }
+}
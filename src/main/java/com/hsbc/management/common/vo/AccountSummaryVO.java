@@ -0,0 +1,40 @@
+package com.hsbc.management.common.vo;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 账号汇总视图对象
+ */
+@Data
+public class AccountSummaryVO {
+    /**
+     * 账号ID
+     */
+    private Long accountId;
+    /**
+     * 作为收款账号的交易总额
+     */
+    private BigDecimal inflow;
+    /**
+     * 作为来源账号的交易总额
+     */
+    private BigDecimal outflow;
+    /**
+     * 净额，inflow - outflow
+     */
+    private BigDecimal net;
+    /**
+     * 作为收款账号的交易笔数
+     */
+    private Long inflowCount;
+    /**
+     * 作为来源账号的交易笔数
+     */
+    private Long outflowCount;
+    /**
+     * 交易笔数，来源和收款为同一账号的交易分别计入转入和转出，此处按两笔计
+     */
+    private Long count;
+}
@@ -0,0 +1,62 @@
+package com.hsbc.management.common.vo;
+
+import lombok.Data;
+
+/**
+ * 缓存区域的当前配置和运行统计
+ */
+@Data
+public class CacheRegionVO {
+    /**
+     * 缓存名
+     */
+    private String name;
+    /**
+     * 容量上限，估算字节数
+     */
+    private Long maxBytes;
+    /**
+     * 当前占用，估算字节数
+     */
+    private Long weightedBytes;
+    /**
+     * 条目数
+     */
+    private Long size;
+    /**
+     * 写入后过期时间，ms
+     */
+    private Long expireAfterWriteMs;
+    /**
+     * 最后访问后过期时间，ms，未配置时为null
+     */
+    private Long expireAfterAccessMs;
+    /**
+     * 后台刷新间隔，ms，未配置时为null
+     */
+    private Long refreshAfterWriteMs;
+    /**
+     * 命中次数
+     */
+    private Long hitCount;
+    /**
+     * 未命中次数
+     */
+    private Long missCount;
+    /**
+     * 命中率
+     */
+    private Double hitRate;
+    /**
+     * 淘汰条目数，不含显式删除
+     */
+    private Long evictionCount;
+    /**
+     * 淘汰条目的估算字节数之和
+     */
+    private Long evictionBytes;
+    /**
+     * 平均加载耗时，ms
+     */
+    private Double averageLoadMs;
+}
@@ -0,0 +1,30 @@
+package com.hsbc.management.common.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页视图对象
+ */
+@Data
+public class CursorPageVO<T> {
+    /**
+     * 当前页数据
+     */
+    private List<T> content;
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasNext;
+
+    public CursorPageVO(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.hsbc.management.common.vo;
+
+import lombok.Data;
+
+/**
+ * 批量创建交易的单条结果视图对象
+ */
+@Data
+public class TransactionBatchItemVO {
+    /**
+     * 在请求列表中的下标
+     */
+    private int index;
+    /**
+     * 交易编号
+     */
+    private String transactionNo;
+    /**
+     * 是否创建成功
+     */
+    private boolean success;
+    /**
+     * 失败原因，成功时为null
+     */
+    private String msg;
+    /**
+     * 创建成功后的交易信息，失败时为null
+     */
+    private TransactionVO transaction;
+}
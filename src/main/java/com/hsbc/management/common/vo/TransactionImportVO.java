@@ -0,0 +1,58 @@
+package com.hsbc.management.common.vo;
+
+import lombok.Data;
+
+/**
+ * 批量导入任务视图对象
+ */
+@Data
+public class TransactionImportVO {
+    /**
+     * 导入目录下的相对路径
+     */
+    private String path;
+    /**
+     * 文件格式
+     */
+    private String format;
+    /**
+     * 任务状态，RUNNING、COMPLETED或FAILED
+     */
+    private String status;
+    /**
+     * 文件大小，字节
+     */
+    private Long fileSize;
+    /**
+     * 已提交的字节位置
+     */
+    private Long position;
+    /**
+     * 已处理的行数
+     */
+    private Long lineNo;
+    /**
+     * 导入成功的记录数
+     */
+    private Long imported;
+    /**
+     * 被拒绝的记录数
+     */
+    private Long rejected;
+    /**
+     * 进度百分比
+     */
+    private Double progress;
+    /**
+     * 失败原因
+     */
+    private String message;
+    /**
+     * 创建时间
+     */
+    private Long createTime;
+    /**
+     * 更新时间
+     */
+    private Long updateTime;
+}
@@ -1,13 +1,19 @@
 package com.hsbc.management.common.vo;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
 /**
  * 交易视图对象
+ * <p>
+ * 全参构造函数供JPQL构造表达式直接投影查询结果，参数顺序与字段声明顺序一致
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TransactionVO {
     /**
      * 主键ID
@@ -41,4 +47,8 @@ public class TransactionVO {
      * 更新时间
      */
     private Long updateTime;
+    /**
+     * 版本号，每次修改加一
+     */
+    private Long version;
 }
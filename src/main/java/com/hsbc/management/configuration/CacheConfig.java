@@ -1,28 +1,89 @@
 package com.hsbc.management.configuration;
 
+import com.hsbc.management.cache.CacheWeigher;
+import com.hsbc.management.cache.CoalescingCaffeineCache;
+import com.hsbc.management.cache.TransactionPageKey;
+import com.hsbc.management.cache.TransactionPageLoader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
-import java.util.concurrent.TimeUnit;
-
+/**
+ * 缓存拦截器排在事务拦截器（默认最低优先级）外层：命中缓存时不开启事务、不占用连接，
+ * 写方法的put/evict在事务提交后执行
+ * <p>
+ * 查询方法使用@Cacheable(sync = true)，同一key的并发未命中合并为一次加载，其余线程等待该次结果；
+ * 加载在Caffeine的锁外执行（见CoalescingCaffeineCache），虚拟线程模式下不会固定载体线程
+ * <p>
+ * 缓存按内容分为三个区域，各自按估算字节数限制容量并配置过期时间（见CacheRegionProperties）：
+ * 按ID查询的单条交易、普通翻页、带交易编号或时间范围的搜索结果
+ */
 @Configuration
-@EnableCaching
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@EnableConfigurationProperties(CacheRegionProperties.class)
 public class CacheConfig {
 
+    /**
+     * 单条交易缓存，key为交易ID
+     */
+    public static final String TRANSACTION_CACHE = "transactions";
+
+    /**
+     * 分页缓存，key为TransactionPageKey
+     */
+    public static final String PAGE_CACHE = "transactionPages";
+
+    /**
+     * 搜索结果缓存，key为TransactionPageKey
+     */
+    public static final String SEARCH_CACHE = "transactionSearches";
+
+    /**
+     * 缓存的put/evict操作延迟到事务提交之后执行，避免并发读在提交前把旧数据重新写回缓存
+     * <p>
+     * 分页区域配置了refreshAfterWrite时，写入超过该时间后再被访问，先返回当前结果，同时在后台按key重新查询替换，
+     * 热点分页在过期前持续刷新，不会因过期回到未命中；交易变更后列表版本号递增，旧key不再被访问，也不会被刷新
+     */
     @Bean
-    public CacheManager caffeineCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("transactions");
-        cacheManager.setCaffeine(caffeineCacheBuilder());
-        return cacheManager;
+    public CacheManager caffeineCacheManager(CacheRegionProperties properties,
+                                             ObjectProvider<TransactionPageLoader> transactionPageLoader) {
+        // 固定缓存名，未知的缓存名返回null而不是按默认配置动态创建无上限的缓存；下面注册的区域替换同名的默认缓存
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(TRANSACTION_CACHE, PAGE_CACHE, SEARCH_CACHE) {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CoalescingCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.registerCustomCache(TRANSACTION_CACHE, caffeineCacheBuilder(properties.region(TRANSACTION_CACHE)).build());
+        for (String name : new String[]{PAGE_CACHE, SEARCH_CACHE}) {
+            CacheRegionProperties.Region region = properties.region(name);
+            Caffeine<Object, Object> builder = caffeineCacheBuilder(region);
+            if (region.getRefreshAfterWrite() != null) {
+                builder.refreshAfterWrite(region.getRefreshAfterWrite());
+            }
+            cacheManager.registerCustomCache(name, builder.build(key -> transactionPageLoader.getObject().loadPage((TransactionPageKey) key)));
+        }
+        return new TransactionAwareCacheManagerProxy(cacheManager);
     }
 
-    private Caffeine<Object, Object> caffeineCacheBuilder() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES);
+    private Caffeine<Object, Object> caffeineCacheBuilder(CacheRegionProperties.Region region) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(region.getMaxBytes())
+                .weigher(CacheWeigher::weigh)
+                .expireAfterWrite(region.getExpireAfterWrite())
+                .recordStats();
+        if (region.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(region.getExpireAfterAccess());
+        }
+        return builder;
     }
 
 }
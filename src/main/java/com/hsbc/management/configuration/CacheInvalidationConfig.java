@@ -0,0 +1,32 @@
+package com.hsbc.management.configuration;
+
+import com.hsbc.management.cache.invalidation.InvalidationTransport;
+import com.hsbc.management.cache.invalidation.LocalInvalidationTransport;
+import com.hsbc.management.cache.invalidation.UdpInvalidationTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 缓存失效广播的内置传输方式，由transaction.cache-invalidation.transport选择：
+ * udp向peers列表逐个发送报文；local只在同一JVM内投递，用于在一台机器上启动多个应用上下文测试
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.cache-invalidation", name = "enabled", havingValue = "true")
+public class CacheInvalidationConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.cache-invalidation", name = "transport", havingValue = "udp", matchIfMissing = true)
+    public InvalidationTransport udpInvalidationTransport(@Value("${transaction.cache-invalidation.udp.bind-address:127.0.0.1}") String bindAddress,
+                                                          @Value("${transaction.cache-invalidation.udp.port:7410}") int port,
+                                                          @Value("${transaction.cache-invalidation.udp.peers:}") String peers) {
+        return new UdpInvalidationTransport(bindAddress, port, UdpInvalidationTransport.parsePeers(peers));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.cache-invalidation", name = "transport", havingValue = "local")
+    public InvalidationTransport localInvalidationTransport(@Value("${transaction.cache-invalidation.channel:transactions}") String channel) {
+        return new LocalInvalidationTransport(channel);
+    }
+}
@@ -0,0 +1,48 @@
+package com.hsbc.management.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 各缓存区域的容量和过期配置，前缀transaction.cache.regions.<缓存名>，未配置的区域使用Region的默认值
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.cache")
+public class CacheRegionProperties {
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    /**
+     * 获取区域配置
+     *
+     * @param name 缓存名
+     * @return 区域配置，未配置时为默认值
+     */
+    public Region region(String name) {
+        return regions.getOrDefault(name, new Region());
+    }
+
+    @Data
+    public static class Region {
+        /**
+         * 容量上限，按估算的条目字节数计算，超出后由Caffeine按访问频率淘汰
+         */
+        private long maxBytes = 32L * 1024 * 1024;
+        /**
+         * 写入后过期时间
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(30);
+        /**
+         * 最后一次访问后过期时间，为空时不按访问过期
+         */
+        private Duration expireAfterAccess;
+        /**
+         * 写入超过该时间后再被访问时在后台重新加载，为空时不刷新；只对分页区域生效
+         */
+        private Duration refreshAfterWrite;
+    }
+}
@@ -0,0 +1,53 @@
+package com.hsbc.management.controller;
+
+import com.hsbc.management.cache.CacheRegions;
+import com.hsbc.management.common.BaseResult;
+import com.hsbc.management.common.dto.CacheRegionDTO;
+import com.hsbc.management.common.vo.CacheRegionVO;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/caches")
+public class CacheAdminController {
+
+    @Autowired
+    private CacheRegions cacheRegions;
+
+    /**
+     * 查询各缓存区域的配置、占用和命中统计
+     *
+     * @return 缓存区域列表
+     */
+    @GetMapping
+    public BaseResult<List<CacheRegionVO>> listRegions() {
+        return BaseResult.succeed(cacheRegions.list());
+    }
+
+    /**
+     * 运行时调整缓存区域的容量和过期时间，重启后恢复配置文件中的值
+     *
+     * @param name 缓存名
+     * @param dto  需要调整的项
+     * @return 调整后的缓存区域
+     */
+    @PutMapping("/{name}")
+    public BaseResult<CacheRegionVO> resizeRegion(@PathVariable String name, @RequestBody @Valid CacheRegionDTO dto) {
+        return BaseResult.succeed(cacheRegions.resize(name, dto));
+    }
+
+    /**
+     * 清空缓存区域
+     *
+     * @param name 缓存名
+     * @return 操作结果
+     */
+    @DeleteMapping("/{name}")
+    public BaseResult clearRegion(@PathVariable String name) {
+        cacheRegions.clear(name);
+        return BaseResult.succeed();
+    }
+}
@@ -0,0 +1,46 @@
+package com.hsbc.management.controller;
+
+import com.hsbc.management.common.BaseResult;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.limit.TransactionConcurrencyLimiter;
+import com.hsbc.management.service.TransactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/admin/transactions")
+public class TransactionAdminController {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionConcurrencyLimiter transactionConcurrencyLimiter;
+
+    /**
+     * 最短保留天数，before不能晚于当前时间减去该天数
+     */
+    @Value("${transaction.purge.min-retention-days:90}")
+    private long minRetentionDays;
+
+    /**
+     * 删除创建时间早于before的历史交易，可先通过导出接口按同一时间范围归档
+     * <p>
+     * 按创建时间从早到晚分批删除，占用一个写名额但不计入限流的耗时；before晚于保留下限时拒绝，避免误传的时间清空整张表
+     *
+     * @param before 创建时间上限（不包含），ms
+     * @return 删除的记录数
+     */
+    @DeleteMapping
+    public BaseResult<Long> purgeTransactions(@RequestParam long before) {
+        long floor = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(minRetentionDays);
+        if (before > floor) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "before must be at least " + minRetentionDays + " days ago.");
+        }
+        return BaseResult.succeed(transactionConcurrencyLimiter.writeLongRunning(() -> transactionService.purgeTransactions(before)));
+    }
+}
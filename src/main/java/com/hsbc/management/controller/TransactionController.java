@@ -1,18 +1,32 @@
 package com.hsbc.management.controller;
 
+import com.hsbc.management.cache.TransactionResponseCache;
+import com.hsbc.management.common.AccountRole;
 import com.hsbc.management.common.BaseResult;
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.dto.TransactionBatchDTO;
 import com.hsbc.management.common.dto.TransactionDTO;
 import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionBatchItemVO;
 import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.limit.TransactionConcurrencyLimiter;
 import com.hsbc.management.service.TransactionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Optional;
+import java.util.List;
 
 @RestController
 @RequestMapping("/transactions")
@@ -21,32 +35,143 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionResponseCache transactionResponseCache;
+
+    @Autowired
+    private TransactionConcurrencyLimiter transactionConcurrencyLimiter;
+
     /**
      * 获取所有交易记录
      *
      * @param transactionNo 交易编号，可选参数
+     * @param startTime     创建时间下限（包含），ms，可选参数
+     * @param endTime       创建时间上限（不包含），ms，可选参数
      * @param pageable    分页参数
-     * @return 包含交易记录的分页结果
+     * @param ifNoneMatch 上次响应的ETag，之后没有任何交易变更时返回304，不查询也不序列化
+     * @return 包含交易记录的分页结果，已编码为JSON，常用分页直接返回缓存的响应体
      */
     @GetMapping
-    public BaseResult<Page<TransactionVO>> listAllTransactions(
+    public ResponseEntity<byte[]> listAllTransactions(
             @RequestParam(required = false) String transactionNo,
-            @PageableDefault(page = 1, size = 10) Pageable pageable) {
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @PageableDefault(page = 1, size = 10) Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        checkTimeRange(startTime, endTime);
+        String currentETag = transactionResponseCache.currentPageETag();
+        if (matches(ifNoneMatch, currentETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+        }
         Pageable adjustedPageable = Pageable.ofSize(pageable.getPageSize()).withPage(pageable.getPageNumber() - 1);
-        Page<TransactionVO> transactions = transactionService.listAllTransactions(transactionNo, adjustedPageable);
+        TransactionResponseCache.Response response = transactionResponseCache.getPage(transactionNo, startTime, endTime, adjustedPageable,
+                () -> transactionConcurrencyLimiter.read(() -> transactionService.listAllTransactions(transactionNo, startTime, endTime, adjustedPageable)));
+        return json(response, ifNoneMatch);
+    }
+
+    /**
+     * 按游标滚动获取交易记录，不统计总数，翻页深度不影响查询耗时
+     *
+     * @param transactionNo 交易编号，可选参数
+     * @param startTime     创建时间下限（包含），ms，可选参数
+     * @param endTime       创建时间上限（不包含），ms，可选参数
+     * @param cursor        上一页返回的nextCursor，首次请求不传
+     * @param size          每页记录数
+     * @return 包含当前页数据和下一页游标的结果
+     */
+    @GetMapping("/scroll")
+    public BaseResult<CursorPageVO<TransactionVO>> scrollTransactions(
+            @RequestParam(required = false) String transactionNo,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        checkTimeRange(startTime, endTime);
+        CursorPageVO<TransactionVO> transactions = transactionConcurrencyLimiter.read(
+                () -> transactionService.scrollTransactions(transactionNo, startTime, endTime, cursor, size));
+        return BaseResult.succeed(transactions);
+    }
+
+    /**
+     * 按账号获取交易记录，按创建时间倒序游标分页
+     *
+     * @param accountId 账号ID
+     * @param role      账号角色，source、target或any
+     * @param cursor    上一页返回的nextCursor，首次请求不传
+     * @param size      每页记录数
+     * @return 包含当前页数据和下一页游标的结果
+     */
+    @GetMapping("/accounts/{accountId}")
+    public BaseResult<CursorPageVO<TransactionVO>> listAccountTransactions(
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "any") String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        AccountRole accountRole = AccountRole.of(role);
+        CursorPageVO<TransactionVO> transactions = transactionConcurrencyLimiter.read(
+                () -> transactionService.listAccountTransactions(accountId, accountRole, cursor, size));
         return BaseResult.succeed(transactions);
     }
 
+    /**
+     * 获取账号的转入、转出金额和笔数汇总
+     * <p>
+     * 汇总在各节点内存中维护，多实例部署时只反映本节点的写入
+     *
+     * @param accountId 账号ID
+     * @return 账号汇总
+     */
+    @GetMapping("/accounts/{accountId}/summary")
+    public BaseResult<AccountSummaryVO> getAccountSummary(@PathVariable Long accountId) {
+        return BaseResult.succeed(transactionService.getAccountSummary(accountId));
+    }
+
+    /**
+     * 从全部交易重建账号汇总，重建期间写入在提交前等待
+     *
+     * @return 操作结果
+     */
+    @PostMapping("/accounts/summaries/rebuild")
+    public BaseResult rebuildAccountSummaries() {
+        transactionService.rebuildAccountSummaries();
+        return BaseResult.succeed();
+    }
+
+    /**
+     * 流式导出交易记录，按主键顺序边查边写，不分页、不经过缓存
+     *
+     * @param format    导出格式，ndjson或csv
+     * @param startTime 创建时间下限（包含），ms，可选参数
+     * @param endTime   创建时间上限（不包含），ms，可选参数
+     * @return 以附件形式返回的导出内容
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        checkTimeRange(startTime, endTime);
+        StreamingResponseBody body = outputStream -> transactionService.exportTransactions(startTime, endTime, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     /**
      * 根据交易ID获取交易信息
      *
-     * @param id 交易ID
-     * @return 包含交易信息的BaseResult对象
+     * @param id          交易ID
+     * @param ifNoneMatch 上次响应的ETag，与交易当前版本一致时返回304；热点交易命中响应缓存时不查询也不序列化
+     * @return 包含交易信息的BaseResult对象，已编码为JSON，热点交易直接返回缓存的响应体
      */
     @GetMapping("/{id}")
-    public BaseResult<TransactionVO> getTransactionById(@PathVariable Long id) {
-        Optional<TransactionVO> transactionOptional = transactionService.getTransactionById(id);
-        return BaseResult.succeed(transactionOptional.orElse(null));
+    public ResponseEntity<byte[]> getTransactionById(@PathVariable Long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        TransactionResponseCache.Response response = transactionResponseCache.getTransaction(id,
+                () -> transactionConcurrencyLimiter.read(() -> transactionService.getTransactionById(id)));
+        return json(response, ifNoneMatch);
     }
 
     /**
@@ -57,10 +182,22 @@ public class TransactionController {
      */
     @PostMapping
     public BaseResult<TransactionVO> createTransaction(@RequestBody @Valid TransactionDTO dto) {
-        TransactionVO vo = transactionService.createTransaction(dto);
+        TransactionVO vo = transactionConcurrencyLimiter.write(() -> transactionService.createTransaction(dto));
         return BaseResult.succeed(vo);
     }
 
+    /**
+     * 批量创建交易
+     *
+     * @param dto 批量交易信息DTO对象
+     * @return 与请求顺序一致的逐条创建结果
+     */
+    @PostMapping("/batch")
+    public BaseResult<List<TransactionBatchItemVO>> batchCreateTransactions(@RequestBody @Valid TransactionBatchDTO dto) {
+        List<TransactionBatchItemVO> results = transactionConcurrencyLimiter.write(() -> transactionService.batchCreateTransactions(dto.getTransactions()));
+        return BaseResult.succeed(results);
+    }
+
     /**
      * 删除交易记录
      *
@@ -69,20 +206,72 @@ public class TransactionController {
      */
     @DeleteMapping("/{id}")
     public BaseResult deleteTransaction(@PathVariable Long id) {
-        transactionService.deleteTransaction(id);
+        transactionConcurrencyLimiter.write(() -> transactionService.deleteTransaction(id));
         return BaseResult.succeed();
     }
 
     /**
      * 修改交易记录
      *
-     * @param id  交易记录的ID
-     * @param dto 包含修改信息的DTO对象
-     * @return 包含修改后的交易信息的BaseResult对象
+     * @param id      交易记录的ID
+     * @param dto     包含修改信息的DTO对象
+     * @param ifMatch 期望的当前版本，即查询时返回的ETag，与当前版本不一致时返回412
+     * @return 包含修改后的交易信息的BaseResult对象，ETag为修改后的版本
      */
     @PutMapping("/{id}")
-    public BaseResult<TransactionVO> modifyTransaction(@PathVariable Long id, @RequestBody @Valid TransactionModifyDTO dto) {
-        TransactionVO vo = transactionService.modifyTransaction(id, dto);
-        return BaseResult.succeed(vo);
+    public ResponseEntity<BaseResult<TransactionVO>> modifyTransaction(@PathVariable Long id, @RequestBody @Valid TransactionModifyDTO dto,
+                                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            dto.setVersion(parseVersion(ifMatch));
+        }
+        TransactionVO vo = transactionConcurrencyLimiter.write(() -> transactionService.modifyTransaction(id, dto));
+        return ResponseEntity.ok().eTag(TransactionResponseCache.versionETag(vo.getVersion())).body(BaseResult.succeed(vo));
+    }
+
+    private static ResponseEntity<byte[]> json(TransactionResponseCache.Response response, String ifNoneMatch) {
+        if (matches(ifNoneMatch, response.eTag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.eTag()).build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(response.eTag()).body(response.body());
+    }
+
+    /**
+     * If-None-Match中的任一ETag与eTag相同时返回true，弱比较，忽略W/前缀
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag) || eTag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从If-Match中解析版本号，格式与单条交易的ETag一致；无法解析时视为不匹配
+     */
+    private static Long parseVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new BizException(BizErrorEnum.VERSION_CONFLICT, "If-Match " + ifMatch + " does not match any version.");
+        }
+    }
+
+    private static void checkTimeRange(Long startTime, Long endTime) {
+        if (startTime != null && endTime != null && startTime >= endTime) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "startTime must be less than endTime.");
+        }
     }
 }
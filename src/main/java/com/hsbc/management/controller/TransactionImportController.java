@@ -0,0 +1,43 @@
+package com.hsbc.management.controller;
+
+import com.hsbc.management.common.BaseResult;
+import com.hsbc.management.common.dto.TransactionImportDTO;
+import com.hsbc.management.common.vo.TransactionImportVO;
+import com.hsbc.management.service.bulkimport.TransactionImporter;
+import com.hsbc.management.service.memory.MemoryTransactionService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Profile("!" + MemoryTransactionService.PROFILE)
+@RequestMapping("/admin/transactions/imports")
+public class TransactionImportController {
+
+    @Autowired
+    private TransactionImporter transactionImporter;
+
+    /**
+     * 开始导入导入目录下的文件，之前中断过的导入从断点继续，已完成的导入直接返回结果
+     *
+     * @param dto 导入文件路径和格式
+     * @return 导入任务
+     */
+    @PostMapping
+    public BaseResult<TransactionImportVO> startImport(@RequestBody @Valid TransactionImportDTO dto) {
+        TransactionImportVO vo = transactionImporter.start(dto.getPath(), dto.getFormat());
+        return BaseResult.succeed(vo);
+    }
+
+    /**
+     * 查询导入进度
+     *
+     * @param path 导入目录下的相对路径
+     * @return 导入任务，未导入过时data为null
+     */
+    @GetMapping
+    public BaseResult<TransactionImportVO> getImport(@RequestParam String path) {
+        return BaseResult.succeed(transactionImporter.getJob(path).orElse(null));
+    }
+}
@@ -0,0 +1,19 @@
+package com.hsbc.management.dao;
+
+import com.hsbc.management.common.entity.TransactionImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TransactionImportJobRepository extends JpaRepository<TransactionImportJob, String> {
+
+    /**
+     * 按状态查询导入任务
+     *
+     * @param status 任务状态
+     * @return 处于该状态的导入任务
+     */
+    List<TransactionImportJob> findByStatus(TransactionImportJob.Status status);
+}
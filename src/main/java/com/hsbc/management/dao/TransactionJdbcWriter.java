@@ -0,0 +1,100 @@
+package com.hsbc.management.dao;
+
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.service.index.TransactionNoGramIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 绕过JPA的交易批量写入，供写入缓冲、批量导入等大批量写入场景使用
+ * <p>
+ * ID从transaction_seq按段分配，与Hibernate的pooled-lo分配互不重叠；
+ * 插入交易的同时写入trigram索引行，调用方负责开启事务。
+ */
+@Repository
+public class TransactionJdbcWriter {
+
+    /**
+     * 与Transaction实体的序列allocationSize一致，按pooled-lo语义独占[v, v+ID_BLOCK_SIZE)
+     */
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String INSERT_TRANSACTION = "insert into transaction_management (id, transaction_no, source_account_id,"
+            + " target_account_id, amount, description, create_time, update_time) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_GRAM = "insert into transaction_no_gram (gram, transaction_id) values (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReentrantLock idLock = new ReentrantLock();
+
+    private long nextId;
+
+    private long idBlockEnd;
+
+    /**
+     * 分配一个交易ID
+     *
+     * @return 交易ID
+     */
+    public long allocateId() {
+        idLock.lock();
+        try {
+            if (nextId >= idBlockEnd) {
+                nextId = jdbcTemplate.queryForObject("select next value for transaction_seq", Long.class);
+                idBlockEnd = nextId + ID_BLOCK_SIZE;
+            }
+            return nextId++;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    /**
+     * 批量插入已分配ID的交易及其trigram索引，需在事务内调用
+     *
+     * @param transactions 已分配ID的交易
+     */
+    public void insert(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions, transactions.size(), (ps, transaction) -> {
+            ps.setLong(1, transaction.getId());
+            ps.setString(2, transaction.getTransactionNo());
+            ps.setObject(3, transaction.getSourceAccountId());
+            ps.setObject(4, transaction.getTargetAccountId());
+            ps.setBigDecimal(5, transaction.getAmount());
+            ps.setString(6, transaction.getDescription());
+            ps.setObject(7, transaction.getCreateTime());
+            ps.setObject(8, transaction.getUpdateTime());
+        });
+        List<Object[]> grams = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            for (String gram : TransactionNoGramIndex.grams(transaction.getTransactionNo())) {
+                grams.add(new Object[]{gram, transaction.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_GRAM, grams);
+    }
+
+    /**
+     * 序列落后于表中最大ID时推进序列，用于以既有ID重放数据之后
+     */
+    public void advanceSequencePastMaxId() {
+        idLock.lock();
+        try {
+            Long maxId = jdbcTemplate.queryForObject("select max(id) from transaction_management", Long.class);
+            Long sequenceValue = jdbcTemplate.queryForObject("select next value for transaction_seq", Long.class);
+            if (maxId != null && sequenceValue <= maxId) {
+                jdbcTemplate.execute("alter sequence transaction_seq restart with " + (maxId + 1));
+            }
+            idBlockEnd = nextId;
+        } finally {
+            idLock.unlock();
+        }
+    }
+}
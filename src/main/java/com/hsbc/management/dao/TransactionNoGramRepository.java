@@ -0,0 +1,35 @@
+package com.hsbc.management.dao;
+
+import com.hsbc.management.common.entity.TransactionNoGram;
+import com.hsbc.management.common.entity.TransactionNoGramId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface TransactionNoGramRepository extends JpaRepository<TransactionNoGram, TransactionNoGramId> {
+
+    /**
+     * 删除指定交易的全部n-gram索引
+     *
+     * @param transactionId 交易ID
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("delete from TransactionNoGram g where g.transactionId = :transactionId")
+    int deleteByTransactionId(@Param("transactionId") Long transactionId);
+
+    /**
+     * 批量删除交易的n-gram索引
+     *
+     * @param transactionIds 交易ID集合
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("delete from TransactionNoGram g where g.transactionId in :transactionIds")
+    int deleteByTransactionIdIn(@Param("transactionIds") Collection<Long> transactionIds);
+}
@@ -1,25 +1,98 @@
 package com.hsbc.management.dao;
 
 import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.vo.TransactionVO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionWriteRepository {
+
+    /**
+     * 同时包含全部搜索trigram的候选交易ID
+     */
+    String GRAM_CANDIDATES = "select g.transactionId from TransactionNoGram g where g.gram in :grams"
+            + " group by g.transactionId having count(g.gram) = :gramCount";
+
+    /**
+     * 直接投影为TransactionVO，不创建实体、不进入持久化上下文
+     */
+    String VO_SELECT = "select new com.hsbc.management.common.vo.TransactionVO(t.id, t.transactionNo, t.sourceAccountId,"
+            + " t.targetAccountId, t.amount, t.description, t.createTime, t.updateTime, t.version) from Transaction t";
+
+    /**
+     * 创建时间在[startTime, endTime)内的条件
+     */
+    String CREATE_TIME_WINDOW = "t.createTime >= :startTime and t.createTime < :endTime";
+
+    /**
+     * 交易编号为空串时不筛选，否则要求包含该子串
+     */
+    String TRANSACTION_NO_FILTER = "(:transactionNo = '' or locate(:transactionNo, t.transactionNo) > 0)";
 
     /**
-     * 根据交易编号搜索交易记录的分页列表
+     * 根据交易编号搜索交易记录的分页列表，结果直接投影为视图对象
      *
      * @param transactionNo 交易编号，用于搜索交易记录
      * @param pageable      分页参数
      * @return 包含匹配交易编号的交易记录的分页列表
      */
-    Page<Transaction> findByTransactionNoContaining(String transactionNo, Pageable pageable);
+    @Query(value = VO_SELECT + " where locate(:transactionNo, t.transactionNo) > 0",
+            countQuery = "select count(t) from Transaction t where locate(:transactionNo, t.transactionNo) > 0")
+    Page<TransactionVO> findByTransactionNoContaining(@Param("transactionNo") String transactionNo, Pageable pageable);
+
+    /**
+     * 通过交易编号trigram索引搜索交易记录的分页列表
+     * <p>
+     * 先在索引表中取同时包含全部gram的交易ID，再用locate校验子串顺序，只访问候选行，结果直接投影为视图对象。
+     *
+     * @param transactionNo 交易编号，用于搜索交易记录
+     * @param grams         搜索词拆分出的去重trigram
+     * @param gramCount     grams的个数
+     * @param pageable      分页参数
+     * @return 包含匹配交易编号的交易记录的分页列表
+     */
+    @Query(value = VO_SELECT + " where t.id in (" + GRAM_CANDIDATES + ") and locate(:transactionNo, t.transactionNo) > 0",
+            countQuery = "select count(t) from Transaction t where t.id in (" + GRAM_CANDIDATES + ") and locate(:transactionNo, t.transactionNo) > 0")
+    Page<TransactionVO> searchByTransactionNoGrams(@Param("transactionNo") String transactionNo,
+                                                 @Param("grams") Collection<String> grams,
+                                                 @Param("gramCount") long gramCount,
+                                                 Pageable pageable);
+
+    /**
+     * 通过交易编号trigram索引按主键游标搜索交易记录，不执行count查询
+     *
+     * @param transactionNo 交易编号，用于搜索交易记录
+     * @param grams         搜索词拆分出的去重trigram
+     * @param gramCount     grams的个数
+     * @param id            上一页最后一条记录的ID
+     * @param limit         最多返回的记录数
+     * @return 主键大于id且交易编号匹配的交易记录，按主键升序
+     */
+    @Query("select t from Transaction t where t.id in (" + GRAM_CANDIDATES + ") and locate(:transactionNo, t.transactionNo) > 0"
+            + " and t.id > :id order by t.id asc")
+    List<Transaction> searchByTransactionNoGramsAfterId(@Param("transactionNo") String transactionNo,
+                                                         @Param("grams") Collection<String> grams,
+                                                         @Param("gramCount") long gramCount,
+                                                         @Param("id") Long id,
+                                                         Limit limit);
 
     /**
      * 获取所有交易记录的分页列表
@@ -29,6 +102,27 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
      */
     Page<Transaction> findAll(Pageable pageable);
 
+    /**
+     * 获取所有交易记录的分页列表，结果直接投影为视图对象
+     *
+     * @param pageable 分页参数
+     * @return 包含所有交易记录的分页列表
+     */
+    @Query(value = VO_SELECT, countQuery = "select count(t) from Transaction t")
+    Page<TransactionVO> findAllVO(Pageable pageable);
+
+    /**
+     * 根据ID查询交易，结果直接投影为视图对象
+     * <p>
+     * 在只读事务中执行，Hibernate会话不做flush和脏检查
+     *
+     * @param id 交易ID
+     * @return 交易视图对象，不存在时返回Optional.empty()
+     */
+    @Transactional(readOnly = true)
+    @Query(VO_SELECT + " where t.id = :id")
+    Optional<TransactionVO> findVOById(@Param("id") Long id);
+
     /**
      * 根据交易编号查找交易记录
      *
@@ -36,4 +130,192 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
      * @return 包含匹配交易编号的交易记录的Optional对象，如果不存在则返回Optional.empty()
      */
     Optional<Transaction> findByTransactionNo(String transactionNo);
+
+    /**
+     * 批量查询已存在的交易编号，一次查询完成整批的重复校验
+     *
+     * @param transactionNos 待校验的交易编号集合
+     * @return 其中已存在的交易编号
+     */
+    @Query("select t.transactionNo from Transaction t where t.transactionNo in :transactionNos")
+    List<String> findExistingTransactionNos(@Param("transactionNos") Collection<String> transactionNos);
+
+    /**
+     * 按主键游标查询交易记录，不执行count查询
+     *
+     * @param id    上一页最后一条记录的ID
+     * @param limit 最多返回的记录数
+     * @return 主键大于id的交易记录，按主键升序
+     */
+    List<Transaction> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * 按主键游标只查询交易ID和交易编号，用于回填内存索引，不加载完整实体
+     *
+     * @param id    上一批最后一条记录的ID
+     * @param limit 最多返回的记录数
+     * @return [id, transactionNo]数组，按主键升序
+     */
+    @Query("select t.id, t.transactionNo from Transaction t where t.id > :id order by t.id asc")
+    List<Object[]> findIdAndTransactionNoAfterId(@Param("id") Long id, Limit limit);
+
+    /**
+     * 查询最大的交易ID
+     *
+     * @return 最大交易ID，表为空时返回null
+     */
+    @Query("select max(t.id) from Transaction t")
+    Long findMaxId();
+
+    /**
+     * 统计主键大于id的交易数，按主键范围扫描
+     *
+     * @param id 交易ID
+     * @return 交易数
+     */
+    long countByIdGreaterThan(Long id);
+
+    /**
+     * 按主键游标搜索交易编号匹配的交易记录，不执行count查询
+     *
+     * @param transactionNo 交易编号，用于搜索交易记录
+     * @param id            上一页最后一条记录的ID
+     * @param limit         最多返回的记录数
+     * @return 主键大于id且交易编号匹配的交易记录，按主键升序
+     */
+    List<Transaction> findByTransactionNoContainingAndIdGreaterThanOrderByIdAsc(String transactionNo, Long id, Limit limit);
+
+    /**
+     * 按(创建时间, ID)倒序游标查询来源账号的交易，通过idx_source_account_time索引按序读取，不排序也不扫描其他账号
+     * <p>
+     * createTime不大于游标的条件可以作为索引范围的上界，再排除与游标同一毫秒、ID不小于游标的记录；
+     * 排序以账号列开头与索引列完全一致，H2才会按索引顺序读取并在取满limit后停止，否则会读出账号的全部记录再排序
+     *
+     * @param accountId  来源账号ID
+     * @param createTime 上一页最后一条记录的创建时间
+     * @param id         上一页最后一条记录的ID
+     * @param limit      最多返回的记录数
+     * @return 排在游标之后的交易记录，按创建时间、ID倒序
+     */
+    @Query("select t from Transaction t where t.sourceAccountId = :accountId and t.createTime <= :createTime"
+            + " and (t.createTime < :createTime or t.id < :id) order by t.sourceAccountId, t.createTime desc, t.id desc")
+    List<Transaction> findBySourceAccountBefore(@Param("accountId") Long accountId,
+                                                @Param("createTime") Long createTime,
+                                                @Param("id") Long id,
+                                                Limit limit);
+
+    /**
+     * 按(创建时间, ID)倒序游标查询收款账号的交易，通过idx_target_account_time索引按序读取
+     *
+     * @param accountId  收款账号ID
+     * @param createTime 上一页最后一条记录的创建时间
+     * @param id         上一页最后一条记录的ID
+     * @param limit      最多返回的记录数
+     * @return 排在游标之后的交易记录，按创建时间、ID倒序
+     */
+    @Query("select t from Transaction t where t.targetAccountId = :accountId and t.createTime <= :createTime"
+            + " and (t.createTime < :createTime or t.id < :id) order by t.targetAccountId, t.createTime desc, t.id desc")
+    List<Transaction> findByTargetAccountBefore(@Param("accountId") Long accountId,
+                                                @Param("createTime") Long createTime,
+                                                @Param("id") Long id,
+                                                Limit limit);
+
+    /**
+     * 按来源账号汇总交易金额和笔数，用于重建账号汇总
+     *
+     * @return [来源账号ID, 金额合计, 笔数]数组
+     */
+    @Query("select t.sourceAccountId, sum(t.amount), count(t) from Transaction t group by t.sourceAccountId")
+    List<Object[]> sumBySourceAccount();
+
+    /**
+     * 按收款账号汇总交易金额和笔数，用于重建账号汇总
+     *
+     * @return [收款账号ID, 金额合计, 笔数]数组
+     */
+    @Query("select t.targetAccountId, sum(t.amount), count(t) from Transaction t group by t.targetAccountId")
+    List<Object[]> sumByTargetAccount();
+
+    /**
+     * 分页获取创建时间在[startTime, endTime)内的交易，按创建时间、ID升序
+     * <p>
+     * 通过idx_create_time只读取窗口内的索引范围，排序与索引列一致，翻页时不排序；
+     * count同样只统计窗口内的索引项，耗时与窗口大小成正比，与表大小无关。交易编号在窗口内逐行匹配，不使用n-gram索引；
+     * 结果直接投影为视图对象
+     *
+     * @param transactionNo 交易编号，空串表示不筛选
+     * @param startTime     创建时间下限（包含），ms
+     * @param endTime       创建时间上限（不包含），ms
+     * @param pageable      分页参数
+     * @return 窗口内交易记录的分页列表
+     */
+    @Query(value = VO_SELECT + " where " + CREATE_TIME_WINDOW + " and " + TRANSACTION_NO_FILTER
+            + " order by t.createTime asc, t.id asc",
+            countQuery = "select count(t) from Transaction t where " + CREATE_TIME_WINDOW + " and " + TRANSACTION_NO_FILTER)
+    Page<TransactionVO> findByCreateTimeWindow(@Param("transactionNo") String transactionNo,
+                                             @Param("startTime") Long startTime,
+                                             @Param("endTime") Long endTime,
+                                             Pageable pageable);
+
+    /**
+     * 按(创建时间, ID)升序游标获取创建时间在[startTime, endTime)内的交易，不执行count查询
+     * <p>
+     * 翻页时startTime取游标的创建时间，作为idx_create_time范围的下界，再排除与游标同一毫秒、ID不大于游标的记录
+     *
+     * @param transactionNo 交易编号，空串表示不筛选
+     * @param startTime     创建时间下限（包含），ms
+     * @param endTime       创建时间上限（不包含），ms
+     * @param id            创建时间等于startTime时要求ID大于该值
+     * @param limit         最多返回的记录数
+     * @return 排在游标之后的交易记录，按创建时间、ID升序
+     */
+    @Query("select t from Transaction t where " + CREATE_TIME_WINDOW + " and (t.createTime > :startTime or t.id > :id)"
+            + " and " + TRANSACTION_NO_FILTER + " order by t.createTime asc, t.id asc")
+    List<Transaction> findByCreateTimeWindowAfter(@Param("transactionNo") String transactionNo,
+                                                  @Param("startTime") Long startTime,
+                                                  @Param("endTime") Long endTime,
+                                                  @Param("id") Long id,
+                                                  Limit limit);
+
+    /**
+     * 按创建时间顺序取最早的一批创建时间早于before的交易，用于按时间清理历史数据
+     *
+     * @param before 创建时间上限（不包含），ms
+     * @param limit  最多返回的记录数
+     * @return 交易记录，按创建时间、ID升序
+     */
+    @Query("select t from Transaction t where t.createTime < :before order by t.createTime asc, t.id asc")
+    List<Transaction> findOldestBefore(@Param("before") Long before, Limit limit);
+
+    /**
+     * 以只进游标按主键顺序读取全部交易，用于不限时间范围的导出
+     * <p>
+     * 需在只读事务内消费并关闭Stream，调用方应逐条detach已处理的实体，避免持久化上下文随结果集增长
+     *
+     * @return 交易记录流
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select t from Transaction t order by t.id asc")
+    Stream<Transaction> streamAll();
+
+    /**
+     * 以只进游标按创建时间、ID顺序读取创建时间在[startTime, endTime)内的交易，用于导出
+     * <p>
+     * 通过idx_create_time只扫描窗口内的索引范围，按索引顺序输出，不排序；需在只读事务内消费并关闭Stream
+     *
+     * @param startTime 创建时间下限（包含），ms
+     * @param endTime   创建时间上限（不包含），ms
+     * @return 交易记录流
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select t from Transaction t where " + CREATE_TIME_WINDOW + " order by t.createTime asc, t.id asc")
+    Stream<Transaction> streamByCreateTime(@Param("startTime") Long startTime, @Param("endTime") Long endTime);
 }
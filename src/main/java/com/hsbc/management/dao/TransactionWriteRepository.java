@@ -0,0 +1,39 @@
+package com.hsbc.management.dao;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 修改、删除交易并带回变更前的行，供TransactionRepository组合使用
+ * <p>
+ * H2上各是一条语句，通过OLD TABLE数据变更增量表取回变更前的行；其他数据库先加行锁查询、再按ID写入，见TransactionWriteRepositoryImpl。
+ * 两种方式执行后都会清空持久化上下文，同一事务中此前加载的实体不会保留过期的状态
+ */
+public interface TransactionWriteRepository {
+
+    /**
+     * 删除交易并返回被删除行的资金流向；交易不存在时不删除任何行，返回空列表
+     *
+     * @param id 交易ID
+     * @return [sourceAccountId, targetAccountId, amount]数组，最多一行
+     */
+    List<Object[]> deleteReturningFlow(Long id);
+
+    /**
+     * 按版本条件修改交易并返回修改前的行
+     * <p>
+     * version为null时不比较版本；更新时版本号加一。调用方用修改前的行和修改的内容组装修改后的交易，
+     * 不需要再查询；交易不存在或版本不一致时不更新任何行，返回空列表
+     *
+     * @param id              交易ID
+     * @param sourceAccountId 新的来源账号ID
+     * @param targetAccountId 新的收款账号ID
+     * @param amount          新的金额
+     * @param description     新的描述
+     * @param updateTime      更新时间，ms
+     * @param version         期望的版本号，null表示不比较
+     * @return [transactionNo, sourceAccountId, targetAccountId, amount, createTime, version]数组，最多一行
+     */
+    List<Object[]> updateReturningPrevious(Long id, Long sourceAccountId, Long targetAccountId, BigDecimal amount,
+                                           String description, Long updateTime, Long version);
+}
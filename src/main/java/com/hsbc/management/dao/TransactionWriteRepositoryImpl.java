@@ -0,0 +1,122 @@
+package com.hsbc.management.dao;
+
+import com.hsbc.management.common.entity.Transaction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * TransactionWriteRepository的实现，按Hibernate方言选择写入方式
+ * <p>
+ * H2：原生SQL从OLD TABLE (DELETE/UPDATE ...)中查询，存在判断、版本比较和写入在同一条语句中完成。
+ * 其他数据库：先以悲观写锁查询变更前的行，存在且版本一致时再执行按ID的批量DELETE/UPDATE，共两条语句，
+ * 行锁保证两条语句之间不会被并发修改。批量语句绕过持久化上下文，执行后只把该ID已加载的实体从上下文中分离，
+ * 同一事务中其他已加载的实体和未提交的修改不受影响
+ */
+public class TransactionWriteRepositoryImpl implements TransactionWriteRepository {
+
+    private static final String H2_DELETE_RETURNING = "select source_account_id, target_account_id, amount from old table ("
+            + "delete from transaction_management where id = :id)";
+
+    private static final String H2_UPDATE_RETURNING = "select transaction_no, source_account_id, target_account_id, amount, create_time, version"
+            + " from old table (update transaction_management set source_account_id = :sourceAccountId, target_account_id = :targetAccountId,"
+            + " amount = :amount, description = :description, update_time = :updateTime, version = version + 1"
+            + " where id = :id and version = coalesce(:version, version))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 数据库是否支持OLD TABLE数据变更增量表
+     */
+    private boolean dataChangeDeltaTable;
+
+    @PostConstruct
+    public void init() {
+        dataChangeDeltaTable = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof H2Dialect;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> deleteReturningFlow(Long id) {
+        List<Object[]> rows;
+        if (dataChangeDeltaTable) {
+            rows = entityManager.createNativeQuery(H2_DELETE_RETURNING).setParameter("id", id).getResultList();
+        } else {
+            rows = entityManager.createQuery("select t.sourceAccountId, t.targetAccountId, t.amount from Transaction t where t.id = :id",
+                            Object[].class)
+                    .setParameter("id", id)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            if (!rows.isEmpty()) {
+                entityManager.createQuery("delete from Transaction t where t.id = :id").setParameter("id", id).executeUpdate();
+            }
+        }
+        detach(id);
+        return rows;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> updateReturningPrevious(Long id, Long sourceAccountId, Long targetAccountId, BigDecimal amount,
+                                                  String description, Long updateTime, Long version) {
+        List<Object[]> rows;
+        if (dataChangeDeltaTable) {
+            rows = entityManager.createNativeQuery(H2_UPDATE_RETURNING)
+                    .setParameter("id", id)
+                    .setParameter("sourceAccountId", sourceAccountId)
+                    .setParameter("targetAccountId", targetAccountId)
+                    .setParameter("amount", amount)
+                    .setParameter("description", description)
+                    .setParameter("updateTime", updateTime)
+                    .setParameter("version", version)
+                    .getResultList();
+        } else {
+            rows = entityManager.createQuery("select t.transactionNo, t.sourceAccountId, t.targetAccountId, t.amount, t.createTime, t.version"
+                            + " from Transaction t where t.id = :id", Object[].class)
+                    .setParameter("id", id)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            if (!rows.isEmpty() && (version == null || version.equals(rows.get(0)[5]))) {
+                entityManager.createQuery("update Transaction t set t.sourceAccountId = :sourceAccountId, t.targetAccountId = :targetAccountId,"
+                                + " t.amount = :amount, t.description = :description, t.updateTime = :updateTime, t.version = t.version + 1"
+                                + " where t.id = :id")
+                        .setParameter("id", id)
+                        .setParameter("sourceAccountId", sourceAccountId)
+                        .setParameter("targetAccountId", targetAccountId)
+                        .setParameter("amount", amount)
+                        .setParameter("description", description)
+                        .setParameter("updateTime", updateTime)
+                        .executeUpdate();
+            } else {
+                rows = List.of();
+            }
+        }
+        detach(id);
+        return rows;
+    }
+
+    /**
+     * 从持久化上下文中分离该ID已加载的实体，只查找上下文，不查询数据库
+     *
+     * @param id 交易ID
+     */
+    private void detach(Long id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Transaction.class);
+        Object entity = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+        if (entity != null) {
+            entityManager.detach(entity);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.hsbc.management.exception;
+
+/**
+ * 业务异常原因，用于按原因统计业务异常
+ */
+public enum BizErrorEnum {
+
+    TRANSACTION_DUPLICATED,
+    TRANSACTION_NOT_FOUND,
+    TRANSACTION_REJECTED,
+    INVALID_PARAM,
+    VERSION_CONFLICT,
+    OVERLOADED,
+    NOT_READY,
+    OTHER
+}
@@ -2,7 +2,18 @@ package com.hsbc.management.exception;
 
 public class BizException extends RuntimeException {
 
+    private final BizErrorEnum error;
+
     public BizException(String message) {
+        this(BizErrorEnum.OTHER, message);
+    }
+
+    public BizException(BizErrorEnum error, String message) {
         super(message);
+        this.error = error;
+    }
+
+    public BizErrorEnum getError() {
+        return error;
     }
 }
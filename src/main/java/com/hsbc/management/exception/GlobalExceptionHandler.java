@@ -2,7 +2,13 @@ package com.hsbc.management.exception;
 
 import com.hsbc.management.common.BaseResult;
 import com.hsbc.management.common.ResultCodeEnum;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,17 +22,42 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
-     * 处理业务异常
+     * 处理业务异常，并按异常原因计数；版本号不一致时返回412，便于带If-Match的客户端重新获取后重试；
+     * 并发超限或启动时的数据尚未就绪时返回503和Retry-After，不逐条打印日志，避免过载时再增加日志开销
      *
      * @param e 抛出的业务异常
      * @return 包含错误信息的BaseResult对象
      */
     @ExceptionHandler(value = {BizException.class})
-    public BaseResult bizError(Exception e) {
+    public ResponseEntity<BaseResult> bizError(BizException e) {
+        meterRegistry.counter("transaction.biz.errors", "reason", e.getError().name()).increment();
         String msg = e.getMessage();
+        if (e.getError() == BizErrorEnum.OVERLOADED) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(BaseResult.fail(ResultCodeEnum.OVERLOADED.getCode(), msg));
+        }
+        if (e.getError() == BizErrorEnum.NOT_READY) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(BaseResult.fail(ResultCodeEnum.NOT_READY.getCode(), msg));
+        }
         log.error("biz error = {}", msg);
-        return BaseResult.fail(ResultCodeEnum.BIZ_ERROR.getCode(), msg);
+        HttpStatus status = e.getError() == BizErrorEnum.VERSION_CONFLICT ? HttpStatus.PRECONDITION_FAILED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(BaseResult.fail(ResultCodeEnum.BIZ_ERROR.getCode(), msg));
+    }
+
+    /**
+     * 处理乐观锁冲突：读取之后、提交之前交易被并发修改或删除
+     *
+     * @param e 提交时抛出的乐观锁异常
+     * @return 包含错误信息的BaseResult对象
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<BaseResult> optimisticLockingFailure(OptimisticLockingFailureException e) {
+        return bizError(new BizException(BizErrorEnum.VERSION_CONFLICT, "Transaction has been modified concurrently, please retry."));
     }
 
     /**
@@ -0,0 +1,138 @@
+package com.hsbc.management.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按延迟梯度自适应调整的并发上限
+ * <p>
+ * 每个请求结束后记录耗时，维护两个指数加权均值：短期均值反映最近约10个请求，长期均值反映最近约500个请求，作为没有拥塞时的基线。
+ * 梯度gradient = clamp(tolerance * 长期均值 / 短期均值, 0.5, 1)，新上限为limit * gradient + sqrt(limit)：
+ * 延迟不超过基线的tolerance倍时梯度为1，上限逐步增加且增幅随上限变大而放缓；延迟升高时梯度小于1，上限按比例下降。
+ * 新旧上限按smoothing加权平均后限制在[minLimit, maxLimit]内。
+ * <p>
+ * 在途请求不足上限一半时不调整，低负载下的延迟不能说明上限是否合适。
+ * 短期均值超过基线的tolerance倍时视为拥塞，拥塞期间基线不更新，否则排队等待的耗时会逐渐被当作基线，上限随之回升；
+ * 上限已降到minLimit仍然拥塞时，说明请求本身变慢而不是排队，此时基线照常更新。短期均值低于基线的一半时基线加速回落。
+ */
+public class AdaptiveLimit {
+
+    private static final double SHORT_WEIGHT = 0.1;
+
+    private static final double LONG_WEIGHT = 0.002;
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    /**
+     * 短期、长期的耗时均值（ns），由this保护，0表示还没有样本
+     */
+    private double shortRtt;
+
+    private double longRtt;
+
+    /**
+     * @param initialLimit 初始上限
+     * @param minLimit     上限的下限
+     * @param maxLimit     上限的上限
+     * @param tolerance    允许的延迟相对基线的倍数，超过后开始降低上限
+     * @param smoothing    每次调整时新上限的权重，越大调整越快
+     */
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * 在途请求未达到上限时占用一个名额
+     *
+     * @return 占用成功返回true，需在请求结束后调用release
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放名额并按本次请求的耗时调整上限
+     *
+     * @param rttNanos 请求耗时，ns
+     */
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        onSample(rttNanos, current);
+    }
+
+    /**
+     * 释放名额但不调整上限，用于耗时与普通请求不可比的长时间操作
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 按一次请求的耗时调整上限
+     *
+     * @param rttNanos 请求耗时，ns
+     * @param inFlight 请求结束前的在途请求数，包括该请求
+     */
+    synchronized void onSample(long rttNanos, int inFlight) {
+        double rtt = Math.max(rttNanos, 1L);
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+        } else {
+            shortRtt += (rtt - shortRtt) * SHORT_WEIGHT;
+            if (shortRtt <= tolerance * longRtt || limit <= minLimit) {
+                longRtt += (rtt - longRtt) * LONG_WEIGHT;
+            }
+        }
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * @return 当前上限
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return 在途请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
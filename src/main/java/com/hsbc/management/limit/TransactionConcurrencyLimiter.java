@@ -0,0 +1,140 @@
+package com.hsbc.management.limit;
+
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * 交易接口的自适应并发限制，读、写分别使用独立的AdaptiveLimit
+ * <p>
+ * 数据库变慢时请求耗时上升，上限随之下降，超出上限的请求立即以OVERLOADED失败，不再占用Tomcat线程排队等待连接，
+ * 命中响应缓存的请求不经过限制，数据库过载时仍然可以快速返回。读和写互不占用名额，写入积压不会拖垮查询，反之亦然。
+ * <p>
+ * 只包住会访问数据库的调用；导出等长时间运行的操作不计入，清理只占用写名额、不记录耗时，避免其耗时拉低上限。
+ */
+@Component
+public class TransactionConcurrencyLimiter {
+
+    @Value("${transaction.concurrency-limit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transaction.concurrency-limit.tolerance:2.0}")
+    private double tolerance;
+
+    @Value("${transaction.concurrency-limit.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${transaction.concurrency-limit.read.initial-limit:20}")
+    private int readInitialLimit;
+
+    @Value("${transaction.concurrency-limit.read.min-limit:4}")
+    private int readMinLimit;
+
+    @Value("${transaction.concurrency-limit.read.max-limit:200}")
+    private int readMaxLimit;
+
+    @Value("${transaction.concurrency-limit.write.initial-limit:10}")
+    private int writeInitialLimit;
+
+    @Value("${transaction.concurrency-limit.write.min-limit:2}")
+    private int writeMinLimit;
+
+    @Value("${transaction.concurrency-limit.write.max-limit:100}")
+    private int writeMaxLimit;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AdaptiveLimit readLimit;
+
+    private AdaptiveLimit writeLimit;
+
+    @PostConstruct
+    public void init() {
+        readLimit = new AdaptiveLimit(readInitialLimit, readMinLimit, readMaxLimit, tolerance, smoothing);
+        writeLimit = new AdaptiveLimit(writeInitialLimit, writeMinLimit, writeMaxLimit, tolerance, smoothing);
+        register("read", readLimit);
+        register("write", writeLimit);
+    }
+
+    private void register(String budget, AdaptiveLimit limit) {
+        Gauge.builder("transaction.concurrency.limit", limit, AdaptiveLimit::getLimit).tag("budget", budget).register(meterRegistry);
+        Gauge.builder("transaction.concurrency.in.flight", limit, AdaptiveLimit::getInFlight).tag("budget", budget).register(meterRegistry);
+    }
+
+    /**
+     * 在读名额内执行查询
+     *
+     * @param call 查询
+     * @return 查询结果
+     * @throws BizException 如果在途的读请求已达到上限，则抛出OVERLOADED
+     */
+    public <T> T read(Supplier<T> call) {
+        return execute(readLimit, "read", call);
+    }
+
+    /**
+     * 在写名额内执行写入
+     *
+     * @param call 写入
+     * @return 写入结果
+     * @throws BizException 如果在途的写请求已达到上限，则抛出OVERLOADED
+     */
+    public <T> T write(Supplier<T> call) {
+        return execute(writeLimit, "write", call);
+    }
+
+    /**
+     * 在写名额内执行没有返回值的写入
+     *
+     * @param call 写入
+     * @throws BizException 如果在途的写请求已达到上限，则抛出OVERLOADED
+     */
+    public void write(Runnable call) {
+        execute(writeLimit, "write", () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在写名额内执行长时间运行的写入，如清理历史交易；耗时不计入上限的调整
+     *
+     * @param call 写入
+     * @return 写入结果
+     * @throws BizException 如果在途的写请求已达到上限，则抛出OVERLOADED
+     */
+    public <T> T writeLongRunning(Supplier<T> call) {
+        return execute(writeLimit, "write", call, false);
+    }
+
+    private <T> T execute(AdaptiveLimit limit, String budget, Supplier<T> call) {
+        return execute(limit, budget, call, true);
+    }
+
+    private <T> T execute(AdaptiveLimit limit, String budget, Supplier<T> call, boolean sample) {
+        if (!enabled) {
+            return call.get();
+        }
+        if (!limit.tryAcquire()) {
+            throw new BizException(BizErrorEnum.OVERLOADED, "Too many concurrent " + budget + " requests, please retry later.");
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            if (sample) {
+                limit.release(System.nanoTime() - start);
+            } else {
+                limit.releaseWithoutSample();
+            }
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.hsbc.management.service;
 
+import com.hsbc.management.common.AccountRole;
+import com.hsbc.management.common.ExportFormat;
 import com.hsbc.management.common.dto.TransactionDTO;
 import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionBatchItemVO;
 import com.hsbc.management.common.vo.TransactionVO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Optional;
 
 public interface TransactionService {
@@ -16,6 +24,14 @@ public interface TransactionService {
      */
     TransactionVO createTransaction(TransactionDTO dto);
 
+    /**
+     * 批量创建交易，逐条返回创建结果。
+     *
+     * @param dtos 待创建的交易列表
+     * @return 与请求顺序一致的逐条创建结果
+     */
+    List<TransactionBatchItemVO> batchCreateTransactions(List<TransactionDTO> dtos);
+
     /**
      * 删除指定ID的交易记录。
      *
@@ -35,9 +51,56 @@ public interface TransactionService {
     /**
      * 获取所有交易记录。
      *
-     * @return 包含所有交易记录的列表。
+     * @param transactionNo 交易编号，可选的筛选条件
+     * @param startTime     创建时间下限（包含），ms，为空时不限
+     * @param endTime       创建时间上限（不包含），ms，为空时不限
+     * @param pageable      分页参数
+     * @return 包含所有交易记录的列表，指定了创建时间范围时按创建时间升序。
+     */
+    Page<TransactionVO> listAllTransactions(String transactionNo, Long startTime, Long endTime, Pageable pageable);
+
+    /**
+     * 按游标滚动获取交易记录，适用于大表的深度翻页。
+     *
+     * @param transactionNo 交易编号，可选的筛选条件
+     * @param startTime     创建时间下限（包含），ms，为空时不限
+     * @param endTime       创建时间上限（不包含），ms，为空时不限
+     * @param cursor        上一页返回的游标，为空时从第一条开始
+     * @param size          每页记录数
+     * @return 包含当前页数据和下一页游标的结果，指定了创建时间范围时按创建时间升序，否则按ID升序
      */
-    Page<TransactionVO> listAllTransactions(String transactionNo, Pageable pageable);
+    CursorPageVO<TransactionVO> scrollTransactions(String transactionNo, Long startTime, Long endTime, String cursor, int size);
+
+    /**
+     * 按账号获取交易记录，按创建时间倒序游标分页。
+     *
+     * @param accountId 账号ID
+     * @param role      账号在交易中的角色
+     * @param cursor    上一页返回的游标，为空时从最新一条开始
+     * @param size      每页记录数
+     * @return 包含当前页数据和下一页游标的结果
+     */
+    CursorPageVO<TransactionVO> listAccountTransactions(Long accountId, AccountRole role, String cursor, int size);
+
+    /**
+     * 导出交易记录，边读边写入输出流，内存占用与数据量无关。
+     *
+     * @param startTime    创建时间下限（包含），ms，为空时不限
+     * @param endTime      创建时间上限（不包含），ms，为空时不限
+     * @param format       导出格式
+     * @param outputStream 输出流，调用方负责关闭
+     * @return 导出的记录数
+     * @throws IOException 写入输出流失败时抛出
+     */
+    long exportTransactions(Long startTime, Long endTime, ExportFormat format, OutputStream outputStream) throws IOException;
+
+    /**
+     * 删除创建时间早于before的交易，按创建时间从早到晚分批删除。
+     *
+     * @param before 创建时间上限（不包含），ms
+     * @return 删除的记录数
+     */
+    long purgeTransactions(long before);
 
     /**
      * 根据交易ID获取对应的交易记录。
@@ -46,4 +109,17 @@ public interface TransactionService {
      * @return 包含交易记录的Optional对象，如果不存在则返回Optional.empty()。
      */
     Optional<TransactionVO> getTransactionById(Long id);
+
+    /**
+     * 获取账号的转入、转出金额和笔数汇总。
+     *
+     * @param accountId 账号ID
+     * @return 账号汇总，没有交易的账号各项为0
+     */
+    AccountSummaryVO getAccountSummary(Long accountId);
+
+    /**
+     * 从全部交易重建账号汇总。
+     */
+    void rebuildAccountSummaries();
 }
@@ -0,0 +1,277 @@
+package com.hsbc.management.service.account;
+
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.event.TransactionChangedEvent.Flow;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 按账号增量维护的转入、转出金额和笔数
+ * <p>
+ * 写路径在事务内发布的交易变更事件按事务收集，提交后把变更前后的资金流向差额累加到账号的LongAdder上，
+ * 并发写入不同账号互不影响，同一账号也只在LongAdder的单元上竞争。查询直接读取单个账号的计数，与交易数无关。
+ * <p>
+ * 启动时及需要校正时从交易表全量重建。重建期间持有栅栏的写锁，写事务在提交前持有读锁、应用差额后释放，
+ * 因此重建读到的数据与之后应用的差额不重不漏，代价是重建期间写事务在提交前等待。
+ * 启动时的重建在后台线程执行，不延长启动时间；第一次重建完成前查询汇总返回未就绪，而不是返回不完整的计数。
+ * <p>
+ * 交易表的账号、金额列允许为空（如绕过接口校验直接写库的数据）：账号为空的一方不计入任何账号，金额为空按0计入笔数。
+ */
+@Slf4j
+@Component
+public class AccountAggregates implements ApplicationRunner {
+
+    @Autowired
+    private ObjectProvider<TransactionService> transactionService;
+
+    private final StampedLock fence = new StampedLock();
+
+    private volatile ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+
+    /**
+     * 是否已完成至少一次重建
+     */
+    private volatile boolean ready;
+
+    /**
+     * 单个账号的计数，金额以分为单位
+     */
+    private static final class Cell {
+        final LongAdder inflow = new LongAdder();
+        final LongAdder outflow = new LongAdder();
+        final LongAdder inflowCount = new LongAdder();
+        final LongAdder outflowCount = new LongAdder();
+    }
+
+    /**
+     * 重建时逐账号写入汇总值
+     */
+    public static final class Loader {
+
+        private final ConcurrentHashMap<Long, Cell> cells;
+
+        private Loader(ConcurrentHashMap<Long, Cell> cells) {
+            this.cells = cells;
+        }
+
+        /**
+         * 累加账号作为来源账号的交易
+         *
+         * @param accountId 账号ID
+         * @param amount    交易总额
+         * @param count     交易笔数
+         */
+        public void outflow(Long accountId, BigDecimal amount, long count) {
+            if (accountId == null) {
+                return;
+            }
+            Cell cell = cell(cells, accountId);
+            cell.outflow.add(cents(amount));
+            cell.outflowCount.add(count);
+        }
+
+        /**
+         * 累加账号作为收款账号的交易
+         *
+         * @param accountId 账号ID
+         * @param amount    交易总额
+         * @param count     交易笔数
+         */
+        public void inflow(Long accountId, BigDecimal amount, long count) {
+            if (accountId == null) {
+                return;
+            }
+            Cell cell = cell(cells, accountId);
+            cell.inflow.add(cents(amount));
+            cell.inflowCount.add(count);
+        }
+    }
+
+    /**
+     * 事务内收集的变更，提交后统一应用
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final List<TransactionChangedEvent> events = new ArrayList<>();
+
+        private long stamp;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            stamp = fence.readLock();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AccountAggregates.this);
+            try {
+                if (status == STATUS_COMMITTED) {
+                    ConcurrentHashMap<Long, Cell> current = cells;
+                    events.forEach(event -> apply(current, event));
+                }
+            } finally {
+                if (stamp != 0L) {
+                    fence.unlockRead(stamp);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取账号汇总，没有交易的账号各项为0
+     * <p>
+     * 各字段分别累加，与正在应用的写入并发时，字段之间可能相差一笔交易
+     *
+     * @param accountId 账号ID
+     * @return 账号汇总
+     * @throws BizException 启动时的重建尚未完成
+     */
+    public AccountSummaryVO get(Long accountId) {
+        if (!ready) {
+            throw new BizException(BizErrorEnum.NOT_READY, "Account summaries are being rebuilt, please retry later.");
+        }
+        Cell cell = cells.get(accountId);
+        long inflow = cell == null ? 0L : cell.inflow.sum();
+        long outflow = cell == null ? 0L : cell.outflow.sum();
+        long inflowCount = cell == null ? 0L : cell.inflowCount.sum();
+        long outflowCount = cell == null ? 0L : cell.outflowCount.sum();
+        AccountSummaryVO vo = new AccountSummaryVO();
+        vo.setAccountId(accountId);
+        vo.setInflow(BigDecimal.valueOf(inflow, 2));
+        vo.setOutflow(BigDecimal.valueOf(outflow, 2));
+        vo.setNet(BigDecimal.valueOf(inflow - outflow, 2));
+        vo.setInflowCount(inflowCount);
+        vo.setOutflowCount(outflowCount);
+        vo.setCount(inflowCount + outflowCount);
+        return vo;
+    }
+
+    /**
+     * 事务内发布的事件在提交后应用，回滚时丢弃；不在事务内发布时立即应用，调用方需通过write持有栅栏
+     *
+     * @param event 交易变更事件
+     */
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (event.before() == null && event.after() == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(cells, event);
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.events.add(event);
+    }
+
+    /**
+     * 不经过数据库事务的写路径在栅栏内完成修改并发布事件，避免与重建交错
+     *
+     * @param action 修改存储并发布事件
+     * @return action的返回值
+     */
+    public <T> T write(Supplier<T> action) {
+        long stamp = fence.readLock();
+        try {
+            return action.get();
+        } finally {
+            fence.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 持有栅栏写锁，从交易表读取汇总后整体替换
+     *
+     * @param source 读取交易表并写入Loader
+     */
+    public void rebuild(Consumer<Loader> source) {
+        long start = System.currentTimeMillis();
+        ConcurrentHashMap<Long, Cell> rebuilt = new ConcurrentHashMap<>();
+        long stamp = fence.writeLock();
+        try {
+            source.accept(new Loader(rebuilt));
+            cells = rebuilt;
+            ready = true;
+        } finally {
+            fence.unlockWrite(stamp);
+        }
+        log.info("rebuilt aggregates of {} accounts in {} ms", rebuilt.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 在后台线程中执行启动时的重建，失败时汇总保持未就绪，可通过接口手动重建
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread thread = new Thread(() -> {
+            try {
+                transactionService.getObject().rebuildAccountSummaries();
+            } catch (RuntimeException e) {
+                log.error("failed to rebuild account aggregates on startup", e);
+            }
+        }, "account-aggregates-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void apply(ConcurrentHashMap<Long, Cell> cells, TransactionChangedEvent event) {
+        if (event.before() != null) {
+            post(cells, event.before(), -1);
+        }
+        if (event.after() != null) {
+            post(cells, event.after(), 1);
+        }
+    }
+
+    private static void post(ConcurrentHashMap<Long, Cell> cells, Flow flow, int sign) {
+        long amount = sign * cents(flow.amount());
+        if (flow.sourceAccountId() != null) {
+            Cell source = cell(cells, flow.sourceAccountId());
+            source.outflow.add(amount);
+            source.outflowCount.add(sign);
+        }
+        if (flow.targetAccountId() != null) {
+            Cell target = cell(cells, flow.targetAccountId());
+            target.inflow.add(amount);
+            target.inflowCount.add(sign);
+        }
+    }
+
+    private static Cell cell(ConcurrentHashMap<Long, Cell> cells, Long accountId) {
+        Cell cell = cells.get(accountId);
+        return cell != null ? cell : cells.computeIfAbsent(accountId, id -> new Cell());
+    }
+
+    private static long cents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
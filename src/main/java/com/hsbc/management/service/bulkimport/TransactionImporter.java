@@ -0,0 +1,505 @@
+package com.hsbc.management.service.bulkimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.entity.TransactionImportJob;
+import com.hsbc.management.common.entity.TransactionImportJob.Status;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.vo.TransactionImportVO;
+import com.hsbc.management.dao.TransactionImportJobRepository;
+import com.hsbc.management.dao.TransactionJdbcWriter;
+import com.hsbc.management.dao.TransactionRepository;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.bulkimport.TransactionLineParser.ParsedLine;
+import com.hsbc.management.service.index.TransactionExistenceFilter;
+import com.hsbc.management.service.memory.MemoryTransactionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 交易批量导入
+ * <p>
+ * 导入目录下的CSV/NDJSON文件按块内存映射读取，块内按行边界切分后并行解析、校验，
+ * 再按batchSize分批查重并通过JDBC批量插入。每批交易与导入任务的已处理位置在同一事务中提交，
+ * 中断（包括进程崩溃）后再次提交同一文件，或应用重启时，从最后一次提交的位置继续。
+ * 被拒绝的行连同原因写入与导入文件同目录的.rejected文件。
+ * 导入直接写数据库，内存引擎模式下不启用。
+ */
+@Slf4j
+@Service
+@Profile("!" + MemoryTransactionService.PROFILE)
+public class TransactionImporter implements ApplicationRunner {
+
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    @Value("${transaction.import.directory:data/import}")
+    private String directory;
+
+    @Value("${transaction.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${transaction.import.chunk-size:33554432}")
+    private int chunkSize;
+
+    @Autowired
+    private TransactionImportJobRepository transactionImportJobRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionJdbcWriter transactionJdbcWriter;
+
+    @Autowired
+    private TransactionExistenceFilter transactionExistenceFilter;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "transaction-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 停机时在当前批次提交后停止，任务保持RUNNING状态，重启后继续
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 应用启动时继续上次未完成的导入
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        for (TransactionImportJob job : transactionImportJobRepository.findByStatus(Status.RUNNING)) {
+            log.info("resuming import of {} from position {}", job.getPath(), job.getPosition());
+            submit(job, resolve(job.getPath()));
+        }
+    }
+
+    /**
+     * 开始或继续导入一个文件
+     *
+     * @param path   导入目录下的相对路径
+     * @param format 文件格式，为空时按扩展名判断
+     * @return 导入任务
+     * @throws BizException 如果文件不存在、格式不支持、文件已变更或正在导入，则抛出BizException异常
+     */
+    public TransactionImportVO start(String path, String format) {
+        Path file = resolve(path);
+        String key = key(file);
+        long fileSize;
+        try {
+            fileSize = Files.size(file);
+        } catch (IOException e) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Import file " + path + " is not readable.");
+        }
+        if (running.contains(key)) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Import of " + key + " is already running.");
+        }
+        Optional<TransactionImportJob> existing = transactionImportJobRepository.findById(key);
+        TransactionImportJob job;
+        if (existing.isPresent()) {
+            job = existing.get();
+            if (job.getStatus() == Status.COMPLETED) {
+                return convertToVO(job);
+            }
+            if (job.getFileSize() != fileSize) {
+                throw new BizException(BizErrorEnum.INVALID_PARAM, "Import file " + key + " changed since the last attempt.");
+            }
+        } else {
+            job = new TransactionImportJob();
+            job.setPath(key);
+            job.setFormat(resolveFormat(file, format).name());
+            job.setFileSize(fileSize);
+            job.setPosition(0L);
+            job.setLineNo(0L);
+            job.setImported(0L);
+            job.setRejected(0L);
+            job.setCreateTime(System.currentTimeMillis());
+        }
+        job.setStatus(Status.RUNNING);
+        job.setMessage(null);
+        job.setUpdateTime(System.currentTimeMillis());
+        job = transactionImportJobRepository.save(job);
+        submit(job, file);
+        return convertToVO(job);
+    }
+
+    /**
+     * 查询导入进度
+     *
+     * @param path 导入目录下的相对路径
+     * @return 导入任务，未导入过时返回Optional.empty()
+     */
+    public Optional<TransactionImportVO> getJob(String path) {
+        return transactionImportJobRepository.findById(key(resolve(path))).map(this::convertToVO);
+    }
+
+    private void submit(TransactionImportJob job, Path file) {
+        if (!running.add(job.getPath())) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                importFile(job, file);
+            } catch (Exception e) {
+                log.error("import of {} failed after line {}", job.getPath(), job.getLineNo(), e);
+                // 内存中的进度可能领先于已提交的进度，以库中记录为准
+                TransactionImportJob failed = transactionImportJobRepository.findById(job.getPath()).orElse(job);
+                failed.setStatus(Status.FAILED);
+                String message = String.valueOf(e.getMessage());
+                failed.setMessage(message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+                failed.setUpdateTime(System.currentTimeMillis());
+                transactionImportJobRepository.save(failed);
+            } finally {
+                running.remove(job.getPath());
+            }
+        });
+    }
+
+    private void importFile(TransactionImportJob job, Path file) throws IOException {
+        long start = System.currentTimeMillis();
+        long importedBefore = job.getImported();
+        Path rejectsPath = file.resolveSibling(file.getFileName() + ".rejected");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectsPath, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            long size = channel.size();
+            TransactionLineParser parser;
+            if (ExportFormat.valueOf(job.getFormat()) == ExportFormat.CSV) {
+                MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, chunkSize));
+                int headerEnd = indexOf(head, (byte) '\n', 0, head.limit());
+                if (headerEnd < 0 && size > head.limit()) {
+                    throw new IllegalStateException("CSV header exceeds " + chunkSize + " bytes");
+                }
+                int headerLength = headerEnd < 0 ? head.limit() : headerEnd;
+                parser = TransactionLineParser.csv(decode(head, 0, headerLength));
+                if (job.getPosition() == 0) {
+                    job.setPosition(headerEnd < 0 ? size : headerEnd + 1L);
+                    job.setLineNo(1L);
+                }
+            } else {
+                parser = TransactionLineParser.ndjson(objectMapper);
+            }
+
+            while (job.getPosition() < size && !stopping) {
+                long position = job.getPosition();
+                int length = (int) Math.min(chunkSize, size - position);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length >= size;
+                int[] lineEnds = lineEnds(chunk, length, last);
+                if (lineEnds.length == 0) {
+                    throw new IllegalStateException("line at position " + position + " exceeds " + chunkSize + " bytes");
+                }
+                List<ParsedLine> lines = parseChunk(chunk, lineEnds, job.getLineNo(), parser);
+                commitChunk(job, lines, lineEnds, rejects);
+            }
+        }
+        if (job.getPosition() >= job.getFileSize()) {
+            job.setStatus(Status.COMPLETED);
+            job.setUpdateTime(System.currentTimeMillis());
+            transactionImportJobRepository.save(job);
+        }
+        log.info("import of {} {}: {} transactions in {} ms, {} imported and {} rejected in total", job.getPath(),
+                job.getStatus() == Status.COMPLETED ? "completed" : "paused", job.getImported() - importedBefore,
+                System.currentTimeMillis() - start, job.getImported(), job.getRejected());
+    }
+
+    /**
+     * 找出块内每一行的结束位置（不含换行符之后的下一字节），最后一块允许末行没有换行符
+     */
+    private static int[] lineEnds(MappedByteBuffer chunk, int length, boolean last) {
+        int[] ends = new int[1024];
+        int count = 0;
+        int from = 0;
+        int newline;
+        while ((newline = indexOf(chunk, (byte) '\n', from, length)) >= 0) {
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            ends[count++] = newline + 1;
+            from = newline + 1;
+        }
+        if (last && from < length) {
+            ends = Arrays.copyOf(ends, count + 1);
+            ends[count++] = length;
+        }
+        return Arrays.copyOf(ends, count);
+    }
+
+    /**
+     * 并行解码、解析并校验块内各行，结果保持行顺序
+     */
+    private List<ParsedLine> parseChunk(MappedByteBuffer chunk, int[] lineEnds, long lineNoBefore, TransactionLineParser parser) {
+        return IntStream.range(0, lineEnds.length).parallel().mapToObj(i -> {
+            int from = i == 0 ? 0 : lineEnds[i - 1];
+            int to = lineEnds[i];
+            while (to > from && (chunk.get(to - 1) == '\n' || chunk.get(to - 1) == '\r')) {
+                to--;
+            }
+            long lineNo = lineNoBefore + i + 1;
+            if (to == from) {
+                return null;
+            }
+            ParsedLine line = parser.parse(lineNo, decode(chunk, from, to - from));
+            if (line.error() != null) {
+                return line;
+            }
+            Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(line.dto());
+            if (!violations.isEmpty()) {
+                Map<String, String> errors = new TreeMap<>();
+                violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+                return ParsedLine.rejected(lineNo, errors.toString());
+            }
+            return line;
+        }).toList();
+    }
+
+    /**
+     * 按batchSize分批提交一个块，每批提交后推进导入位置
+     */
+    private void commitChunk(TransactionImportJob job, List<ParsedLine> lines, int[] lineEnds, BufferedWriter rejects) throws IOException {
+        long chunkStart = job.getPosition();
+        long lineNoBefore = job.getLineNo();
+        List<ParsedLine> batch = new ArrayList<>();
+        List<ParsedLine> rejected = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            ParsedLine line = lines.get(i);
+            if (line != null) {
+                (line.error() == null ? batch : rejected).add(line);
+            }
+            if (batch.size() == batchSize || i == lines.size() - 1) {
+                commitBatch(job, batch, rejected, chunkStart + lineEnds[i], lineNoBefore + i + 1, rejects);
+                batch.clear();
+                rejected.clear();
+                if (stopping) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void commitBatch(TransactionImportJob job, List<ParsedLine> batch, List<ParsedLine> rejected,
+                             long position, long lineNo, BufferedWriter rejects) throws IOException {
+        Set<String> candidates = new HashSet<>();
+        for (ParsedLine line : batch) {
+            if (transactionExistenceFilter.mightContainTransactionNo(line.dto().getTransactionNo())) {
+                candidates.add(line.dto().getTransactionNo());
+            }
+        }
+        Set<String> existing = candidates.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(transactionRepository.findExistingTransactionNos(candidates));
+        Set<String> seen = new HashSet<>();
+        List<ParsedLine> accepted = new ArrayList<>(batch.size());
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (ParsedLine line : batch) {
+            String transactionNo = line.dto().getTransactionNo();
+            if (existing.contains(transactionNo) || !seen.add(transactionNo)) {
+                rejected.add(duplicated(line.lineNo(), transactionNo));
+            } else {
+                accepted.add(line);
+                transactions.add(toEntity(line));
+            }
+        }
+        // 拒绝记录先于数据提交落盘，崩溃重做时可能重复出现，按行号去重即可
+        rejected.sort(Comparator.comparingLong(ParsedLine::lineNo));
+        for (ParsedLine line : rejected) {
+            writeRejected(rejects, line);
+        }
+        rejects.flush();
+
+        List<Transaction> inserted = transactions;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                transactionJdbcWriter.insert(transactions);
+                saveProgress(job, position, lineNo, transactions.size(), rejected.size());
+                publishCreated(transactions);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 与并发创建的交易编号冲突，逐条重试
+            inserted = new ArrayList<>();
+            int conflicts = 0;
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        transactionJdbcWriter.insert(List.of(transaction));
+                        publishCreated(List.of(transaction));
+                    });
+                    inserted.add(transaction);
+                } catch (DataIntegrityViolationException rowException) {
+                    conflicts++;
+                    writeRejected(rejects, duplicated(accepted.get(i).lineNo(), transaction.getTransactionNo()));
+                }
+            }
+            rejects.flush();
+            int insertedCount = inserted.size();
+            int rejectedCount = rejected.size() + conflicts;
+            transactionTemplate.executeWithoutResult(status -> saveProgress(job, position, lineNo, insertedCount, rejectedCount));
+        }
+        for (Transaction transaction : inserted) {
+            transactionExistenceFilter.add(transaction.getId(), transaction.getTransactionNo());
+        }
+    }
+
+    /**
+     * 在插入所在的事务内发布事件，监听器随事务提交或回滚
+     */
+    private void publishCreated(List<Transaction> transactions) {
+        transactions.forEach(transaction -> eventPublisher.publishEvent(TransactionChangedEvent.created(transaction)));
+    }
+
+    private static ParsedLine duplicated(long lineNo, String transactionNo) {
+        return ParsedLine.rejected(lineNo, "Transaction with transactionNo " + transactionNo + " already exists.");
+    }
+
+    private static void writeRejected(BufferedWriter rejects, ParsedLine line) throws IOException {
+        rejects.write(line.lineNo() + "\t" + line.error());
+        rejects.newLine();
+    }
+
+    private void saveProgress(TransactionImportJob job, long position, long lineNo, int imported, int rejected) {
+        job.setPosition(position);
+        job.setLineNo(lineNo);
+        job.setImported(job.getImported() + imported);
+        job.setRejected(job.getRejected() + rejected);
+        job.setUpdateTime(System.currentTimeMillis());
+        transactionImportJobRepository.save(job);
+    }
+
+    private Transaction toEntity(ParsedLine line) {
+        TransactionDTO dto = line.dto();
+        Transaction transaction = new Transaction();
+        transaction.setId(transactionJdbcWriter.allocateId());
+        transaction.setTransactionNo(dto.getTransactionNo());
+        transaction.setSourceAccountId(dto.getSourceAccountId());
+        transaction.setTargetAccountId(dto.getTargetAccountId());
+        transaction.setAmount(dto.getAmount());
+        transaction.setDescription(dto.getDescription());
+        long now = System.currentTimeMillis();
+        transaction.setCreateTime(line.createTime() != null ? line.createTime() : now);
+        transaction.setUpdateTime(line.updateTime() != null ? line.updateTime() : transaction.getCreateTime());
+        return transaction;
+    }
+
+    TransactionImportVO convertToVO(TransactionImportJob job) {
+        TransactionImportVO vo = new TransactionImportVO();
+        vo.setPath(job.getPath());
+        vo.setFormat(job.getFormat());
+        vo.setStatus(job.getStatus().name());
+        vo.setFileSize(job.getFileSize());
+        vo.setPosition(job.getPosition());
+        vo.setLineNo(job.getLineNo());
+        vo.setImported(job.getImported());
+        vo.setRejected(job.getRejected());
+        vo.setProgress(job.getFileSize() == 0 ? 100.0 : Math.floor(job.getPosition() * 10000.0 / job.getFileSize()) / 100);
+        vo.setMessage(job.getMessage());
+        vo.setCreateTime(job.getCreateTime());
+        vo.setUpdateTime(job.getUpdateTime());
+        return vo;
+    }
+
+    /**
+     * 把相对路径解析到导入目录下，拒绝目录之外的路径
+     */
+    private Path resolve(String path) {
+        Path base = Path.of(directory).toAbsolutePath().normalize();
+        Path file = base.resolve(path).normalize();
+        if (!file.startsWith(base) || !Files.isRegularFile(file)) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "Import file " + path + " does not exist.");
+        }
+        return file;
+    }
+
+    private String key(Path file) {
+        return Path.of(directory).toAbsolutePath().normalize().relativize(file).toString();
+    }
+
+    private static ExportFormat resolveFormat(Path file, String format) {
+        if (format != null && !format.isEmpty()) {
+            return ExportFormat.of(format);
+        }
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ExportFormat.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return ExportFormat.NDJSON;
+        }
+        throw new BizException(BizErrorEnum.INVALID_PARAM, "Cannot infer format of " + file.getFileName() + ", please specify format.");
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decode(MappedByteBuffer buffer, int from, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
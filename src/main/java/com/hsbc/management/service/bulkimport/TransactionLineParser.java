@@ -0,0 +1,175 @@
+package com.hsbc.management.service.bulkimport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.dto.TransactionDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 导入文件的行解析器，无状态，可被多个线程并行使用
+ * <p>
+ * 支持与导出接口相同的两种格式：NDJSON每行一个对象；CSV首行为表头，按列名取值，多余的列（如id）忽略。
+ * createTime、updateTime可选，缺省时使用导入时间。
+ */
+class TransactionLineParser {
+
+    static final String TRANSACTION_NO = "transactionNo";
+    static final String SOURCE_ACCOUNT_ID = "sourceAccountId";
+    static final String TARGET_ACCOUNT_ID = "targetAccountId";
+    static final String AMOUNT = "amount";
+    static final String DESCRIPTION = "description";
+    static final String CREATE_TIME = "createTime";
+    static final String UPDATE_TIME = "updateTime";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of(TRANSACTION_NO, SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, AMOUNT);
+
+    /**
+     * 一行的解析结果，error不为空时表示该行被拒绝
+     *
+     * @param lineNo     行号，从1开始
+     * @param dto        解析出的交易
+     * @param createTime 创建时间，可能为空
+     * @param updateTime 更新时间，可能为空
+     * @param error      拒绝原因
+     */
+    record ParsedLine(long lineNo, TransactionDTO dto, Long createTime, Long updateTime, String error) {
+
+        static ParsedLine rejected(long lineNo, String error) {
+            return new ParsedLine(lineNo, null, null, null, error);
+        }
+    }
+
+    private final ExportFormat format;
+
+    /**
+     * 小数按BigDecimal读取，避免金额经过double丢失精度
+     */
+    private final ObjectReader objectReader;
+
+    private final Map<String, Integer> columns;
+
+    private TransactionLineParser(ExportFormat format, ObjectReader objectReader, Map<String, Integer> columns) {
+        this.format = format;
+        this.objectReader = objectReader;
+        this.columns = columns;
+    }
+
+    static TransactionLineParser ndjson(ObjectMapper objectMapper) {
+        return new TransactionLineParser(ExportFormat.NDJSON,
+                objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS), Map.of());
+    }
+
+    /**
+     * 根据CSV表头创建解析器
+     *
+     * @param header 表头行
+     * @return 解析器
+     * @throws IllegalArgumentException 如果表头缺少必需的列
+     */
+    static TransactionLineParser csv(String header) {
+        List<String> names = splitCsv(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column " + required);
+            }
+        }
+        return new TransactionLineParser(ExportFormat.CSV, null, columns);
+    }
+
+    ParsedLine parse(long lineNo, String line) {
+        try {
+            Map<String, String> values = format == ExportFormat.CSV ? csvValues(line) : jsonValues(line);
+            TransactionDTO dto = new TransactionDTO();
+            dto.setTransactionNo(values.get(TRANSACTION_NO));
+            dto.setSourceAccountId(toLong(values.get(SOURCE_ACCOUNT_ID)));
+            dto.setTargetAccountId(toLong(values.get(TARGET_ACCOUNT_ID)));
+            String amount = values.get(AMOUNT);
+            dto.setAmount(amount == null || amount.isEmpty() ? null : new BigDecimal(amount));
+            dto.setDescription(values.get(DESCRIPTION));
+            return new ParsedLine(lineNo, dto, toLong(values.get(CREATE_TIME)), toLong(values.get(UPDATE_TIME)), null);
+        } catch (NumberFormatException e) {
+            return ParsedLine.rejected(lineNo, "invalid number: " + e.getMessage());
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return ParsedLine.rejected(lineNo, "malformed line: " + e.getMessage());
+        }
+    }
+
+    private Map<String, String> csvValues(String line) {
+        List<String> fields = splitCsv(line);
+        Map<String, String> values = new HashMap<>();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            if (column.getValue() < fields.size()) {
+                values.put(column.getKey(), fields.get(column.getValue()));
+            }
+        }
+        return values;
+    }
+
+    private Map<String, String> jsonValues(String line) throws JsonProcessingException {
+        JsonNode node = objectReader.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("not a JSON object");
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String name : List.of(TRANSACTION_NO, SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, AMOUNT, DESCRIPTION, CREATE_TIME, UPDATE_TIME)) {
+            JsonNode value = node.get(name);
+            if (value != null && !value.isNull()) {
+                values.put(name, value.asText());
+            }
+        }
+        return values;
+    }
+
+    private static Long toLong(String value) {
+        return value == null || value.isEmpty() ? null : Long.valueOf(value.trim());
+    }
+
+    /**
+     * 按RFC 4180拆分一行CSV，字段内不支持换行
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
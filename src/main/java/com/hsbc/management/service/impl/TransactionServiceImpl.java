@@ -1,117 +1,667 @@
 package com.hsbc.management.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.cache.TransactionPageKey;
+import com.hsbc.management.cache.TransactionPageLoader;
+import com.hsbc.management.common.AccountRole;
+import com.hsbc.management.common.CursorCodec;
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.TransactionCsv;
 import com.hsbc.management.common.dto.TransactionDTO;
 import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.event.TransactionChangedEvent.Flow;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionBatchItemVO;
 import com.hsbc.management.common.vo.TransactionVO;
 import com.hsbc.management.dao.TransactionRepository;
 import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.exception.BizErrorEnum;
 import com.hsbc.management.exception.BizException;
 import com.hsbc.management.service.TransactionService;
+import com.hsbc.management.service.account.AccountAggregates;
+import com.hsbc.management.service.index.TransactionExistenceFilter;
+import com.hsbc.management.service.memory.MemoryTransactionService;
+import com.hsbc.management.service.index.TransactionNoGramIndex;
+import com.hsbc.management.service.writebehind.TransactionWriteBehind;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
-public class TransactionServiceImpl implements TransactionService {
+@Profile("!" + MemoryTransactionService.PROFILE)
+public class TransactionServiceImpl implements TransactionService, TransactionPageLoader {
+
+    private static final int MAX_SCROLL_SIZE = 1000;
+
+    /**
+     * 交易编号唯一索引名，见Transaction实体
+     */
+    private static final String TRANSACTION_NO_INDEX = "idx_transaction_no";
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 按创建时间清理时每个事务删除的记录数
+     */
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    /**
+     * 账号交易的排序：创建时间倒序，同一毫秒内ID倒序
+     */
+    private static final Comparator<Transaction> ACCOUNT_ORDER =
+            Comparator.comparing(Transaction::getCreateTime).thenComparing(Transaction::getId).reversed();
 
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionNoGramIndex transactionNoGramIndex;
+
+    @Autowired
+    private TransactionExistenceFilter transactionExistenceFilter;
+
+    @Autowired
+    private AccountAggregates accountAggregates;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * 写入缓冲模式未开启时为null，创建交易同步提交
+     */
+    @Autowired(required = false)
+    private TransactionWriteBehind transactionWriteBehind;
+
     /**
      * 创建交易
+     * <p>
+     * 布隆过滤器判定交易编号一定不存在时跳过查重查询直接插入，并发创建同一编号时由唯一索引兜底；
+     * 开启写入缓冲模式时，交易写入本地日志后即返回，由后台线程批量提交到数据库；此时不开启事务，
+     * 等待日志落盘和组提交期间不占用数据库连接。同步写入时才在事务内查重并插入
      *
      * @param dto 包含交易信息的DTO对象
      * @return 新建的交易对象
      * @throws BizException 如果transactionNo已存在，则抛出BizException异常
      */
-    @Transactional
-    @CacheEvict(value = "transactions", allEntries = true)
+    @CachePut(value = CacheConfig.TRANSACTION_CACHE, key = "#result.id")
     public TransactionVO createTransaction(TransactionDTO dto) {
-        Optional<Transaction> existingTransaction = transactionRepository.findByTransactionNo(dto.getTransactionNo());
-        if (existingTransaction.isPresent()) {
-            throw new BizException("Transaction with transactionNo " + dto.getTransactionNo() + " already exists.");
+        if (transactionWriteBehind != null) {
+            return convertToVO(transactionWriteBehind.submit(convertToEntity(dto)));
+        }
+        return new TransactionTemplate(transactionManager).execute(status -> create(dto));
+    }
+
+    private TransactionVO create(TransactionDTO dto) {
+        if (transactionExistenceFilter.mightContainTransactionNo(dto.getTransactionNo())
+                && transactionRepository.findByTransactionNo(dto.getTransactionNo()).isPresent()) {
+            throw transactionDuplicated(dto.getTransactionNo());
         }
         Transaction transaction = convertToEntity(dto);
-        Transaction savedTransaction = transactionRepository.save(transaction);
+        Transaction savedTransaction;
+        try {
+            savedTransaction = transactionRepository.saveAndFlush(transaction);
+        } catch (DataIntegrityViolationException e) {
+            if (isTransactionNoConflict(e)) {
+                throw transactionDuplicated(dto.getTransactionNo());
+            }
+            throw e;
+        }
+        transactionExistenceFilter.add(savedTransaction.getId(), savedTransaction.getTransactionNo());
+        transactionNoGramIndex.index(savedTransaction);
+        eventPublisher.publishEvent(TransactionChangedEvent.created(savedTransaction));
         return convertToVO(savedTransaction);
     }
 
+    /**
+     * 批量创建交易
+     * <p>
+     * 逐条做参数校验，批内重复和库内已存在的交易编号通过一次IN查询识别，
+     * 其余记录通过saveAll按hibernate.jdbc.batch_size批量插入。
+     * IN查询之后被并发创建（或其他实例创建）的交易编号由唯一索引拦截，此时整批回滚，改为每条一个事务逐条插入，冲突的记录单独标记失败
+     *
+     * @param dtos 待创建的交易列表
+     * @return 与请求顺序一致的逐条创建结果
+     */
+    public List<TransactionBatchItemVO> batchCreateTransactions(List<TransactionDTO> dtos) {
+        List<TransactionBatchItemVO> results = new ArrayList<>(dtos.size());
+        Set<String> batchNos = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            TransactionDTO dto = dtos.get(i);
+            TransactionBatchItemVO item = new TransactionBatchItemVO();
+            item.setIndex(i);
+            results.add(item);
+            if (dto == null) {
+                item.setMsg("transaction不能为空");
+                continue;
+            }
+            item.setTransactionNo(dto.getTransactionNo());
+            Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                Map<String, String> errors = new HashMap<>();
+                violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+                item.setMsg(errors.toString());
+            } else if (!batchNos.add(dto.getTransactionNo())) {
+                item.setMsg("Transaction with transactionNo " + dto.getTransactionNo() + " is duplicated in batch.");
+            } else if (transactionWriteBehind != null && transactionWriteBehind.isPendingTransactionNo(dto.getTransactionNo())) {
+                item.setMsg("Transaction with transactionNo " + dto.getTransactionNo() + " already exists.");
+            }
+        }
+
+        // 布隆过滤器判定一定不存在的编号不参与IN查询
+        Set<String> candidateNos = new HashSet<>();
+        batchNos.stream().filter(transactionExistenceFilter::mightContainTransactionNo).forEach(candidateNos::add);
+        Set<String> existingNos = candidateNos.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(transactionRepository.findExistingTransactionNos(candidateNos));
+        List<TransactionBatchItemVO> accepted = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (TransactionBatchItemVO item : results) {
+            if (item.getMsg() != null) {
+                continue;
+            }
+            if (existingNos.contains(item.getTransactionNo())) {
+                item.setMsg("Transaction with transactionNo " + item.getTransactionNo() + " already exists.");
+                continue;
+            }
+            accepted.add(item);
+            transactions.add(convertToEntity(dtos.get(item.getIndex())));
+        }
+        if (accepted.isEmpty()) {
+            return results;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            List<Transaction> savedTransactions = transactionTemplate.execute(status -> insert(transactions));
+            for (int i = 0; i < accepted.size(); i++) {
+                created(accepted.get(i), savedTransactions.get(i));
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (!isTransactionNoConflict(e)) {
+                throw e;
+            }
+            // 回滚的实体已分配过ID，逐条重试时重新转换
+            for (TransactionBatchItemVO item : accepted) {
+                Transaction transaction = convertToEntity(dtos.get(item.getIndex()));
+                try {
+                    created(item, transactionTemplate.execute(status -> insert(List.of(transaction))).get(0));
+                } catch (DataIntegrityViolationException rowException) {
+                    if (!isTransactionNoConflict(rowException)) {
+                        throw rowException;
+                    }
+                    item.setMsg("Transaction with transactionNo " + item.getTransactionNo() + " already exists.");
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 在当前事务内插入交易及其n-gram索引并发布创建事件，flush后唯一索引冲突在此抛出
+     */
+    private List<Transaction> insert(List<Transaction> transactions) {
+        List<Transaction> savedTransactions = transactionRepository.saveAllAndFlush(transactions);
+        transactionNoGramIndex.index(savedTransactions);
+        savedTransactions.forEach(savedTransaction -> eventPublisher.publishEvent(TransactionChangedEvent.created(savedTransaction)));
+        return savedTransactions;
+    }
+
+    private void created(TransactionBatchItemVO item, Transaction savedTransaction) {
+        transactionExistenceFilter.add(savedTransaction.getId(), savedTransaction.getTransactionNo());
+        item.setSuccess(true);
+        item.setTransaction(convertToVO(savedTransaction));
+    }
+
     /**
      * 删除交易
+     * <p>
+     * 一条DELETE语句完成存在判断和删除，并带回被删除行的资金流向，不需要先查询。
+     * 写入缓冲中的交易在开启事务之前先提交，组提交与本次删除不会同时占用两个连接
      *
      * @param id 交易ID
      * @throws BizException 如果交易ID不存在，则抛出BizException异常
      */
-    @Transactional
-    @CacheEvict(value = "transactions", allEntries = true)
+    @CacheEvict(value = CacheConfig.TRANSACTION_CACHE, key = "#id")
     public void deleteTransaction(Long id) {
-        if (!transactionRepository.existsById(id)) {
-            throw new BizException("Transaction with id " + id + " does not exist.");
-        }
-        transactionRepository.deleteById(id);
+        flushIfPending(id);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Object[]> deleted = transactionRepository.deleteReturningFlow(id);
+            if (deleted.isEmpty()) {
+                throw new BizException(BizErrorEnum.TRANSACTION_NOT_FOUND, "Transaction with id " + id + " does not exist.");
+            }
+            Object[] row = deleted.get(0);
+            transactionNoGramIndex.remove(id);
+            eventPublisher.publishEvent(TransactionChangedEvent.deleted(id, toFlow(row[0], row[1], row[2])));
+        });
     }
 
     /**
      * 修改交易
+     * <p>
+     * 一条带版本条件的UPDATE语句完成比较和更新，dto不带版本号时不比较，并发修改之间不会互相覆盖。
+     * 语句带回修改前的行，与dto组装出修改后的交易，返回及写入缓存的是递增后的版本号，不需要再查询。
+     * 没有更新任何行且dto带有版本号时，才查询一次当前版本，区分交易不存在和版本冲突。
+     * 与删除一样，写入缓冲中的交易在开启事务之前先提交
      *
      * @param id 交易ID
      * @param dto 包含修改信息的DTO对象
      * @return 修改后的交易对象
-     * @throws BizException 如果交易ID不存在，则抛出BizException异常
+     * @throws BizException 如果交易ID不存在，或与期望的版本号不一致，则抛出BizException异常
      */
-    @Transactional
-    @CacheEvict(value = "transactions", allEntries = true)
+    @CachePut(value = CacheConfig.TRANSACTION_CACHE, key = "#id")
     public TransactionVO modifyTransaction(Long id, TransactionModifyDTO dto) {
-        Optional<Transaction> optionalTransaction = transactionRepository.findById(id);
-        if (optionalTransaction.isEmpty()) {
-            throw new BizException("Transaction with id " + id + " does not exist.");
+        flushIfPending(id);
+        return new TransactionTemplate(transactionManager).execute(status -> update(id, dto));
+    }
+
+    private TransactionVO update(Long id, TransactionModifyDTO dto) {
+        long updateTime = System.currentTimeMillis();
+        List<Object[]> previous = transactionRepository.updateReturningPrevious(id, dto.getSourceAccountId(), dto.getTargetAccountId(),
+                dto.getAmount(), dto.getDescription(), updateTime, dto.getVersion());
+        if (previous.isEmpty()) {
+            if (dto.getVersion() != null) {
+                Optional<TransactionVO> current = transactionRepository.findVOById(id);
+                if (current.isPresent()) {
+                    throw new BizException(BizErrorEnum.VERSION_CONFLICT, "Transaction with id " + id + " has been modified, current version is "
+                            + current.get().getVersion() + ".");
+                }
+            }
+            throw new BizException(BizErrorEnum.TRANSACTION_NOT_FOUND, "Transaction with id " + id + " does not exist.");
         }
-        Transaction transaction = optionalTransaction.get();
-        transaction.setSourceAccountId(dto.getSourceAccountId());
-        transaction.setTargetAccountId(dto.getTargetAccountId());
-        transaction.setAmount(dto.getAmount());
-        transaction.setDescription(dto.getDescription());
-        transaction.setUpdateTime(System.currentTimeMillis());
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        return convertToVO(savedTransaction);
+        Object[] row = previous.get(0);
+        TransactionVO modified = new TransactionVO(id, (String) row[0], dto.getSourceAccountId(), dto.getTargetAccountId(),
+                dto.getAmount(), dto.getDescription(), (Long) row[4], updateTime, (Long) row[5] + 1);
+        eventPublisher.publishEvent(TransactionChangedEvent.modified(id, toFlow(row[1], row[2], row[3]), Flow.of(modified)));
+        return modified;
     }
 
     /**
-     * 获取所有交易记录的分页列表
+     * 由原生SQL返回的列组装资金流向
+     */
+    private static Flow toFlow(Object sourceAccountId, Object targetAccountId, Object amount) {
+        return new Flow((Long) sourceAccountId, (Long) targetAccountId, (BigDecimal) amount);
+    }
+
+    /**
+     * 获取所有交易记录的分页列表，缓存key带有列表版本号，交易变更后旧分页自动失效
+     * <p>
+     * 指定创建时间范围时只读取idx_create_time上窗口内的索引范围，交易编号在窗口内逐行匹配；
+     * 否则搜索词不短于trigram长度时走交易编号n-gram索引，更短时退化为逐行子串匹配
+     * <p>
+     * 查询结果直接投影为TransactionVO，不创建实体、不做脏检查快照；分页和count在同一个只读事务中执行，共用一个连接。
+     * 缓存拦截器位于事务拦截器外层，命中缓存时不开启事务；同一分页的并发未命中只查询一次，热点分页在过期前由后台刷新
      *
      * @param transactionNo 交易编号，用于筛选交易记录
+     * @param startTime     创建时间下限（包含），ms，为空时不限
+     * @param endTime       创建时间上限（不包含），ms，为空时不限
      * @param pageable      分页参数
      * @return 包含交易记录的分页列表
      */
-    @Cacheable(value = "transactions",
-            key = "#transactionNo != null ? #transactionNo + '_' + #pageable.pageNumber + '_' + #pageable.pageSize : 'all_' + #pageable.pageNumber + '_' + #pageable.pageSize",
-            unless = "#result == null")
-    public Page<TransactionVO> listAllTransactions(String transactionNo, Pageable pageable) {
-        Page<Transaction> transactions;
-        if (transactionNo != null && !transactionNo.isEmpty()) {
+    @Cacheable(cacheResolver = "transactionPageCacheResolver", keyGenerator = "transactionPageKeyGenerator", sync = true)
+    @Transactional(readOnly = true)
+    public Page<TransactionVO> listAllTransactions(String transactionNo, Long startTime, Long endTime, Pageable pageable) {
+        return queryTransactions(transactionNo, startTime, endTime, pageable);
+    }
+
+    /**
+     * 分页缓存提前刷新时按key重新查询，直接查询数据库，不经过缓存
+     *
+     * @param key 分页缓存的key
+     * @return 包含交易记录的分页列表
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<TransactionVO> loadPage(TransactionPageKey key) {
+        return queryTransactions(key.transactionNo(), key.startTime(), key.endTime(), key.pageable());
+    }
+
+    private Page<TransactionVO> queryTransactions(String transactionNo, Long startTime, Long endTime, Pageable pageable) {
+        Page<TransactionVO> transactions;
+        Set<String> grams = TransactionNoGramIndex.grams(transactionNo);
+        if (startTime != null || endTime != null) {
+            transactions = transactionRepository.findByCreateTimeWindow(transactionNo != null ? transactionNo : "",
+                    startTime != null ? startTime : Long.MIN_VALUE, endTime != null ? endTime : Long.MAX_VALUE, pageable);
+        } else if (!grams.isEmpty()) {
+            transactions = transactionRepository.searchByTransactionNoGrams(transactionNo, grams, grams.size(), pageable);
+        } else if (transactionNo != null && !transactionNo.isEmpty()) {
             transactions = transactionRepository.findByTransactionNoContaining(transactionNo, pageable);
         } else {
-            transactions = transactionRepository.findAll(pageable);
+            transactions = transactionRepository.findAllVO(pageable);
+        }
+        return transactions;
+    }
+
+    /**
+     * 按主键游标滚动获取交易记录，每次多查一条用于判断是否还有下一页，不执行count查询
+     * <p>
+     * 指定创建时间范围时改为按(创建时间, ID)游标在idx_create_time上翻页，游标包含两部分，与不带范围的游标不通用
+     *
+     * @param transactionNo 交易编号，用于筛选交易记录
+     * @param startTime     创建时间下限（包含），ms，为空时不限
+     * @param endTime       创建时间上限（不包含），ms，为空时不限
+     * @param cursor        上一页返回的游标，为空时从第一条开始
+     * @param size          每页记录数
+     * @return 包含当前页数据和下一页游标的结果
+     * @throws BizException 如果size超出范围或游标不合法，则抛出BizException异常
+     */
+    public CursorPageVO<TransactionVO> scrollTransactions(String transactionNo, Long startTime, Long endTime, String cursor, int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "size must be between 1 and " + MAX_SCROLL_SIZE + ".");
+        }
+        if (startTime != null || endTime != null) {
+            return scrollCreateTimeWindow(transactionNo, startTime, endTime, cursor, size);
+        }
+        long afterId = (cursor == null || cursor.isEmpty()) ? 0L : CursorCodec.decode(cursor, 1)[0];
+        Limit limit = Limit.of(size + 1);
+        List<Transaction> transactions;
+        Set<String> grams = TransactionNoGramIndex.grams(transactionNo);
+        if (!grams.isEmpty()) {
+            transactions = transactionRepository.searchByTransactionNoGramsAfterId(transactionNo, grams, grams.size(), afterId, limit);
+        } else if (transactionNo != null && !transactionNo.isEmpty()) {
+            transactions = transactionRepository.findByTransactionNoContainingAndIdGreaterThanOrderByIdAsc(transactionNo, afterId, limit);
+        } else {
+            transactions = transactionRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit);
+        }
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            nextCursor = CursorCodec.encode(transactions.get(size - 1).getId());
+        }
+        return new CursorPageVO<>(transactions.stream().map(this::convertToVO).toList(), nextCursor);
+    }
+
+    /**
+     * 按(创建时间, ID)升序游标获取创建时间窗口内的交易，游标早于窗口下限时从窗口起点开始
+     */
+    private CursorPageVO<TransactionVO> scrollCreateTimeWindow(String transactionNo, Long startTime, Long endTime, String cursor, int size) {
+        long from = startTime != null ? startTime : Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            long[] after = CursorCodec.decode(cursor, 2);
+            if (after[0] >= from) {
+                from = after[0];
+                afterId = after[1];
+            }
+        }
+        List<Transaction> transactions = transactionRepository.findByCreateTimeWindowAfter(transactionNo != null ? transactionNo : "",
+                from, endTime != null ? endTime : Long.MAX_VALUE, afterId, Limit.of(size + 1));
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            Transaction last = transactions.get(size - 1);
+            nextCursor = CursorCodec.encode(last.getCreateTime(), last.getId());
+        }
+        return new CursorPageVO<>(transactions.stream().map(this::convertToVO).toList(), nextCursor);
+    }
+
+    /**
+     * 按账号获取交易记录，游标为上一页最后一条的(创建时间, ID)，每次多查一条用于判断是否还有下一页
+     * <p>
+     * 来源、收款账号分别走各自的(账号, 创建时间, ID)索引；ANY时两个索引各取一页后归并，
+     * 不使用OR条件，避免退化为扫描账号的全部记录再排序
+     *
+     * @param accountId 账号ID
+     * @param role      账号在交易中的角色
+     * @param cursor    上一页返回的游标，为空时从最新一条开始
+     * @param size      每页记录数
+     * @return 包含当前页数据和下一页游标的结果
+     * @throws BizException 如果size超出范围或游标不合法，则抛出BizException异常
+     */
+    public CursorPageVO<TransactionVO> listAccountTransactions(Long accountId, AccountRole role, String cursor, int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "size must be between 1 and " + MAX_SCROLL_SIZE + ".");
+        }
+        long[] before = (cursor == null || cursor.isEmpty()) ? new long[]{Long.MAX_VALUE, Long.MAX_VALUE} : CursorCodec.decode(cursor, 2);
+        Limit limit = Limit.of(size + 1);
+        List<Transaction> transactions = switch (role) {
+            case SOURCE -> transactionRepository.findBySourceAccountBefore(accountId, before[0], before[1], limit);
+            case TARGET -> transactionRepository.findByTargetAccountBefore(accountId, before[0], before[1], limit);
+            case ANY -> mergeAccountTransactions(
+                    transactionRepository.findBySourceAccountBefore(accountId, before[0], before[1], limit),
+                    transactionRepository.findByTargetAccountBefore(accountId, before[0], before[1], limit),
+                    size + 1);
+        };
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            Transaction last = transactions.get(size - 1);
+            nextCursor = CursorCodec.encode(last.getCreateTime(), last.getId());
+        }
+        return new CursorPageVO<>(transactions.stream().map(this::convertToVO).toList(), nextCursor);
+    }
+
+    /**
+     * 归并两个已按ACCOUNT_ORDER排好序的列表，来源和收款是同一账号的交易在两边各出现一次，只保留一条
+     *
+     * @param sources 作为来源账号的交易
+     * @param targets 作为收款账号的交易
+     * @param limit   最多返回的记录数
+     * @return 归并后的交易，按ACCOUNT_ORDER排序
+     */
+    static List<Transaction> mergeAccountTransactions(List<Transaction> sources, List<Transaction> targets, int limit) {
+        List<Transaction> merged = new ArrayList<>(Math.min(limit, sources.size() + targets.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < sources.size() || j < targets.size())) {
+            if (j >= targets.size()) {
+                merged.add(sources.get(i++));
+            } else if (i >= sources.size()) {
+                merged.add(targets.get(j++));
+            } else {
+                int order = ACCOUNT_ORDER.compare(sources.get(i), targets.get(j));
+                if (order == 0) {
+                    j++;
+                }
+                merged.add(order <= 0 ? sources.get(i++) : targets.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 导出交易记录，不限时间范围时按主键顺序读取全表，指定范围时按创建时间顺序只读取idx_create_time上的窗口
+     * <p>
+     * 通过只进游标逐条读取，写出后立即从持久化上下文中移除，不经过缓存，堆内存占用与表大小无关
+     *
+     * @param startTime    创建时间下限（包含），ms，为空时不限
+     * @param endTime      创建时间上限（不包含），ms，为空时不限
+     * @param format       导出格式
+     * @param outputStream 输出流，调用方负责关闭
+     * @return 导出的记录数
+     * @throws IOException 写入输出流失败时抛出
+     */
+    @Transactional(readOnly = true)
+    public long exportTransactions(Long startTime, Long endTime, ExportFormat format, OutputStream outputStream) throws IOException {
+        long from = startTime != null ? startTime : Long.MIN_VALUE;
+        long to = endTime != null ? endTime : Long.MAX_VALUE;
+        BufferedOutputStream out = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            out.write(TransactionCsv.HEADER.getBytes(StandardCharsets.UTF_8));
         }
-        return transactions.map(this::convertToVO);
+        long count = 0;
+        try (Stream<Transaction> transactions = startTime == null && endTime == null
+                ? transactionRepository.streamAll()
+                : transactionRepository.streamByCreateTime(from, to)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                TransactionVO vo = convertToVO(transaction);
+                if (format == ExportFormat.CSV) {
+                    out.write(TransactionCsv.line(vo).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(vo));
+                    out.write('\n');
+                }
+                entityManager.detach(transaction);
+                count++;
+            }
+        }
+        out.flush();
+        return count;
     }
 
     /**
      * 根据交易ID获取交易信息
      *
      * @param id 交易ID
-     * @return 包含交易信息的Optional<TransactionVO>对象，如果不存在则返回Optional.empty()
+     * @return 包含交易信息的Optional<TransactionVO>对象，如果不存在则返回Optional.empty()；写入缓冲中的交易同样可见
+     * <p>
+     * 写入缓冲和布隆过滤器判断不访问数据库，因此只有最后的投影查询在只读事务中执行，避免提前占用连接；
+     * 同一ID的并发未命中只执行一次查询，其余请求等待该次结果。
+     * 布隆过滤器只由本节点的写入、启动回填和失效广播维护，其他实例、直接执行的SQL写入的行不会记入，
+     * 因此判定不存在时仍查库确认，且不经过缓存，避免缓存中的空结果一直有效；查到时把ID补入过滤器，之后的查询正常缓存
+     * @throws BizException 如果交易已应答，但在写入缓冲提交时被数据库拒绝，则抛出BizException异常
      */
-    @Cacheable(value = "transactions", key = "#id")
+    @Cacheable(value = CacheConfig.TRANSACTION_CACHE, key = "#id", sync = true,
+            condition = "@transactionExistenceFilter.mightContainId(#id)")
     public Optional<TransactionVO> getTransactionById(Long id) {
-        Optional<Transaction> optionalTransaction = transactionRepository.findById(id);
-        return optionalTransaction.map(this::convertToVO);
+        if (transactionWriteBehind != null) {
+            Transaction pendingTransaction = transactionWriteBehind.getPending(id);
+            if (pendingTransaction != null) {
+                return Optional.of(convertToVO(pendingTransaction));
+            }
+            String rejection = transactionWriteBehind.getRejection(id);
+            if (rejection != null) {
+                throw new BizException(BizErrorEnum.TRANSACTION_REJECTED, "Transaction with id " + id + " was rejected by the database: " + rejection);
+            }
+        }
+        Optional<TransactionVO> transaction = transactionRepository.findVOById(id);
+        if (transaction.isPresent() && !transactionExistenceFilter.mightContainId(id)) {
+            transactionExistenceFilter.addId(id);
+        }
+        return transaction;
+    }
+
+    /**
+     * 删除创建时间早于before的交易
+     * <p>
+     * 每批在独立事务中沿idx_create_time取最早的PURGE_BATCH_SIZE条，按ID批量删除交易及其n-gram索引，
+     * 锁定的行数和事务大小与待清理的总量无关；提交后淘汰单条缓存，并像逐条删除一样发布事件以更新账号汇总和列表版本
+     *
+     * @param before 创建时间上限（不包含），ms
+     * @return 删除的记录数
+     */
+    public long purgeTransactions(long before) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Transaction> transactions = transactionRepository.findOldestBefore(before, Limit.of(PURGE_BATCH_SIZE));
+                if (transactions.isEmpty()) {
+                    return 0;
+                }
+                List<Long> ids = transactions.stream().map(Transaction::getId).toList();
+                transactionNoGramIndex.remove(ids);
+                transactionRepository.deleteAllByIdInBatch(ids);
+                Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_CACHE);
+                for (Transaction transaction : transactions) {
+                    if (cache != null) {
+                        cache.evict(transaction.getId());
+                    }
+                    eventPublisher.publishEvent(TransactionChangedEvent.deleted(transaction.getId(), Flow.of(transaction)));
+                }
+                return transactions.size();
+            });
+            purged += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        return purged;
+    }
+
+    /**
+     * 获取账号汇总，直接读取增量维护的计数，不访问数据库
+     *
+     * @param accountId 账号ID
+     * @return 账号汇总
+     */
+    public AccountSummaryVO getAccountSummary(Long accountId) {
+        return accountAggregates.get(accountId);
+    }
+
+    /**
+     * 按来源账号、收款账号分别分组汇总交易表后整体替换
+     * <p>
+     * 只读事务在开始时即取得数据库连接，之后才进入栅栏，避免栅栏阻塞的写事务占满连接池后重建拿不到连接
+     */
+    @Transactional(readOnly = true)
+    public void rebuildAccountSummaries() {
+        accountAggregates.rebuild(loader -> {
+            for (Object[] row : transactionRepository.sumBySourceAccount()) {
+                loader.outflow((Long) row[0], (BigDecimal) row[1], (Long) row[2]);
+            }
+            for (Object[] row : transactionRepository.sumByTargetAccount()) {
+                loader.inflow((Long) row[0], (BigDecimal) row[1], (Long) row[2]);
+            }
+        });
+    }
+
+    private BizException transactionDuplicated(String transactionNo) {
+        return new BizException(BizErrorEnum.TRANSACTION_DUPLICATED, "Transaction with transactionNo " + transactionNo + " already exists.");
+    }
+
+    /**
+     * 判断唯一约束冲突是否来自交易编号唯一索引
+     *
+     * @param e 数据完整性异常
+     * @return 冲突的是idx_transaction_no时返回true
+     */
+    public static boolean isTransactionNoConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(TRANSACTION_NO_INDEX);
+    }
+
+    /**
+     * 交易还在写入缓冲中时先提交到数据库，保证修改、删除作用在已落库的记录上，需在开启事务之前调用
+     *
+     * @param id 交易ID
+     */
+    private void flushIfPending(Long id) {
+        if (transactionWriteBehind != null) {
+            transactionWriteBehind.flushIfPending(id);
+        }
     }
 
     /**
@@ -120,7 +670,7 @@ public class TransactionServiceImpl implements TransactionService {
      * @param dto TransactionDTO对象
      * @return 转换后的Transaction实体对象
      */
-    private Transaction convertToEntity(TransactionDTO dto) {
+    Transaction convertToEntity(TransactionDTO dto) {
         Transaction transaction = new Transaction();
         transaction.setSourceAccountId(dto.getSourceAccountId());
         transaction.setTargetAccountId(dto.getTargetAccountId());
@@ -139,7 +689,7 @@ public class TransactionServiceImpl implements TransactionService {
      * @param transaction Transaction实体对象
      * @return 转换后的TransactionVO对象
      */
-    private TransactionVO convertToVO(Transaction transaction) {
+    TransactionVO convertToVO(Transaction transaction) {
         TransactionVO vo = new TransactionVO();
         vo.setId(transaction.getId());
         vo.setSourceAccountId(transaction.getSourceAccountId());
@@ -149,6 +699,7 @@ public class TransactionServiceImpl implements TransactionService {
         vo.setCreateTime(transaction.getCreateTime());
         vo.setUpdateTime(transaction.getUpdateTime());
         vo.setTransactionNo(transaction.getTransactionNo());
+        vo.setVersion(transaction.getVersion());
         return vo;
     }
 }
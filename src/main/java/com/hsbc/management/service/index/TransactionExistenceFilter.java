@@ -0,0 +1,303 @@
+package com.hsbc.management.service.index;
+
+import com.hsbc.management.dao.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 交易编号和交易ID的布隆过滤器
+ * <p>
+ * 判定为不存在时一定不存在，可以跳过数据库查询；判定为可能存在时仍需查库确认。
+ * 写入在数据库操作之后立即加入过滤器，启动时按主键分批回填已有数据，回填完成前一律判定为可能存在。
+ * 布隆过滤器不支持删除，已删除的交易会一直被判定为可能存在，只影响命中率不影响正确性。
+ * <p>
+ * 配置了快照文件时，正常关闭会把位图连同当时的最大ID、总行数写入快照；下次启动先载入快照，只回填快照之后新增的交易。
+ * 快照载入后即删除，且只有库中ID不大于快照最大ID的行数与快照一致时才采用，否则全量回填。
+ */
+@Slf4j
+@Component
+public class TransactionExistenceFilter implements ApplicationRunner {
+
+    private static final int SEED_BATCH_SIZE = 10000;
+
+    private static final int SNAPSHOT_MAGIC = 0x54584246;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final Bloom transactionNos;
+
+    private final Bloom ids;
+
+    /**
+     * 快照文件，为空时不使用快照
+     */
+    private final Path snapshot;
+
+    private volatile boolean ready;
+
+    public TransactionExistenceFilter(@Value("${transaction.existence-filter.expected-insertions:10000000}") long expectedInsertions,
+                                      @Value("${transaction.existence-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+                                      @Value("${transaction.existence-filter.snapshot:}") String snapshot) {
+        this.transactionNos = new Bloom(expectedInsertions, falsePositiveProbability);
+        this.ids = new Bloom(expectedInsertions, falsePositiveProbability);
+        this.snapshot = snapshot.isEmpty() ? null : Paths.get(snapshot);
+    }
+
+    /**
+     * 交易编号是否可能已存在
+     *
+     * @param transactionNo 交易编号
+     * @return false表示一定不存在
+     */
+    public boolean mightContainTransactionNo(String transactionNo) {
+        return !ready || transactionNos.mightContain(hash(transactionNo));
+    }
+
+    /**
+     * 交易ID是否可能已存在
+     *
+     * @param id 交易ID
+     * @return false表示一定不存在
+     */
+    public boolean mightContainId(Long id) {
+        return !ready || ids.mightContain(mix(id));
+    }
+
+    /**
+     * 记录新写入的交易，需在插入语句执行之后调用；事务回滚只会留下误判，不影响正确性
+     *
+     * @param id            交易ID
+     * @param transactionNo 交易编号
+     */
+    public void add(Long id, String transactionNo) {
+        ids.put(mix(id));
+        transactionNos.put(hash(transactionNo));
+    }
+
+    /**
+     * 只记录交易ID，用于其他节点新建的交易：对端只广播ID，交易编号的查重由唯一索引兜底
+     *
+     * @param id 交易ID
+     */
+    public void addId(Long id) {
+        ids.put(mix(id));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        long seeded = seed(loadSnapshot());
+        ready = true;
+        log.info("seeded transaction existence filter with {} transactions in {} ms", seeded, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 按主键从头重新回填，补上其他节点新建但未收到广播的交易；过滤器只增不删，可以与写入并发执行
+     *
+     * @return 扫描的交易数
+     */
+    public long resync() {
+        return seed(0L);
+    }
+
+    private long seed(long lastId) {
+        long seeded = 0L;
+        List<Object[]> batch;
+        do {
+            batch = transactionRepository.findIdAndTransactionNoAfterId(lastId, Limit.of(SEED_BATCH_SIZE));
+            for (Object[] row : batch) {
+                add((Long) row[0], (String) row[1]);
+            }
+            seeded += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = (Long) batch.get(batch.size() - 1)[0];
+            }
+        } while (batch.size() == SEED_BATCH_SIZE);
+        return seeded;
+    }
+
+    /**
+     * 载入快照并删除快照文件，避免异常退出后沿用过期的快照
+     *
+     * @return 快照覆盖的最大ID，之后只需回填更大的ID；没有可用快照时返回0
+     */
+    private long loadSnapshot() {
+        if (snapshot == null || !Files.exists(snapshot)) {
+            return 0L;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("ignored existence filter snapshot {}: unknown format", snapshot);
+                return 0L;
+            }
+            long maxId = in.readLong();
+            long count = in.readLong();
+            if (transactionRepository.count() - transactionRepository.countByIdGreaterThan(maxId) != count) {
+                log.warn("ignored existence filter snapshot {}: database changed since the snapshot", snapshot);
+                return 0L;
+            }
+            if (!ids.readFrom(in) || !transactionNos.readFrom(in)) {
+                log.warn("ignored existence filter snapshot {}: filter size changed", snapshot);
+                return 0L;
+            }
+            log.info("loaded existence filter snapshot of {} transactions up to id {}", count, maxId);
+            return maxId;
+        } catch (IOException e) {
+            log.warn("ignored existence filter snapshot {}: {}", snapshot, e.getMessage());
+            return 0L;
+        } finally {
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException e) {
+                log.warn("failed to delete existence filter snapshot {}", snapshot, e);
+            }
+        }
+    }
+
+    /**
+     * 正常关闭时写入快照，此时Web容器和其他写入方已停止；先写临时文件再原子替换
+     */
+    @PreDestroy
+    public void saveSnapshot() {
+        if (snapshot == null || !ready) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Long maxId = transactionRepository.findMaxId();
+        long count = transactionRepository.count();
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            if (snapshot.getParent() != null) {
+                Files.createDirectories(snapshot.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(maxId == null ? 0L : maxId);
+                out.writeLong(count);
+                ids.writeTo(out);
+                transactionNos.writeTo(out);
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("saved existence filter snapshot of {} transactions in {} ms", count, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("failed to save existence filter snapshot {}", snapshot, e);
+        }
+    }
+
+    /**
+     * 64位FNV-1a，再经过mix打散
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * splitmix64的终结函数
+     */
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 基于AtomicLongArray的无锁布隆过滤器，k个位置由64位哈希的高低两半做双重哈希得到
+     */
+    static final class Bloom {
+
+        private final AtomicLongArray words;
+
+        private final long bitCount;
+
+        private final int hashCount;
+
+        Bloom(long expectedInsertions, double falsePositiveProbability) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + (long) i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = words.get(word);
+                while ((current & mask) == 0) {
+                    long witness = words.compareAndExchange(word, current, current | mask);
+                    if (witness == current) {
+                        break;
+                    }
+                    current = witness;
+                }
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + (long) i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(bitCount);
+            out.writeInt(hashCount);
+            for (int i = 0; i < words.length(); i++) {
+                out.writeLong(words.get(i));
+            }
+        }
+
+        /**
+         * 把快照中的位并入当前位图，载入期间并发写入的位不会丢失
+         *
+         * @return 快照的位图大小与当前不一致时返回false，不做任何修改
+         */
+        boolean readFrom(DataInputStream in) throws IOException {
+            if (in.readLong() != bitCount || in.readInt() != hashCount) {
+                return false;
+            }
+            for (int i = 0; i < words.length(); i++) {
+                long word = in.readLong();
+                if (word != 0) {
+                    words.getAndAccumulate(i, word, (a, b) -> a | b);
+                }
+            }
+            return true;
+        }
+
+        private long index(long combined) {
+            return (combined < 0 ? ~combined : combined) % bitCount;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.hsbc.management.service.index;
+
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.entity.TransactionNoGram;
+import com.hsbc.management.dao.TransactionNoGramRepository;
+import com.hsbc.management.dao.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 交易编号trigram倒排索引
+ * <p>
+ * 索引行与交易在同一事务中写入和删除，保证与交易表一致；
+ * 启动时若索引表为空而交易表有数据（例如从旧版本升级），会按主键分批回填。
+ */
+@Slf4j
+@Component
+public class TransactionNoGramIndex implements ApplicationRunner {
+
+    /**
+     * gram长度，短于该长度的搜索词无法使用索引
+     */
+    public static final int GRAM_LENGTH = 3;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private TransactionNoGramRepository transactionNoGramRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    /**
+     * 拆分出字符串中去重后的全部trigram
+     *
+     * @param value 交易编号或搜索词
+     * @return trigram集合，长度不足时返回空集合
+     */
+    public static Set<String> grams(String value) {
+        if (value == null || value.length() < GRAM_LENGTH) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * 为交易写入索引，需在交易写入的同一事务中调用
+     *
+     * @param transactions 已分配ID的交易
+     */
+    public void index(Collection<Transaction> transactions) {
+        List<TransactionNoGram> rows = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            for (String gram : grams(transaction.getTransactionNo())) {
+                rows.add(new TransactionNoGram(gram, transaction.getId()));
+            }
+        }
+        transactionNoGramRepository.saveAll(rows);
+    }
+
+    /**
+     * 为单条交易写入索引，需在交易写入的同一事务中调用
+     *
+     * @param transaction 已分配ID的交易
+     */
+    public void index(Transaction transaction) {
+        index(Collections.singletonList(transaction));
+    }
+
+    /**
+     * 删除交易的索引，需在交易删除的同一事务中调用
+     *
+     * @param transactionId 交易ID
+     */
+    public void remove(Long transactionId) {
+        transactionNoGramRepository.deleteByTransactionId(transactionId);
+    }
+
+    /**
+     * 批量删除交易的索引，需在交易删除的同一事务中调用
+     *
+     * @param transactionIds 交易ID集合
+     */
+    public void remove(Collection<Long> transactionIds) {
+        transactionNoGramRepository.deleteByTransactionIdIn(transactionIds);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (transactionNoGramRepository.count() > 0 || transactionRepository.count() == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        long indexed = 0L;
+        List<Transaction> batch;
+        do {
+            batch = transactionRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            index(batch);
+            indexed += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("rebuilt transactionNo gram index for {} transactions in {} ms", indexed, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,456 @@
+package com.hsbc.management.service.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.AccountRole;
+import com.hsbc.management.common.CursorCodec;
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.TransactionCsv;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.event.TransactionChangedEvent.Flow;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionBatchItemVO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.TransactionService;
+import com.hsbc.management.service.account.AccountAggregates;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 基于内存存储的交易服务，通过memory-engine profile启用，替代基于JPA的实现
+ * <p>
+ * 读取直接从列存储构造视图对象，不经过实体、持久化上下文和缓存；写入由TransactionStore记录日志后应答。
+ * 写入不经过数据库事务，修改存储和发布事件在账号汇总的栅栏内完成。
+ * 交易编号模糊搜索、按账号和按创建时间范围查询为顺序扫描，不使用trigram索引、账号索引和创建时间索引。
+ */
+@Service
+@Profile(MemoryTransactionService.PROFILE)
+public class MemoryTransactionService implements TransactionService {
+
+    public static final String PROFILE = "memory-engine";
+
+    private static final int MAX_SCROLL_SIZE = 1000;
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 创建时间升序，同一毫秒内ID升序，按账号查询时堆顶为已选记录中最旧的一条
+     */
+    private static final Comparator<TransactionVO> OLDEST_FIRST =
+            Comparator.comparing(TransactionVO::getCreateTime).thenComparing(TransactionVO::getId);
+
+    @Autowired
+    private TransactionStore transactionStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountAggregates accountAggregates;
+
+    /**
+     * 创建交易
+     *
+     * @param dto 包含交易信息的DTO对象
+     * @return 新建的交易对象
+     * @throws BizException 如果transactionNo已存在，则抛出BizException异常
+     */
+    public TransactionVO createTransaction(TransactionDTO dto) {
+        TransactionVO transaction = accountAggregates.write(() -> create(dto));
+        if (transaction == null) {
+            throw new BizException(BizErrorEnum.TRANSACTION_DUPLICATED, "Transaction with transactionNo " + dto.getTransactionNo() + " already exists.");
+        }
+        return transaction;
+    }
+
+    /**
+     * 批量创建交易，逐条校验和写入，单条失败不影响其他记录
+     *
+     * @param dtos 待创建的交易列表
+     * @return 与请求顺序一致的逐条创建结果
+     */
+    public List<TransactionBatchItemVO> batchCreateTransactions(List<TransactionDTO> dtos) {
+        List<TransactionBatchItemVO> results = new ArrayList<>(dtos.size());
+        Set<String> batchNos = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            TransactionDTO dto = dtos.get(i);
+            TransactionBatchItemVO item = new TransactionBatchItemVO();
+            item.setIndex(i);
+            results.add(item);
+            if (dto == null) {
+                item.setMsg("transaction不能为空");
+                continue;
+            }
+            item.setTransactionNo(dto.getTransactionNo());
+            Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                Map<String, String> errors = new HashMap<>();
+                violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+                item.setMsg(errors.toString());
+                continue;
+            }
+            if (!batchNos.add(dto.getTransactionNo())) {
+                item.setMsg("Transaction with transactionNo " + dto.getTransactionNo() + " is duplicated in batch.");
+                continue;
+            }
+            TransactionVO transaction = accountAggregates.write(() -> create(dto));
+            if (transaction == null) {
+                item.setMsg("Transaction with transactionNo " + dto.getTransactionNo() + " already exists.");
+                continue;
+            }
+            item.setSuccess(true);
+            item.setTransaction(transaction);
+        }
+        return results;
+    }
+
+    /**
+     * 删除交易
+     *
+     * @param id 交易ID
+     * @throws BizException 如果交易ID不存在，则抛出BizException异常
+     */
+    public void deleteTransaction(Long id) {
+        TransactionVO deleted = accountAggregates.write(() -> delete(id));
+        if (deleted == null) {
+            throw new BizException(BizErrorEnum.TRANSACTION_NOT_FOUND, "Transaction with id " + id + " does not exist.");
+        }
+    }
+
+    /**
+     * 修改交易
+     *
+     * @param id  交易ID
+     * @param dto 包含修改信息的DTO对象
+     * @return 修改后的交易对象
+     * @throws BizException 如果交易ID不存在，则抛出BizException异常
+     */
+    public TransactionVO modifyTransaction(Long id, TransactionModifyDTO dto) {
+        TransactionStore.Change change = accountAggregates.write(() -> {
+            TransactionStore.Change modified = transactionStore.modify(id, dto);
+            if (modified != null) {
+                eventPublisher.publishEvent(TransactionChangedEvent.modified(id, Flow.of(modified.before()), Flow.of(modified.after())));
+            }
+            return modified;
+        });
+        if (change == null) {
+            throw new BizException(BizErrorEnum.TRANSACTION_NOT_FOUND, "Transaction with id " + id + " does not exist.");
+        }
+        return change.after();
+    }
+
+    /**
+     * 按ID顺序分页，未指定交易编号时总数直接取自存储，指定时需要完整扫描一遍计数
+     * <p>
+     * 指定创建时间范围时扫描一遍，保留窗口内最早的offset+size条后按创建时间、ID升序取当前页
+     *
+     * @param transactionNo 交易编号，用于筛选交易记录
+     * @param startTime     创建时间下限（包含），ms，为空时不限
+     * @param endTime       创建时间上限（不包含），ms，为空时不限
+     * @param pageable      分页参数
+     * @return 包含交易记录的分页列表
+     */
+    public Page<TransactionVO> listAllTransactions(String transactionNo, Long startTime, Long endTime, Pageable pageable) {
+        if (startTime != null || endTime != null) {
+            long[] matched = new long[1];
+            int limit = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+            List<TransactionVO> earliest = earliestInWindow(transactionNo, startTime != null ? startTime : Long.MIN_VALUE,
+                    endTime != null ? endTime : Long.MAX_VALUE, Long.MIN_VALUE, limit, matched);
+            List<TransactionVO> content = earliest.subList((int) Math.min(earliest.size(), pageable.getOffset()), earliest.size());
+            return new PageImpl<>(new ArrayList<>(content), pageable, matched[0]);
+        }
+        boolean filtered = transactionNo != null && !transactionNo.isEmpty();
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        List<TransactionVO> content = new ArrayList<>(size);
+        long[] matched = new long[1];
+        transactionStore.scan(0L, row -> {
+            if (filtered && !row.getTransactionNo().contains(transactionNo)) {
+                return true;
+            }
+            long position = matched[0]++;
+            if (position >= offset && content.size() < size) {
+                content.add(row.toVO());
+            }
+            return filtered || content.size() < size;
+        });
+        return new PageImpl<>(content, pageable, filtered ? matched[0] : transactionStore.size());
+    }
+
+    /**
+     * 按主键游标滚动获取交易记录，每次多取一条用于判断是否还有下一页
+     * <p>
+     * 指定创建时间范围时按(创建时间, ID)游标翻页，与JPA实现的游标格式一致
+     *
+     * @param transactionNo 交易编号，用于筛选交易记录
+     * @param startTime     创建时间下限（包含），ms，为空时不限
+     * @param endTime       创建时间上限（不包含），ms，为空时不限
+     * @param cursor        上一页返回的游标，为空时从第一条开始
+     * @param size          每页记录数
+     * @return 包含当前页数据和下一页游标的结果
+     * @throws BizException 如果size超出范围或游标不合法，则抛出BizException异常
+     */
+    public CursorPageVO<TransactionVO> scrollTransactions(String transactionNo, Long startTime, Long endTime, String cursor, int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "size must be between 1 and " + MAX_SCROLL_SIZE + ".");
+        }
+        if (startTime != null || endTime != null) {
+            long from = startTime != null ? startTime : Long.MIN_VALUE;
+            long afterId = Long.MIN_VALUE;
+            if (cursor != null && !cursor.isEmpty()) {
+                long[] after = CursorCodec.decode(cursor, 2);
+                if (after[0] >= from) {
+                    from = after[0];
+                    afterId = after[1];
+                }
+            }
+            List<TransactionVO> transactions = earliestInWindow(transactionNo, from, endTime != null ? endTime : Long.MAX_VALUE,
+                    afterId, size + 1, new long[1]);
+            String nextCursor = null;
+            if (transactions.size() > size) {
+                transactions = transactions.subList(0, size);
+                TransactionVO last = transactions.get(size - 1);
+                nextCursor = CursorCodec.encode(last.getCreateTime(), last.getId());
+            }
+            return new CursorPageVO<>(transactions, nextCursor);
+        }
+        long afterId = (cursor == null || cursor.isEmpty()) ? 0L : CursorCodec.decode(cursor, 1)[0];
+        boolean filtered = transactionNo != null && !transactionNo.isEmpty();
+        List<TransactionVO> transactions = new ArrayList<>(size + 1);
+        transactionStore.scan(afterId, row -> {
+            if (!filtered || row.getTransactionNo().contains(transactionNo)) {
+                transactions.add(row.toVO());
+            }
+            return transactions.size() <= size;
+        });
+        String nextCursor = null;
+        List<TransactionVO> page = transactions;
+        if (transactions.size() > size) {
+            page = transactions.subList(0, size);
+            nextCursor = CursorCodec.encode(page.get(size - 1).getId());
+        }
+        return new CursorPageVO<>(page, nextCursor);
+    }
+
+    /**
+     * 扫描一遍，用大顶堆保留创建时间在[from, to)内、排在(from, afterId)之后最早的limit条
+     *
+     * @param matched 输出参数，累计窗口内匹配的总条数
+     * @return 按创建时间、ID升序的记录
+     */
+    private List<TransactionVO> earliestInWindow(String transactionNo, long from, long to, long afterId, int limit, long[] matched) {
+        boolean filtered = transactionNo != null && !transactionNo.isEmpty();
+        PriorityQueue<TransactionVO> earliest = new PriorityQueue<>(Math.min(limit, MAX_SCROLL_SIZE) + 1, OLDEST_FIRST.reversed());
+        transactionStore.scan(0L, row -> {
+            long createTime = row.getCreateTime();
+            if (createTime < from || createTime >= to || (createTime == from && row.getId() <= afterId)
+                    || (filtered && !row.getTransactionNo().contains(transactionNo))) {
+                return true;
+            }
+            matched[0]++;
+            TransactionVO newest = earliest.peek();
+            if (earliest.size() < limit) {
+                earliest.add(row.toVO());
+            } else if (createTime < newest.getCreateTime() || (createTime == newest.getCreateTime() && row.getId() < newest.getId())) {
+                earliest.poll();
+                earliest.add(row.toVO());
+            }
+            return true;
+        });
+        List<TransactionVO> transactions = new ArrayList<>(earliest);
+        transactions.sort(OLDEST_FIRST);
+        return transactions;
+    }
+
+    /**
+     * 按账号获取交易记录，扫描一遍并用小顶堆保留游标之前最新的size+1条，按创建时间、ID倒序返回
+     *
+     * @param accountId 账号ID
+     * @param role      账号在交易中的角色
+     * @param cursor    上一页返回的游标，为空时从最新一条开始
+     * @param size      每页记录数
+     * @return 包含当前页数据和下一页游标的结果
+     * @throws BizException 如果size超出范围或游标不合法，则抛出BizException异常
+     */
+    public CursorPageVO<TransactionVO> listAccountTransactions(Long accountId, AccountRole role, String cursor, int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BizException(BizErrorEnum.INVALID_PARAM, "size must be between 1 and " + MAX_SCROLL_SIZE + ".");
+        }
+        long[] before = (cursor == null || cursor.isEmpty()) ? new long[]{Long.MAX_VALUE, Long.MAX_VALUE} : CursorCodec.decode(cursor, 2);
+        PriorityQueue<TransactionVO> newest = new PriorityQueue<>(size + 2, OLDEST_FIRST);
+        transactionStore.scan(0L, row -> {
+            boolean matched = switch (role) {
+                case SOURCE -> row.getSourceAccountId() == accountId;
+                case TARGET -> row.getTargetAccountId() == accountId;
+                case ANY -> row.getSourceAccountId() == accountId || row.getTargetAccountId() == accountId;
+            };
+            long createTime = row.getCreateTime();
+            if (!matched || createTime > before[0] || (createTime == before[0] && row.getId() >= before[1])) {
+                return true;
+            }
+            TransactionVO oldest = newest.peek();
+            if (newest.size() <= size) {
+                newest.add(row.toVO());
+            } else if (createTime > oldest.getCreateTime() || (createTime == oldest.getCreateTime() && row.getId() > oldest.getId())) {
+                newest.poll();
+                newest.add(row.toVO());
+            }
+            return true;
+        });
+        List<TransactionVO> transactions = new ArrayList<>(newest);
+        transactions.sort(OLDEST_FIRST.reversed());
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            TransactionVO last = transactions.get(size - 1);
+            nextCursor = CursorCodec.encode(last.getCreateTime(), last.getId());
+        }
+        return new CursorPageVO<>(transactions, nextCursor);
+    }
+
+    /**
+     * 按主键顺序导出交易记录，逐行写出，不在内存中累积
+     *
+     * @param startTime    创建时间下限（包含），ms，为空时不限
+     * @param endTime      创建时间上限（不包含），ms，为空时不限
+     * @param format       导出格式
+     * @param outputStream 输出流，调用方负责关闭
+     * @return 导出的记录数
+     * @throws IOException 写入输出流失败时抛出
+     */
+    public long exportTransactions(Long startTime, Long endTime, ExportFormat format, OutputStream outputStream) throws IOException {
+        long from = startTime != null ? startTime : Long.MIN_VALUE;
+        long to = endTime != null ? endTime : Long.MAX_VALUE;
+        BufferedOutputStream out = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            out.write(TransactionCsv.HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+        long[] count = new long[1];
+        try {
+            transactionStore.scan(0L, row -> {
+                if (row.getCreateTime() < from || row.getCreateTime() >= to) {
+                    return true;
+                }
+                try {
+                    TransactionVO vo = row.toVO();
+                    if (format == ExportFormat.CSV) {
+                        out.write(TransactionCsv.line(vo).getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        out.write(objectMapper.writeValueAsBytes(vo));
+                        out.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        return count[0];
+    }
+
+    /**
+     * 扫描一遍收集创建时间早于before的交易ID，再逐条在栅栏内删除并发布事件
+     *
+     * @param before 创建时间上限（不包含），ms
+     * @return 删除的记录数
+     */
+    public long purgeTransactions(long before) {
+        List<Long> ids = new ArrayList<>();
+        transactionStore.scan(0L, row -> {
+            if (row.getCreateTime() < before) {
+                ids.add(row.getId());
+            }
+            return true;
+        });
+        long purged = 0;
+        for (Long id : ids) {
+            if (accountAggregates.write(() -> delete(id)) != null) {
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * 获取账号汇总，直接读取增量维护的计数
+     *
+     * @param accountId 账号ID
+     * @return 账号汇总
+     */
+    public AccountSummaryVO getAccountSummary(Long accountId) {
+        return accountAggregates.get(accountId);
+    }
+
+    /**
+     * 扫描一遍存储重建全部账号汇总
+     */
+    public void rebuildAccountSummaries() {
+        accountAggregates.rebuild(loader -> transactionStore.scan(0L, row -> {
+            BigDecimal amount = row.getAmount();
+            loader.outflow(row.getSourceAccountId(), amount, 1);
+            loader.inflow(row.getTargetAccountId(), amount, 1);
+            return true;
+        }));
+    }
+
+    /**
+     * 根据交易ID获取交易信息
+     *
+     * @param id 交易ID
+     * @return 包含交易信息的Optional<TransactionVO>对象，如果不存在则返回Optional.empty()
+     */
+    public Optional<TransactionVO> getTransactionById(Long id) {
+        return Optional.ofNullable(transactionStore.get(id));
+    }
+
+    /**
+     * 从存储删除并发布事件，交易不存在时返回null
+     */
+    private TransactionVO delete(Long id) {
+        TransactionVO before = transactionStore.delete(id);
+        if (before != null) {
+            eventPublisher.publishEvent(TransactionChangedEvent.deleted(id, Flow.of(before)));
+        }
+        return before;
+    }
+
+    /**
+     * 写入存储并发布事件，交易编号已存在时返回null
+     */
+    private TransactionVO create(TransactionDTO dto) {
+        TransactionVO transaction = transactionStore.create(dto);
+        if (transaction != null) {
+            eventPublisher.publishEvent(TransactionChangedEvent.created(transaction));
+        }
+        return transaction;
+    }
+}
@@ -0,0 +1,690 @@
+package com.hsbc.management.service.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+/**
+ * 内存交易存储
+ * <p>
+ * 按列保存在定长分段的基本类型数组中，交易ID由存储按序分配，ID减一即为行号，不需要主键索引；
+ * 交易编号通过ConcurrentHashMap建立唯一索引，putIfAbsent同时完成查重和占位。
+ * 行按行号分散到一组StampedLock上：读取先乐观读再校验，冲突时才加读锁；写入持有行所在的锁，
+ * 在锁内先追加日志再修改列，释放锁后等待组提交落盘，应答前变更已经持久化。
+ * 日志超过阈值后切换到新一代文件并写入快照，启动时载入快照再重放快照之后的日志。
+ */
+@Slf4j
+@Component
+@Profile(MemoryTransactionService.PROFILE)
+public class TransactionStore {
+
+    private static final int SEGMENT_BITS = 16;
+
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private static final int STRIPES = 1024;
+
+    private static final byte LIVE = 1;
+
+    private static final byte DELETED = 2;
+
+    /**
+     * 金额按分保存为long，超出范围时列中存放该标记，实际金额保存在largeAmounts中
+     */
+    private static final long LARGE_AMOUNT = Long.MIN_VALUE;
+
+    private static final int SNAPSHOT_MAGIC = 0x54584d56;
+
+    /**
+     * 加入版本号之前的快照格式，行中没有版本号，载入时按0处理
+     */
+    private static final int SNAPSHOT_MAGIC_WITHOUT_VERSION = 0x54584d53;
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    /**
+     * 一个分段内的列
+     */
+    private static final class Segment {
+        final byte[] state = new byte[SEGMENT_SIZE];
+        final String[] transactionNo = new String[SEGMENT_SIZE];
+        final long[] sourceAccountId = new long[SEGMENT_SIZE];
+        final long[] targetAccountId = new long[SEGMENT_SIZE];
+        final long[] amount = new long[SEGMENT_SIZE];
+        final String[] description = new String[SEGMENT_SIZE];
+        final long[] createTime = new long[SEGMENT_SIZE];
+        final long[] updateTime = new long[SEGMENT_SIZE];
+        final long[] version = new long[SEGMENT_SIZE];
+    }
+
+    /**
+     * 扫描时复用的行缓冲，只在回调内有效
+     */
+    public static final class Row {
+        private long id;
+        private String transactionNo;
+        private long sourceAccountId;
+        private long targetAccountId;
+        private long amount;
+        private BigDecimal largeAmount;
+        private String description;
+        private long createTime;
+        private long updateTime;
+        private long version;
+
+        public long getId() {
+            return id;
+        }
+
+        public String getTransactionNo() {
+            return transactionNo;
+        }
+
+        public long getSourceAccountId() {
+            return sourceAccountId;
+        }
+
+        public long getTargetAccountId() {
+            return targetAccountId;
+        }
+
+        public long getCreateTime() {
+            return createTime;
+        }
+
+        public BigDecimal getAmount() {
+            return amount == LARGE_AMOUNT ? largeAmount : BigDecimal.valueOf(amount, 2);
+        }
+
+        public TransactionVO toVO() {
+            TransactionVO vo = new TransactionVO();
+            vo.setId(id);
+            vo.setTransactionNo(transactionNo);
+            vo.setSourceAccountId(sourceAccountId);
+            vo.setTargetAccountId(targetAccountId);
+            vo.setAmount(getAmount());
+            vo.setDescription(description);
+            vo.setCreateTime(createTime);
+            vo.setUpdateTime(updateTime);
+            vo.setVersion(version);
+            return vo;
+        }
+    }
+
+    private final Path directory;
+
+    private final long snapshotThresholdBytes;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile Segment[] segments = new Segment[0];
+
+    private final ReentrantLock growLock = new ReentrantLock();
+
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final AtomicLong liveCount = new AtomicLong();
+
+    private final ConcurrentHashMap<String, Long> transactionNoIndex = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, BigDecimal> largeAmounts = new ConcurrentHashMap<>();
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private TransactionStoreJournal journal;
+
+    private ScheduledExecutorService snapshotExecutor;
+
+    public TransactionStore(@Value("${transaction.memory-engine.directory:data/memory-engine}") String directory,
+                            @Value("${transaction.memory-engine.snapshot-threshold-bytes:67108864}") long snapshotThresholdBytes,
+                            ObjectMapper objectMapper) {
+        this.directory = Paths.get(directory);
+        this.snapshotThresholdBytes = snapshotThresholdBytes;
+        this.objectMapper = objectMapper;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * 载入快照、重放日志，然后打开新一代日志接收写入
+     */
+    @PostConstruct
+    public void start() {
+        long start = System.currentTimeMillis();
+        TransactionStoreJournal recovery = new TransactionStoreJournal(directory, objectMapper);
+        long replayFrom = loadSnapshot();
+        long loaded = liveCount.get();
+        long replayed = 0;
+        long lastGeneration = replayFrom - 1;
+        for (Long generation : TransactionStoreJournal.generationsFrom(directory, replayFrom)) {
+            replayed += recovery.replay(generation, record -> {
+                if (TransactionStoreJournal.OP_PUT.equals(record.op()) && record.transaction() != null) {
+                    put(record.transaction(), false);
+                } else if (TransactionStoreJournal.OP_DELETE.equals(record.op()) && record.id() != null) {
+                    remove(record.id(), false, null);
+                }
+            });
+            lastGeneration = generation;
+        }
+        journal = new TransactionStoreJournal(directory, objectMapper);
+        journal.open(Math.max(lastGeneration + 1, replayFrom));
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-store-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotIfNeeded, 1, 1, TimeUnit.SECONDS);
+        log.info("recovered {} transactions ({} from snapshot, {} journal records) in {} ms",
+                liveCount.get(), loaded, replayed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 停止前写入快照，下次启动无需重放日志
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        snapshotExecutor.shutdown();
+        snapshot();
+        journal.close();
+    }
+
+    /**
+     * 按ID读取交易
+     *
+     * @param id 交易ID
+     * @return 交易，不存在时返回null
+     */
+    public TransactionVO get(long id) {
+        int slot = slot(id);
+        if (slot < 0) {
+            return null;
+        }
+        Segment segment = segment(slot, false);
+        Row row = new Row();
+        return segment != null && read(slot, segment, row) ? row.toVO() : null;
+    }
+
+    /**
+     * 创建交易并等待日志落盘
+     *
+     * @param dto 交易信息
+     * @return 新建的交易，交易编号已存在时返回null
+     */
+    public TransactionVO create(TransactionDTO dto) {
+        long id = nextId.getAndIncrement();
+        if (transactionNoIndex.putIfAbsent(dto.getTransactionNo(), id) != null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionNo(dto.getTransactionNo());
+        transaction.setSourceAccountId(dto.getSourceAccountId());
+        transaction.setTargetAccountId(dto.getTargetAccountId());
+        transaction.setAmount(scaled(dto.getAmount()));
+        transaction.setDescription(dto.getDescription());
+        transaction.setCreateTime(now);
+        transaction.setUpdateTime(now);
+        transaction.setVersion(0L);
+        long offset;
+        try {
+            offset = put(transaction, true);
+        } catch (RuntimeException e) {
+            transactionNoIndex.remove(dto.getTransactionNo(), id);
+            throw e;
+        }
+        journal.sync(offset);
+        return toVO(transaction);
+    }
+
+    /**
+     * 一次修改前后的交易
+     *
+     * @param before 修改前
+     * @param after  修改后
+     */
+    public record Change(TransactionVO before, TransactionVO after) {
+    }
+
+    /**
+     * 修改交易并等待日志落盘，dto带有版本号时在行锁内与当前版本比较
+     *
+     * @param id  交易ID
+     * @param dto 修改内容
+     * @return 修改前后的交易，不存在时返回null
+     * @throws BizException 与期望的版本号不一致
+     */
+    public Change modify(long id, TransactionModifyDTO dto) {
+        int slot = slot(id);
+        Segment segment = slot < 0 ? null : segment(slot, false);
+        if (segment == null) {
+            return null;
+        }
+        int index = slot & SEGMENT_MASK;
+        Row before = new Row();
+        Transaction transaction;
+        long offset;
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.writeLock();
+        try {
+            if (!copy(slot, segment, before)) {
+                return null;
+            }
+            if (dto.getVersion() != null && dto.getVersion() != before.version) {
+                throw new BizException(BizErrorEnum.VERSION_CONFLICT, "Transaction with id " + id + " has been modified, current version is "
+                        + before.version + ".");
+            }
+            transaction = new Transaction();
+            transaction.setId(id);
+            transaction.setTransactionNo(segment.transactionNo[index]);
+            transaction.setSourceAccountId(dto.getSourceAccountId());
+            transaction.setTargetAccountId(dto.getTargetAccountId());
+            transaction.setAmount(scaled(dto.getAmount()));
+            transaction.setDescription(dto.getDescription());
+            transaction.setCreateTime(segment.createTime[index]);
+            transaction.setUpdateTime(System.currentTimeMillis());
+            transaction.setVersion(before.version + 1);
+            offset = journal.appendPut(transaction);
+            write(segment, index, transaction);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        journal.sync(offset);
+        return new Change(before.toVO(), toVO(transaction));
+    }
+
+    /**
+     * 删除交易并等待日志落盘
+     *
+     * @param id 交易ID
+     * @return 删除前的交易，不存在时返回null
+     */
+    public TransactionVO delete(long id) {
+        Row before = new Row();
+        long offset = remove(id, true, before);
+        if (offset < 0) {
+            return null;
+        }
+        journal.sync(offset);
+        return before.toVO();
+    }
+
+    /**
+     * 当前交易数
+     */
+    public long size() {
+        return liveCount.get();
+    }
+
+    /**
+     * 按ID升序扫描交易
+     *
+     * @param afterId 从大于该ID的交易开始
+     * @param visitor 处理每一行，返回false时停止扫描；Row在回调之外不可使用
+     */
+    public void scan(long afterId, Predicate<Row> visitor) {
+        long end = nextId.get() - 1;
+        Row row = new Row();
+        for (long slot = Math.max(afterId, 0); slot < end; slot++) {
+            Segment segment = segment((int) slot, false);
+            if (segment == null) {
+                slot |= SEGMENT_MASK;
+                continue;
+            }
+            if (segment.state[(int) slot & SEGMENT_MASK] == LIVE && read((int) slot, segment, row) && !visitor.test(row)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 日志超过阈值时写入快照
+     */
+    void snapshotIfNeeded() {
+        try {
+            if (journal.fileSize() >= snapshotThresholdBytes) {
+                snapshot();
+            }
+        } catch (Exception e) {
+            log.error("failed to snapshot transaction store", e);
+        }
+    }
+
+    /**
+     * 切换到新一代日志后写入快照，快照完成后删除之前的日志
+     * <p>
+     * 写入在行锁内完成追加日志和修改列，切换之后才读取的行要么已包含旧日志中的变更，要么对应的变更写在新日志中，
+     * 因此边写快照边接收写入是安全的，重放新日志时幂等地覆盖快照中的行
+     */
+    void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            long generation = journal.rotate();
+            Files.createDirectories(directory);
+            Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            long[] count = new long[1];
+            try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(generation);
+                IOException[] error = new IOException[1];
+                scan(0L, row -> {
+                    try {
+                        writeRow(out, row);
+                        count[0]++;
+                        return true;
+                    } catch (IOException e) {
+                        error[0] = e;
+                        return false;
+                    }
+                });
+                if (error[0] != null) {
+                    throw error[0];
+                }
+                out.writeLong(0L);
+                out.writeLong(nextId.get());
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.deleteBefore(generation);
+            log.info("saved snapshot of {} transactions in {} ms", count[0], System.currentTimeMillis() - start);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * @return 快照之后需要重放的第一代日志，没有快照时返回0
+     */
+    private long loadSnapshot() {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0L;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_WITHOUT_VERSION) {
+                throw new IllegalStateException("Unknown snapshot format " + file);
+            }
+            long generation = in.readLong();
+            long id;
+            while ((id = in.readLong()) != 0L) {
+                put(readRow(in, id, magic == SNAPSHOT_MAGIC), false);
+            }
+            nextId.accumulateAndGet(in.readLong(), Math::max);
+            return generation;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load snapshot " + file, e);
+        }
+    }
+
+    private static void writeRow(DataOutputStream out, Row row) throws IOException {
+        out.writeLong(row.id);
+        writeString(out, row.transactionNo);
+        out.writeLong(row.sourceAccountId);
+        out.writeLong(row.targetAccountId);
+        out.writeLong(row.amount);
+        if (row.amount == LARGE_AMOUNT) {
+            out.writeUTF(row.largeAmount.toPlainString());
+        }
+        writeString(out, row.description);
+        out.writeLong(row.createTime);
+        out.writeLong(row.updateTime);
+        out.writeLong(row.version);
+    }
+
+    private static Transaction readRow(DataInputStream in, long id, boolean versioned) throws IOException {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionNo(readString(in));
+        transaction.setSourceAccountId(in.readLong());
+        transaction.setTargetAccountId(in.readLong());
+        long amount = in.readLong();
+        transaction.setAmount(amount == LARGE_AMOUNT ? new BigDecimal(in.readUTF()) : BigDecimal.valueOf(amount, 2));
+        transaction.setDescription(readString(in));
+        transaction.setCreateTime(in.readLong());
+        transaction.setUpdateTime(in.readLong());
+        transaction.setVersion(versioned ? in.readLong() : 0L);
+        return transaction;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * 写入整行，journaled为true时在行锁内先追加日志
+     *
+     * @return 日志位置，未追加日志时返回0
+     */
+    private long put(Transaction transaction, boolean journaled) {
+        long id = transaction.getId();
+        int slot = slot(id);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Transaction id out of range: " + id);
+        }
+        Segment segment = segment(slot, true);
+        int index = slot & SEGMENT_MASK;
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.writeLock();
+        try {
+            long offset = journaled ? journal.appendPut(transaction) : 0L;
+            if (segment.state[index] == LIVE) {
+                String previous = segment.transactionNo[index];
+                if (!previous.equals(transaction.getTransactionNo())) {
+                    transactionNoIndex.remove(previous, id);
+                }
+            } else {
+                liveCount.incrementAndGet();
+            }
+            if (!journaled) {
+                transactionNoIndex.put(transaction.getTransactionNo(), id);
+                nextId.accumulateAndGet(id + 1, Math::max);
+            }
+            write(segment, index, transaction);
+            return offset;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 删除整行，journaled为true时在行锁内先追加日志
+     *
+     * @param before 不为null时写入删除前的行
+     * @return 日志位置，未追加日志时返回0，交易不存在时返回-1
+     */
+    private long remove(long id, boolean journaled, Row before) {
+        int slot = slot(id);
+        Segment segment = slot < 0 ? null : segment(slot, false);
+        if (segment == null) {
+            return -1L;
+        }
+        int index = slot & SEGMENT_MASK;
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.writeLock();
+        try {
+            if (segment.state[index] != LIVE) {
+                return -1L;
+            }
+            if (before != null) {
+                copy(slot, segment, before);
+            }
+            long offset = journaled ? journal.appendDelete(id) : 0L;
+            transactionNoIndex.remove(segment.transactionNo[index], id);
+            if (segment.amount[index] == LARGE_AMOUNT) {
+                largeAmounts.remove(id);
+            }
+            segment.state[index] = DELETED;
+            segment.transactionNo[index] = null;
+            segment.description[index] = null;
+            liveCount.decrementAndGet();
+            return offset;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 写入列，调用方持有行锁
+     */
+    private void write(Segment segment, int index, Transaction transaction) {
+        segment.transactionNo[index] = transaction.getTransactionNo();
+        segment.sourceAccountId[index] = transaction.getSourceAccountId();
+        segment.targetAccountId[index] = transaction.getTargetAccountId();
+        long amount = cents(transaction.getAmount());
+        if (amount == LARGE_AMOUNT) {
+            largeAmounts.put(transaction.getId(), transaction.getAmount());
+        } else if (segment.amount[index] == LARGE_AMOUNT) {
+            largeAmounts.remove(transaction.getId());
+        }
+        segment.amount[index] = amount;
+        segment.description[index] = transaction.getDescription();
+        segment.createTime[index] = transaction.getCreateTime();
+        segment.updateTime[index] = transaction.getUpdateTime();
+        segment.version[index] = transaction.getVersion() == null ? 0L : transaction.getVersion();
+        segment.state[index] = LIVE;
+    }
+
+    /**
+     * 读取一行到缓冲，先乐观读，读取期间有写入时退化为读锁
+     *
+     * @return 该行存在时返回true
+     */
+    private boolean read(int slot, Segment segment, Row row) {
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            boolean live = copy(slot, segment, row);
+            if (lock.validate(stamp)) {
+                return live;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return copy(slot, segment, row);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean copy(int slot, Segment segment, Row row) {
+        int index = slot & SEGMENT_MASK;
+        if (segment.state[index] != LIVE) {
+            return false;
+        }
+        row.id = slot + 1L;
+        row.transactionNo = segment.transactionNo[index];
+        row.sourceAccountId = segment.sourceAccountId[index];
+        row.targetAccountId = segment.targetAccountId[index];
+        row.amount = segment.amount[index];
+        row.largeAmount = row.amount == LARGE_AMOUNT ? largeAmounts.get(row.id) : null;
+        row.description = segment.description[index];
+        row.createTime = segment.createTime[index];
+        row.updateTime = segment.updateTime[index];
+        row.version = segment.version[index];
+        return true;
+    }
+
+    private Segment segment(int slot, boolean create) {
+        int index = slot >>> SEGMENT_BITS;
+        Segment[] current = segments;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        if (!create) {
+            return null;
+        }
+        growLock.lock();
+        try {
+            current = segments;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new Segment();
+            }
+            segments = current;
+            return current[index];
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    /**
+     * ID从1开始连续分配，行号为ID减一
+     *
+     * @return 行号，ID不合法时返回-1
+     */
+    private static int slot(long id) {
+        return id < 1 || id > Integer.MAX_VALUE ? -1 : (int) (id - 1);
+    }
+
+    /**
+     * 金额统一保留两位小数，与数据库numeric(38,2)一致
+     */
+    private static BigDecimal scaled(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static long cents(BigDecimal amount) {
+        BigInteger unscaled = scaled(amount).unscaledValue();
+        return unscaled.bitLength() < Long.SIZE ? unscaled.longValue() : LARGE_AMOUNT;
+    }
+
+    private static TransactionVO toVO(Transaction transaction) {
+        TransactionVO vo = new TransactionVO();
+        vo.setId(transaction.getId());
+        vo.setTransactionNo(transaction.getTransactionNo());
+        vo.setSourceAccountId(transaction.getSourceAccountId());
+        vo.setTargetAccountId(transaction.getTargetAccountId());
+        vo.setAmount(transaction.getAmount());
+        vo.setDescription(transaction.getDescription());
+        vo.setCreateTime(transaction.getCreateTime());
+        vo.setUpdateTime(transaction.getUpdateTime());
+        vo.setVersion(transaction.getVersion());
+        return vo;
+    }
+}
@@ -0,0 +1,301 @@
+package com.hsbc.management.service.memory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.entity.Transaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 内存引擎的变更日志，每行一条JSON记录，按代数分文件
+ * <p>
+ * PUT记录保存变更后的整行，DELETE记录只保存ID，重放是幂等的；写快照前切换到新一代文件，
+ * 快照完成后早于快照起始代的文件即可删除。并发写入共享fsync，与写入缓冲日志的组提交方式一致。
+ */
+@Slf4j
+class TransactionStoreJournal implements Closeable {
+
+    static final String OP_PUT = "PUT";
+
+    static final String OP_DELETE = "DELETE";
+
+    private static final Pattern FILE_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+    private final Path directory;
+
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private FileChannel channel;
+
+    private long generation;
+
+    /**
+     * 当前文件已写入的字节数，快照线程只读
+     */
+    private volatile long fileSize;
+
+    /**
+     * 跨文件累计的逻辑写入字节数，由writeLock保护
+     */
+    private long written;
+
+    /**
+     * 已fsync的逻辑字节数
+     */
+    private volatile long synced;
+
+    /**
+     * 日志记录
+     *
+     * @param op          记录类型
+     * @param transaction PUT记录对应的整行
+     * @param id          DELETE记录对应的交易ID
+     */
+    record JournalRecord(String op, Transaction transaction, Long id) {
+    }
+
+    TransactionStoreJournal(Path directory, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 列出目录下的日志代数，按从小到大排序
+     */
+    static List<Long> generations(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> FILE_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list journal directory " + directory, e);
+        }
+    }
+
+    static Path file(Path directory, long generation) {
+        return directory.resolve("journal-" + generation + ".log");
+    }
+
+    /**
+     * 按写入顺序重放一代日志，崩溃时最后一行可能只写了一半，解析失败的行会被跳过
+     *
+     * @param generation 日志代数
+     * @param consumer   记录处理
+     * @return 重放的记录数
+     */
+    long replay(long generation, Consumer<JournalRecord> consumer) {
+        Path file = file(directory, generation);
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord record;
+                try {
+                    record = objectMapper.readValue(line, JournalRecord.class);
+                } catch (JsonProcessingException e) {
+                    log.warn("skip unreadable journal record in {}: {}", file, line);
+                    continue;
+                }
+                consumer.accept(record);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read journal " + file, e);
+        }
+        return count;
+    }
+
+    /**
+     * 打开一个新的代数作为当前写入文件
+     *
+     * @param generation 日志代数，需大于已有的全部代数
+     */
+    void open(long generation) {
+        writeLock.lock();
+        try {
+            Files.createDirectories(directory);
+            FileChannel next = FileChannel.open(file(directory, generation),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+                synced = written;
+            }
+            channel = next;
+            this.generation = generation;
+            fileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal generation " + generation + " in " + directory, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 切换到下一代文件，切换前写入的记录全部落盘
+     *
+     * @return 新的代数
+     */
+    long rotate() {
+        syncLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                open(generation + 1);
+                return generation;
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 删除早于指定代数的日志文件
+     */
+    void deleteBefore(long generation) {
+        for (Long old : generations(directory)) {
+            if (old < generation) {
+                try {
+                    Files.deleteIfExists(file(directory, old));
+                } catch (IOException e) {
+                    log.warn("failed to delete journal generation {} in {}", old, directory, e);
+                }
+            }
+        }
+    }
+
+    long fileSize() {
+        return fileSize;
+    }
+
+    /**
+     * 追加PUT记录，不等待落盘
+     *
+     * @return 记录结束位置，传给sync等待落盘
+     */
+    long appendPut(Transaction transaction) {
+        return append(new JournalRecord(OP_PUT, transaction, null));
+    }
+
+    /**
+     * 追加DELETE记录，不等待落盘
+     *
+     * @return 记录结束位置，传给sync等待落盘
+     */
+    long appendDelete(long id) {
+        return append(new JournalRecord(OP_DELETE, null, id));
+    }
+
+    /**
+     * 等待指定位置之前的记录落盘，排在后面的线程发现已被其他线程的fsync覆盖即可直接返回
+     *
+     * @param offset append返回的位置
+     */
+    void sync(long offset) {
+        if (synced >= offset) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= offset) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            writeLock.lock();
+            try {
+                target = written;
+                current = channel;
+            } finally {
+                writeLock.unlock();
+            }
+            current.force(false);
+            synced = target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync journal in " + directory, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long append(JournalRecord record) {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize journal record", e);
+        }
+        writeLock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            fileSize += line.length;
+            written += line.length;
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append journal in " + directory, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 列出不早于指定代数的日志代数，按从小到大排序
+     */
+    static List<Long> generationsFrom(Path directory, long generation) {
+        List<Long> result = new ArrayList<>();
+        for (Long candidate : generations(directory)) {
+            if (candidate >= generation) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+package com.hsbc.management.service.writebehind;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.entity.Transaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已应答但被数据库拒绝的交易，每行一条JSON记录，只追加不截断
+ * <p>
+ * 写入缓冲模式下交易先应答后提交，提交时仍可能与其他实例或同步写入的交易编号冲突。
+ * 被拒绝的交易连同原因在写日志FLUSHED标记之前落盘，重启后按ID查询仍能得到拒绝原因，运维也可以据此补偿。
+ */
+@Slf4j
+public class RejectedTransactionLog implements Closeable {
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    private final FileChannel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 拒绝记录
+     *
+     * @param transaction 被拒绝的交易
+     * @param reason      拒绝原因
+     */
+    record RejectedRecord(Transaction transaction, String reason) {
+    }
+
+    public RejectedTransactionLog(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open rejected transaction log " + path, e);
+        }
+    }
+
+    /**
+     * 读取全部拒绝记录，崩溃时写了一半的行会被跳过
+     *
+     * @return 交易ID到拒绝原因，按写入顺序
+     */
+    public Map<Long, String> readAll() {
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            channel.position(0);
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    RejectedRecord record = objectMapper.readValue(line, RejectedRecord.class);
+                    rejected.put(record.transaction().getId(), record.reason());
+                } catch (JsonProcessingException e) {
+                    log.warn("skip unreadable rejected record in {}: {}", path, line);
+                }
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read rejected transaction log " + path, e);
+        } finally {
+            lock.unlock();
+        }
+        return rejected;
+    }
+
+    /**
+     * 写入一条拒绝记录并等待落盘
+     *
+     * @param transaction 被拒绝的交易
+     * @param reason      拒绝原因
+     */
+    public void append(Transaction transaction, String reason) {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(new RejectedRecord(transaction, reason)) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize rejected record", e);
+        }
+        lock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append rejected transaction log " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,221 @@
+package com.hsbc.management.service.writebehind;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.entity.Transaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 交易写入日志，每行一条JSON记录
+ * <p>
+ * CREATED记录在应答客户端之前落盘，FLUSHED记录标记哪些交易已经提交到数据库；
+ * 崩溃后重放时只需要处理没有对应FLUSHED标记的CREATED记录。
+ * 并发写入共享fsync：持有同步锁的线程一次force覆盖此前所有已写入的记录，
+ * 排在后面的线程发现自己的记录已被覆盖即可直接返回。
+ * 使用ReentrantLock而不是synchronized，避免在虚拟线程模式下固定载体线程。
+ */
+@Slf4j
+public class TransactionJournal implements Closeable {
+
+    static final String OP_CREATED = "CREATED";
+
+    static final String OP_FLUSHED = "FLUSHED";
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    private final FileChannel channel;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    /**
+     * 已写入的逻辑字节数，截断文件后不归零，由writeLock保护
+     */
+    private long written;
+
+    /**
+     * 已fsync的逻辑字节数
+     */
+    private volatile long synced;
+
+    /**
+     * 日志记录
+     *
+     * @param op          记录类型
+     * @param transaction CREATED记录对应的交易
+     * @param ids         FLUSHED记录对应的交易ID
+     */
+    record JournalRecord(String op, Transaction transaction, List<Long> ids) {
+    }
+
+    public TransactionJournal(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.written = channel.size();
+            this.channel.position(written);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open transaction journal " + path, e);
+        }
+        this.synced = written;
+    }
+
+    /**
+     * 读取尚未提交到数据库的交易，按写入顺序返回
+     * <p>
+     * 崩溃时最后一行可能只写了一半，解析失败的行会被跳过
+     *
+     * @return 没有FLUSHED标记的交易
+     */
+    public List<Transaction> readUnflushed() {
+        Map<Long, Transaction> unflushed = new LinkedHashMap<>();
+        writeLock.lock();
+        try {
+            channel.position(0);
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord record;
+                try {
+                    record = objectMapper.readValue(line, JournalRecord.class);
+                } catch (JsonProcessingException e) {
+                    log.warn("skip unreadable journal record in {}: {}", path, line);
+                    continue;
+                }
+                if (OP_CREATED.equals(record.op()) && record.transaction() != null) {
+                    unflushed.put(record.transaction().getId(), record.transaction());
+                } else if (OP_FLUSHED.equals(record.op()) && record.ids() != null) {
+                    record.ids().forEach(unflushed::remove);
+                }
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read transaction journal " + path, e);
+        } finally {
+            writeLock.unlock();
+        }
+        return new ArrayList<>(unflushed.values());
+    }
+
+    /**
+     * 写入CREATED记录并等待落盘
+     *
+     * @param transaction 已分配ID的交易
+     */
+    public void appendCreated(Transaction transaction) {
+        sync(append(new JournalRecord(OP_CREATED, transaction, null)));
+    }
+
+    /**
+     * 写入FLUSHED记录并等待落盘，需在对应交易提交到数据库之后调用
+     *
+     * @param ids 已提交的交易ID
+     */
+    public void appendFlushed(Collection<Long> ids) {
+        sync(append(new JournalRecord(OP_FLUSHED, null, new ArrayList<>(ids))));
+    }
+
+    /**
+     * 没有未提交的记录时清空日志文件，避免日志无限增长
+     *
+     * @param drained 在写锁内判断是否所有记录都已提交
+     * @return 是否执行了截断
+     */
+    public boolean truncateIfDrained(BooleanSupplier drained) {
+        syncLock.lock();
+        writeLock.lock();
+        try {
+            if (!drained.getAsBoolean() || channel.size() == 0) {
+                return false;
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            synced = written;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate transaction journal " + path, e);
+        } finally {
+            writeLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long append(JournalRecord record) {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize journal record", e);
+        }
+        writeLock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written += line.length;
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append transaction journal " + path, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void sync(long offset) {
+        if (synced >= offset) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= offset) {
+                return;
+            }
+            long target;
+            writeLock.lock();
+            try {
+                target = written;
+            } finally {
+                writeLock.unlock();
+            }
+            channel.force(false);
+            synced = target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync transaction journal " + path, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.hsbc.management.service.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.dao.TransactionJdbcWriter;
+import com.hsbc.management.dao.TransactionRepository;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.impl.TransactionServiceImpl;
+import com.hsbc.management.service.index.TransactionExistenceFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 交易创建的写入缓冲（write-behind）管道，transaction.write-behind.enabled=true时启用
+ * <p>
+ * 创建请求分配ID并写入本地日志落盘后即应答，后台线程把排队的交易按组批量提交到数据库，
+ * 多个请求共享一次数据库提交和一次日志fsync。提交前的交易保存在内存中，按ID查询可以读到；
+ * 修改、删除尚未提交的交易前会先强制提交。启动时重放日志中没有提交标记的交易。
+ * <p>
+ * 提交时被数据库拒绝（如交易编号已被其他实例写入）的交易先写入拒绝日志，再写FLUSHED标记；
+ * 随后淘汰其单条缓存并发布删除事件，按ID查询返回拒绝原因，不会继续读到已应答但不存在的交易。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.write-behind", name = "enabled", havingValue = "true")
+public class TransactionWriteBehind {
+
+    private static final int RECOVERY_CHUNK_SIZE = 1000;
+
+    private static final long RETRY_BACKOFF_MS = 1000L;
+
+    @Value("${transaction.write-behind.journal:data/transaction-journal.log}")
+    private String journalPath;
+
+    @Value("${transaction.write-behind.rejected-log:data/transaction-rejected.log}")
+    private String rejectedLogPath;
+
+    @Value("${transaction.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${transaction.write-behind.flush-interval-ms:10}")
+    private long flushIntervalMs;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionExistenceFilter transactionExistenceFilter;
+
+    @Autowired
+    private TransactionJdbcWriter transactionJdbcWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private TransactionJournal journal;
+
+    private RejectedTransactionLog rejectedLog;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 已应答但尚未提交到数据库的交易
+     */
+    private final Map<Long, Transaction> pending = new ConcurrentHashMap<>();
+
+    private final Set<String> pendingNos = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已应答但被数据库拒绝的交易ID及原因，启动时从拒绝日志载入
+     */
+    private final Map<Long, String> rejected = new ConcurrentHashMap<>();
+
+    private final LinkedBlockingQueue<Transaction> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 上一次提交失败、等待重试的交易，由flushLock保护
+     */
+    private final List<Transaction> retry = new ArrayList<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Condition flushWindow = flushLock.newCondition();
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        journal = new TransactionJournal(Path.of(journalPath), objectMapper);
+        rejectedLog = new RejectedTransactionLog(Path.of(rejectedLogPath), objectMapper);
+        rejected.putAll(rejectedLog.readAll());
+        recover();
+        running = true;
+        writer = new Thread(this::runWriter, "transaction-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        // 不中断写线程，避免中断打断进行中的JDBC调用
+        flushLock.lock();
+        try {
+            running = false;
+            flushWindow.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        flush();
+        journal.close();
+        rejectedLog.close();
+    }
+
+    /**
+     * 接收一条交易：检查交易编号、分配ID、写日志落盘后入队，返回时交易已经持久化到日志
+     *
+     * @param transaction 未分配ID的交易
+     * @return 已分配ID的交易
+     * @throws BizException 如果transactionNo已存在或正在写入，则抛出BizException异常
+     */
+    public Transaction submit(Transaction transaction) {
+        String transactionNo = transaction.getTransactionNo();
+        if (!pendingNos.add(transactionNo)) {
+            throw duplicated(transactionNo);
+        }
+        try {
+            if (transactionExistenceFilter.mightContainTransactionNo(transactionNo)
+                    && transactionRepository.findByTransactionNo(transactionNo).isPresent()) {
+                throw duplicated(transactionNo);
+            }
+            transaction.setId(transactionJdbcWriter.allocateId());
+            transaction.setVersion(0L);
+            transactionExistenceFilter.add(transaction.getId(), transactionNo);
+            pending.put(transaction.getId(), transaction);
+            journal.appendCreated(transaction);
+            queue.add(transaction);
+            return transaction;
+        } catch (RuntimeException e) {
+            if (transaction.getId() != null) {
+                pending.remove(transaction.getId());
+            }
+            pendingNos.remove(transactionNo);
+            throw e;
+        }
+    }
+
+    /**
+     * 查询尚未提交到数据库的交易
+     *
+     * @param id 交易ID
+     * @return 交易，已提交或不存在时返回null
+     */
+    public Transaction getPending(Long id) {
+        return pending.get(id);
+    }
+
+    /**
+     * 查询已应答但被数据库拒绝的交易
+     *
+     * @param id 交易ID
+     * @return 拒绝原因，没有被拒绝时返回null
+     */
+    public String getRejection(Long id) {
+        return rejected.get(id);
+    }
+
+    /**
+     * 交易编号是否正在写入
+     *
+     * @param transactionNo 交易编号
+     * @return 已应答但尚未提交时返回true
+     */
+    public boolean isPendingTransactionNo(String transactionNo) {
+        return pendingNos.contains(transactionNo);
+    }
+
+    /**
+     * 如果交易尚未提交，则立即提交当前排队的全部交易
+     * <p>
+     * 需在调用方的数据库事务开始之前调用：组提交使用独立的连接，在事务内调用会同时占用两个连接，
+     * 并发修改、删除时可能耗尽连接池
+     *
+     * @param id 交易ID
+     */
+    public void flushIfPending(Long id) {
+        if (pending.containsKey(id)) {
+            flush();
+        }
+    }
+
+    /**
+     * 立即提交当前排队的全部交易，返回后调用前已应答的交易均已提交
+     */
+    public void flush() {
+        // 组提交必须先于调用方提交，才能在其后写FLUSHED标记
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(), "write-behind flush must not run inside a transaction");
+        flushLock.lock();
+        try {
+            flushQueued();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        while (running) {
+            flushLock.lock();
+            try {
+                if (queue.isEmpty()) {
+                    // 等待期间释放锁，flush()可以插队
+                    flushWindow.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+                }
+                flushQueued();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("write-behind flush failed, {} transactions will be retried", retry.size(), e);
+                backoff();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private void backoff() {
+        try {
+            flushWindow.await(RETRY_BACKOFF_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 按batchSize分组提交排队的交易，需持有flushLock
+     */
+    private void flushQueued() {
+        while (!retry.isEmpty() || !queue.isEmpty()) {
+            List<Transaction> batch = new ArrayList<>(retry);
+            retry.clear();
+            queue.drainTo(batch, Math.max(batchSize - batch.size(), 0));
+            List<Rejection> rejections;
+            try {
+                rejections = write(batch);
+                reject(rejections);
+            } catch (RuntimeException e) {
+                retry.addAll(batch);
+                throw e;
+            }
+            journal.appendFlushed(batch.stream().map(Transaction::getId).toList());
+            for (Transaction transaction : batch) {
+                pending.remove(transaction.getId());
+                pendingNos.remove(transaction.getTransactionNo());
+            }
+            Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_CACHE);
+            for (Rejection rejection : rejections) {
+                Long id = rejection.transaction().getId();
+                if (cache != null) {
+                    cache.evict(id);
+                }
+                // 在事务外发布，监听器立即淘汰响应缓存、使分页失效并通知其他实例
+                eventPublisher.publishEvent(TransactionChangedEvent.deleted(id, null));
+            }
+        }
+        journal.truncateIfDrained(pending::isEmpty);
+    }
+
+    /**
+     * 被数据库拒绝的交易及原因
+     */
+    private record Rejection(Transaction transaction, String reason) {
+    }
+
+    /**
+     * 在一个数据库事务中插入一组交易及其trigram索引，唯一约束冲突时逐条重试
+     *
+     * @return 逐条重试时被拒绝的交易
+     */
+    private List<Rejection> write(List<Transaction> batch) {
+        try {
+            insert(batch);
+            return Collections.emptyList();
+        } catch (DataIntegrityViolationException e) {
+            List<Rejection> rejections = new ArrayList<>();
+            for (Transaction transaction : batch) {
+                try {
+                    insert(Collections.singletonList(transaction));
+                } catch (DataIntegrityViolationException rowException) {
+                    String reason = TransactionServiceImpl.isTransactionNoConflict(rowException)
+                            ? "Transaction with transactionNo " + transaction.getTransactionNo() + " already exists."
+                            : rowException.getMostSpecificCause().getMessage();
+                    rejections.add(new Rejection(transaction, reason));
+                }
+            }
+            return rejections;
+        }
+    }
+
+    /**
+     * 拒绝记录落盘后才能写FLUSHED标记，否则崩溃后既不重放也查不到拒绝原因
+     */
+    private void reject(List<Rejection> rejections) {
+        for (Rejection rejection : rejections) {
+            Transaction transaction = rejection.transaction();
+            rejectedLog.append(transaction, rejection.reason());
+            rejected.put(transaction.getId(), rejection.reason());
+            log.error("write-behind transaction {} (id {}) rejected by database: {}", transaction.getTransactionNo(), transaction.getId(),
+                    rejection.reason());
+        }
+    }
+
+    private void insert(List<Transaction> transactions) {
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionJdbcWriter.insert(transactions);
+            // 事务内发布，监听器在提交后执行
+            transactions.forEach(t -> eventPublisher.publishEvent(TransactionChangedEvent.created(t)));
+        });
+    }
+
+    /**
+     * 重放日志中没有提交标记的交易，已在库中的ID跳过；序列落后于重放的ID时推进序列
+     */
+    private void recover() {
+        List<Transaction> unflushed = journal.readUnflushed();
+        if (unflushed.isEmpty()) {
+            journal.truncateIfDrained(() -> true);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Transaction> replay = new ArrayList<>();
+        for (int from = 0; from < unflushed.size(); from += RECOVERY_CHUNK_SIZE) {
+            List<Transaction> chunk = unflushed.subList(from, Math.min(from + RECOVERY_CHUNK_SIZE, unflushed.size()));
+            Set<Long> existing = new HashSet<>();
+            transactionRepository.findAllById(chunk.stream().map(Transaction::getId).toList())
+                    .forEach(t -> existing.add(t.getId()));
+            chunk.stream().filter(t -> !existing.contains(t.getId())).forEach(replay::add);
+        }
+        for (int from = 0; from < replay.size(); from += batchSize) {
+            reject(write(replay.subList(from, Math.min(from + batchSize, replay.size()))));
+        }
+        transactionJdbcWriter.advanceSequencePastMaxId();
+        journal.truncateIfDrained(() -> true);
+        log.info("replayed {} of {} journaled transactions in {} ms", replay.size(), unflushed.size(), System.currentTimeMillis() - start);
+    }
+
+    private BizException duplicated(String transactionNo) {
+        return new BizException(BizErrorEnum.TRANSACTION_DUPLICATED, "Transaction with transactionNo " + transactionNo + " already exists.");
+    }
+}
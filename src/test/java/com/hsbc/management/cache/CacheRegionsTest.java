@@ -0,0 +1,113 @@
+package com.hsbc.management.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import com.hsbc.management.common.dto.CacheRegionDTO;
+import com.hsbc.management.common.vo.CacheRegionVO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.configuration.CacheRegionProperties;
+import com.hsbc.management.exception.BizException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CacheRegionsTest {
+
+    private CacheManager cacheManager;
+
+    private CacheRegions cacheRegions;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        CacheRegionProperties properties = new CacheRegionProperties();
+        CacheRegionProperties.Region pages = new CacheRegionProperties.Region();
+        pages.setMaxBytes(64 * 1024);
+        pages.setRefreshAfterWrite(Duration.ofMinutes(1));
+        properties.getRegions().put(CacheConfig.PAGE_CACHE, pages);
+        CacheRegionProperties.Region searches = new CacheRegionProperties.Region();
+        searches.setExpireAfterAccess(Duration.ofMinutes(2));
+        properties.getRegions().put(CacheConfig.SEARCH_CACHE, searches);
+        cacheManager = new CacheConfig().caffeineCacheManager(properties, mock(ObjectProvider.class));
+        cacheRegions = new CacheRegions();
+        ReflectionTestUtils.setField(cacheRegions, "cacheManager", cacheManager);
+    }
+
+    private Page<TransactionVO> buildPage(int size) {
+        List<TransactionVO> content = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            TransactionVO vo = new TransactionVO();
+            vo.setId(id);
+            vo.setTransactionNo("T" + id);
+            vo.setDescription("x".repeat(100));
+            content.add(vo);
+        }
+        return new PageImpl<>(content, PageRequest.of(0, size), size);
+    }
+
+    private CacheRegionVO region(String name) {
+        return cacheRegions.list().stream().filter(region -> region.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testRegionsBoundedByWeight() {
+        // Act: 每页100条约4万字节，分页区域上限64KB
+        for (int page = 0; page < 20; page++) {
+            cacheManager.getCache(CacheConfig.PAGE_CACHE).put(new TransactionPageKey(0, null, null, null, PageRequest.of(page, 100)), buildPage(100));
+        }
+        cacheRegions.resize(CacheConfig.PAGE_CACHE, new CacheRegionDTO());
+
+        // Assert
+        CacheRegionVO pages = region(CacheConfig.PAGE_CACHE);
+        assertTrue(pages.getWeightedBytes() <= 64 * 1024);
+        assertTrue(pages.getEvictionCount() > 0);
+        assertEquals(60_000L, pages.getRefreshAfterWriteMs());
+        assertNull(pages.getExpireAfterAccessMs());
+        assertEquals(120_000L, region(CacheConfig.SEARCH_CACHE).getExpireAfterAccessMs());
+        assertEquals(32L * 1024 * 1024, region(CacheConfig.TRANSACTION_CACHE).getMaxBytes());
+        assertNull(cacheManager.getCache("unknown"));
+    }
+
+    @Test
+    void testResize() {
+        // Arrange
+        for (long id = 1; id <= 100; id++) {
+            cacheManager.getCache(CacheConfig.TRANSACTION_CACHE).put(id, buildPage(1).getContent().get(0));
+        }
+        CacheRegionDTO dto = new CacheRegionDTO();
+        dto.setMaxBytes(4096L);
+        dto.setExpireAfterWriteMs(60_000L);
+
+        // Act
+        CacheRegionVO vo = cacheRegions.resize(CacheConfig.TRANSACTION_CACHE, dto);
+
+        // Assert: 缩小后立即淘汰超出的条目
+        assertEquals(4096L, vo.getMaxBytes());
+        assertEquals(60_000L, vo.getExpireAfterWriteMs());
+        assertTrue(vo.getWeightedBytes() <= 4096);
+        assertTrue(vo.getSize() < 100);
+    }
+
+    @Test
+    void testResizeRejected() {
+        // Arrange
+        CacheRegionDTO dto = new CacheRegionDTO();
+        dto.setExpireAfterAccessMs(1000L);
+
+        // Act & Assert: 启动时没有配置按访问过期的区域不能调整，区域不存在时同样拒绝
+        assertThrows(BizException.class, () -> cacheRegions.resize(CacheConfig.TRANSACTION_CACHE, dto));
+        assertThrows(BizException.class, () -> cacheRegions.resize("unknown", new CacheRegionDTO()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.hsbc.management.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hsbc.management.HomeworkApplication;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.service.TransactionService;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 缓存预热快照的读写，以及重启后按快照预加载
+ */
+public class CacheWarmupTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TransactionDTO buildTransaction(String transactionNo) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo(transactionNo);
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.50"));
+        dto.setDescription("Test Transaction");
+        return dto;
+    }
+
+    private static ConfigurableApplicationContext start(String url, Path snapshot) {
+        return new SpringApplicationBuilder(HomeworkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--transaction.cache.warmup.snapshot=" + snapshot,
+                        "--transaction.cache.warmup.save-interval-ms=0");
+    }
+
+    @Test
+    void testSnapshotRoundTrip() throws Exception {
+        // Arrange
+        CacheWarmup.HotKeys hotKeys = new CacheWarmup.HotKeys(List.of(3L, 1L, 2L), List.of(
+                new TransactionPageKey(7L, null, null, null, PageRequest.of(0, 10)),
+                new TransactionPageKey(7L, "TX", 1000L, null, PageRequest.of(2, 50))));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // Act
+        CacheWarmup.write(hotKeys, new DataOutputStream(bytes));
+        CacheWarmup.HotKeys read = CacheWarmup.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Assert: 顺序不变，分页key不保存列表版本号
+        assertEquals(List.of(3L, 1L, 2L), read.ids());
+        assertEquals(new TransactionPageKey(0L, null, null, null, PageRequest.of(0, 10)), read.pages().get(0));
+        assertEquals(new TransactionPageKey(0L, "TX", 1000L, null, PageRequest.of(2, 50)), read.pages().get(1));
+    }
+
+    @Test
+    void testRestartPreloadsHotKeys() {
+        // Arrange: 第一次启动时访问热点交易和首页，关闭时写入快照
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        Path snapshot = tempDir.resolve("cache-warmup.snapshot");
+        Long hot;
+        Long cold;
+        try (ConfigurableApplicationContext context = start(url, snapshot)) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            hot = transactionService.createTransaction(buildTransaction("W0001")).getId();
+            cold = transactionService.createTransaction(buildTransaction("W0002")).getId();
+            context.getBean(CacheManager.class).getCache(CacheConfig.TRANSACTION_CACHE).evict(cold);
+            for (int i = 0; i < 5; i++) {
+                transactionService.getTransactionById(hot);
+                transactionService.listAllTransactions(null, null, null, PageRequest.of(0, 10));
+            }
+        }
+        assertTrue(Files.exists(snapshot));
+
+        // Act
+        try (ConfigurableApplicationContext context = start(url, snapshot)) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            long queriesBefore = statistics.getQueryExecutionCount();
+
+            // Assert: 就绪时热点交易和首页已在缓存中，未访问过的交易不预加载
+            assertTrue(transactionService.getTransactionById(hot).isPresent());
+            assertEquals(2, transactionService.listAllTransactions(null, null, null, PageRequest.of(0, 10)).getTotalElements());
+            assertEquals(0, statistics.getQueryExecutionCount() - queriesBefore);
+            assertNull(context.getBean(CacheManager.class).getCache(CacheConfig.TRANSACTION_CACHE).get(cold));
+        }
+    }
+}
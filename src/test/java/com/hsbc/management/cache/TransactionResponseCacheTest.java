@@ -0,0 +1,123 @@
+package com.hsbc.management.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.vo.TransactionVO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TransactionResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TransactionVO buildTransaction(long id, String description) {
+        TransactionVO vo = new TransactionVO();
+        vo.setId(id);
+        vo.setTransactionNo("T" + id);
+        vo.setDescription(description);
+        vo.setVersion(3L);
+        return vo;
+    }
+
+    @Test
+    void testEncodesBaseResult() throws Exception {
+        // Arrange
+        TransactionResponseCache cache = new TransactionResponseCache(objectMapper, new SimpleMeterRegistry(), 1 << 20);
+
+        // Act
+        TransactionResponseCache.Response response = cache.getTransaction(1L, () -> Optional.of(buildTransaction(1L, "a")));
+
+        // Assert
+        assertEquals(1L, objectMapper.readTree(response.body()).path("data").path("id").asLong());
+        assertEquals(0, objectMapper.readTree(response.body()).path("code").asInt());
+        assertEquals("\"3\"", response.eTag());
+        assertEquals("id:1".length() + response.body().length, cache.weightedSize());
+    }
+
+    @Test
+    void testBoundedByBytes() {
+        // Arrange: 上限4KB，每条响应约1KB
+        TransactionResponseCache cache = new TransactionResponseCache(objectMapper, new SimpleMeterRegistry(), 4096);
+        String description = "x".repeat(1000);
+
+        // Act
+        for (long id = 1; id <= 50; id++) {
+            long current = id;
+            cache.getTransaction(id, () -> Optional.of(buildTransaction(current, description)));
+        }
+
+        // Assert
+        assertTrue(cache.weightedSize() <= 4096);
+        assertTrue(cache.weightedSize() > 0);
+    }
+
+    @Test
+    void testChangeDuringLoadNotCached() {
+        // Arrange
+        TransactionResponseCache cache = new TransactionResponseCache(objectMapper, new SimpleMeterRegistry(), 1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act: 查询读到旧数据期间交易被修改并提交
+        TransactionResponseCache.Response stale = cache.getTransaction(1L, () -> {
+            loads.incrementAndGet();
+            cache.onTransactionChanged(TransactionChangedEvent.deleted(1L, null));
+            return Optional.of(buildTransaction(1L, "old"));
+        });
+        TransactionResponseCache.Response fresh = cache.getTransaction(1L, () -> {
+            loads.incrementAndGet();
+            return Optional.of(buildTransaction(1L, "new"));
+        });
+
+        // Assert: 旧响应只返回给本次请求，不写入缓存
+        assertTrue(new String(stale.body(), StandardCharsets.UTF_8).contains("old"));
+        assertTrue(new String(fresh.body(), StandardCharsets.UTF_8).contains("new"));
+        assertEquals(2, loads.get());
+        assertSame(fresh, cache.getTransaction(1L, () -> fail("should be cached")));
+    }
+
+    @Test
+    void testUnrelatedChangeStillCached() {
+        // Arrange
+        TransactionResponseCache cache = new TransactionResponseCache(objectMapper, new SimpleMeterRegistry(), 1 << 20);
+        String pageETag = cache.currentPageETag();
+
+        // Act: 查询期间另一笔交易被修改并提交
+        TransactionResponseCache.Response response = cache.getTransaction(1L, () -> {
+            cache.onTransactionChanged(TransactionChangedEvent.deleted(2L, null));
+            return Optional.of(buildTransaction(1L, "hot"));
+        });
+
+        // Assert: 单条交易按ID记录代数，不受其他交易影响；分页仍按全局代数失效
+        assertSame(response, cache.getTransaction(1L, () -> fail("should be cached")));
+        assertNotEquals(pageETag, cache.currentPageETag());
+    }
+
+    @Test
+    void testPageETagTakenBeforeLoad() {
+        // Arrange
+        TransactionResponseCache cache = new TransactionResponseCache(objectMapper, new SimpleMeterRegistry(), 1 << 20);
+        String before = cache.currentPageETag();
+
+        // Act: 查询期间发生变更，响应的ETag仍为查询前的代数
+        TransactionResponseCache.Response response = cache.getPage(null, null, null, PageRequest.of(0, 10), () -> {
+            cache.onTransactionChanged(TransactionChangedEvent.deleted(1L, null));
+            Page<TransactionVO> page = new PageImpl<>(List.of(buildTransaction(1L, "a")), PageRequest.of(0, 10), 1);
+            return page;
+        });
+
+        // Assert: 客户端带回该ETag时与当前代数不一致，不会得到304
+        assertEquals(before, response.eTag());
+        assertNotEquals(response.eTag(), cache.currentPageETag());
+    }
+}
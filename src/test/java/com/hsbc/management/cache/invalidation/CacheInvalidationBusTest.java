@@ -0,0 +1,233 @@
+package com.hsbc.management.cache.invalidation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hsbc.management.HomeworkApplication;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.service.TransactionService;
+import com.hsbc.management.service.index.TransactionExistenceFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 同一JVM中启动两个共用一个内存库的应用上下文，通过进程内传输验证一个节点的写入使另一个节点的缓存失效
+ */
+public class CacheInvalidationBusTest {
+
+    private static ConfigurableApplicationContext nodeA;
+
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void setUp() {
+        String name = UUID.randomUUID().toString();
+        nodeA = start(name);
+        nodeB = start(name);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    private static ConfigurableApplicationContext start(String name) {
+        return new SpringApplicationBuilder(HomeworkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.springframework.cache=WARN",
+                        "--transaction.cache-invalidation.enabled=true",
+                        "--transaction.cache-invalidation.transport=local",
+                        // 合并窗口放宽，保证一个事务提交后的全部事件落在同一窗口内
+                        "--transaction.cache-invalidation.flush-interval-ms=200",
+                        "--transaction.cache-invalidation.channel=" + name);
+    }
+
+    private TransactionDTO buildTransaction(String transactionNo) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo(transactionNo);
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.50"));
+        dto.setDescription("Test Transaction");
+        return dto;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testWriteOnOneNodeInvalidatesOther() throws InterruptedException {
+        // Arrange
+        TransactionService serviceA = nodeA.getBean(TransactionService.class);
+        TransactionService serviceB = nodeB.getBean(TransactionService.class);
+        long total = serviceB.listAllTransactions(null, null, null, PageRequest.of(0, 10)).getTotalElements();
+
+        // Act & Assert: 节点B的布隆过滤器和缓存不知道节点A新建的交易，收到广播后可以查到
+        Long id = serviceA.createTransaction(buildTransaction("10001")).getId();
+        await(() -> serviceB.getTransactionById(id).isPresent());
+        await(() -> serviceB.listAllTransactions(null, null, null, PageRequest.of(0, 10)).getTotalElements() == total + 1);
+
+        // Act & Assert: 节点B已缓存的交易在节点A修改后更新
+        TransactionModifyDTO modifyDTO = new TransactionModifyDTO();
+        modifyDTO.setSourceAccountId(1001L);
+        modifyDTO.setTargetAccountId(3003L);
+        modifyDTO.setAmount(new BigDecimal("80.00"));
+        modifyDTO.setDescription("Modified on A");
+        serviceA.modifyTransaction(id, modifyDTO);
+        await(() -> serviceB.getTransactionById(id).map(TransactionVO::getDescription).orElse("").equals("Modified on A"));
+
+        // Act & Assert: 节点A删除后节点B不再返回
+        serviceA.deleteTransaction(id);
+        await(() -> serviceB.getTransactionById(id).isEmpty());
+    }
+
+    @Test
+    void testBurstIsCoalesced() throws InterruptedException {
+        // Arrange
+        TransactionService serviceA = nodeA.getBean(TransactionService.class);
+        TransactionService serviceB = nodeB.getBean(TransactionService.class);
+        Counter sent = nodeA.getBean(MeterRegistry.class).get("transaction.cache.invalidation.messages").tag("direction", "sent").counter();
+        double sentBefore = sent.count();
+        List<TransactionDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            dtos.add(buildTransaction("B" + i));
+        }
+
+        // Act: 一个事务内的1000条新建在提交后合并发送
+        List<Long> ids = serviceA.batchCreateTransactions(dtos).stream().map(item -> item.getTransaction().getId()).toList();
+
+        // Assert: 每条消息最多128个ID，节点B可以查到全部交易
+        await(() -> ids.stream().allMatch(id -> serviceB.getTransactionById(id).isPresent()));
+        assertEquals(8.0, sent.count() - sentBefore);
+    }
+
+    @Test
+    void testLostCreateRepairedByResync() {
+        // Arrange: 绕过服务层写入，模拟新建交易的广播丢失
+        TransactionService serviceB = nodeB.getBean(TransactionService.class);
+        TransactionExistenceFilter filterB = nodeB.getBean(TransactionExistenceFilter.class);
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        String insert = "insert into transaction_management (id, transaction_no, source_account_id,"
+                + " target_account_id, amount, description, create_time, update_time, version)"
+                + " values (?, ?, 1001, 2002, 1.00, 'lost', 0, 0, 0)";
+        jdbcTemplate.update(insert, 9_000_001L, "LOST1");
+        jdbcTemplate.update(insert, 9_000_002L, "LOST2");
+        assertFalse(filterB.mightContainId(9_000_001L));
+
+        // Act & Assert: 过滤器判定不存在时节点B仍查库确认，查到后补入过滤器
+        assertTrue(serviceB.getTransactionById(9_000_001L).isPresent());
+        assertTrue(filterB.mightContainId(9_000_001L));
+
+        // Act & Assert: 回填补上未被查询过的ID
+        filterB.resync();
+        assertTrue(filterB.mightContainId(9_000_002L));
+    }
+
+    @Test
+    void testUdpTransport() throws InterruptedException {
+        // Arrange
+        UdpInvalidationTransport receiver = new UdpInvalidationTransport("127.0.0.1", 0, List.of(new InetSocketAddress("127.0.0.1", 1)));
+        UdpInvalidationTransport sender = new UdpInvalidationTransport("127.0.0.1", 0, List.of(new InetSocketAddress("127.0.0.1", receiver.getLocalPort())));
+        BlockingQueue<byte[]> messages = new LinkedBlockingQueue<>();
+        receiver.start(messages::add);
+        sender.start(message -> {
+        });
+
+        // Act
+        sender.send(new InvalidationMessage(7L, false, new long[]{1L}, new long[]{2L, 3L}).encode());
+        byte[] bytes = messages.poll(5, TimeUnit.SECONDS);
+        sender.stop();
+        receiver.stop();
+
+        // Assert
+        assertNotNull(bytes);
+        InvalidationMessage message = InvalidationMessage.decode(bytes);
+        assertEquals(7L, message.node());
+        assertArrayEquals(new long[]{1L}, message.created());
+        assertArrayEquals(new long[]{2L, 3L}, message.changed());
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.decode(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void testUdpTransportDropsUnknownSenders() throws Exception {
+        // Arrange: 只信任127.0.0.1，另一个回环地址127.0.0.2不在peers中
+        UdpInvalidationTransport receiver = new UdpInvalidationTransport("127.0.0.1", 0, List.of(new InetSocketAddress("127.0.0.1", 1)));
+        InetSocketAddress target = new InetSocketAddress("127.0.0.1", receiver.getLocalPort());
+        UdpInvalidationTransport sender = new UdpInvalidationTransport("127.0.0.1", 0, List.of(target));
+        BlockingQueue<byte[]> messages = new LinkedBlockingQueue<>();
+        receiver.start(messages::add);
+
+        // Act
+        byte[] forged = new InvalidationMessage(8L, true, new long[0], new long[0]).encode();
+        try (DatagramSocket stranger = new DatagramSocket(new InetSocketAddress("127.0.0.2", 0))) {
+            stranger.send(new DatagramPacket(forged, forged.length, target));
+        }
+        sender.send(new InvalidationMessage(7L, false, new long[0], new long[]{2L}).encode());
+        byte[] bytes = messages.poll(5, TimeUnit.SECONDS);
+        byte[] next = messages.poll(200, TimeUnit.MILLISECONDS);
+        sender.stop();
+        receiver.stop();
+
+        // Assert: 只收到peers发来的消息
+        assertNotNull(bytes);
+        assertEquals(7L, InvalidationMessage.decode(bytes).node());
+        assertNull(next);
+    }
+
+    @Test
+    void testUdpTransportSurvivesReceiverFailure() throws InterruptedException {
+        // Arrange: 第一条消息的处理抛出异常
+        UdpInvalidationTransport receiver = new UdpInvalidationTransport("127.0.0.1", 0, List.of(new InetSocketAddress("127.0.0.1", 1)));
+        UdpInvalidationTransport sender = new UdpInvalidationTransport("127.0.0.1", 0, List.of(new InetSocketAddress("127.0.0.1", receiver.getLocalPort())));
+        BlockingQueue<byte[]> messages = new LinkedBlockingQueue<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        receiver.start(message -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("handler failure");
+            }
+            messages.add(message);
+        });
+
+        // Act
+        sender.send(new InvalidationMessage(7L, false, new long[0], new long[]{1L}).encode());
+        sender.send(new InvalidationMessage(7L, false, new long[0], new long[]{2L}).encode());
+        byte[] bytes = messages.poll(5, TimeUnit.SECONDS);
+        sender.stop();
+        receiver.stop();
+
+        // Assert: 接收线程在异常后继续处理之后的消息
+        assertTrue(failed.get());
+        assertNotNull(bytes);
+        assertArrayEquals(new long[]{2L}, InvalidationMessage.decode(bytes).changed());
+    }
+}
@@ -0,0 +1,93 @@
+package com.hsbc.management.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hsbc.management.cache.CacheRegions;
+import com.hsbc.management.common.vo.CacheRegionVO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+@WebMvcTest(CacheAdminController.class)
+@Import(SimpleMeterRegistry.class)
+public class CacheAdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CacheRegions cacheRegions;
+
+    private CacheRegionVO buildRegionVO(long maxBytes) {
+        CacheRegionVO vo = new CacheRegionVO();
+        vo.setName("transactionPages");
+        vo.setMaxBytes(maxBytes);
+        vo.setWeightedBytes(1024L);
+        vo.setHitRate(0.9);
+        return vo;
+    }
+
+    @Test
+    public void testListRegions() throws Exception {
+        // Arrange
+        when(cacheRegions.list()).thenReturn(List.of(buildRegionVO(33554432L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/admin/caches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.data[0].name").value("transactionPages"))
+                .andExpect(jsonPath("$.data[0].hitRate").value(0.9));
+    }
+
+    @Test
+    public void testResizeRegion() throws Exception {
+        // Arrange
+        when(cacheRegions.resize(eq("transactionPages"), argThat(dto -> dto.getMaxBytes() == 1048576L && dto.getExpireAfterWriteMs() == null)))
+                .thenReturn(buildRegionVO(1048576L));
+
+        // Act & Assert
+        mockMvc.perform(put("/admin/caches/transactionPages")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"maxBytes\":1048576}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.maxBytes").value(1048576));
+    }
+
+    @Test
+    public void testResizeRegionInvalid() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/admin/caches/transactionPages")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"maxBytes\":0}"))
+                .andExpect(jsonPath("$.code").value(1001));
+        verify(cacheRegions, never()).resize(any(), any());
+    }
+
+    @Test
+    public void testClearRegion() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/admin/caches/transactionPages"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0));
+        verify(cacheRegions).clear("transactionPages");
+    }
+}
@@ -0,0 +1,60 @@
+package com.hsbc.management.controller;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hsbc.management.limit.TransactionConcurrencyLimiter;
+import com.hsbc.management.service.TransactionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+@WebMvcTest(TransactionAdminController.class)
+@Import({SimpleMeterRegistry.class, TransactionConcurrencyLimiter.class})
+@TestPropertySource(properties = "transaction.purge.min-retention-days=30")
+public class TransactionAdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @Test
+    public void testPurgeTransactions() throws Exception {
+        // Arrange
+        when(transactionService.purgeTransactions(1000L)).thenReturn(3L);
+
+        // Act & Assert
+        mockMvc.perform(delete("/admin/transactions").param("before", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").value(3));
+        verify(transactionService, times(1)).purgeTransactions(1000L);
+    }
+
+    @Test
+    public void testPurgeWithinRetentionRejected() throws Exception {
+        // Arrange: 保留下限为30天，before只早于当前时间1天
+        long before = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+
+        // Act & Assert
+        mockMvc.perform(delete("/admin/transactions").param("before", String.valueOf(before)))
+                .andExpect(jsonPath("$.code").value(1002))
+                .andExpect(jsonPath("$.msg").value("before must be at least 30 days ago."));
+        verify(transactionService, never()).purgeTransactions(anyLong());
+    }
+}
@@ -1,40 +1,75 @@
 package com.hsbc.management.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.cache.TransactionResponseCache;
+import com.hsbc.management.common.AccountRole;
+import com.hsbc.management.common.ExportFormat;
 import com.hsbc.management.common.dto.TransactionDTO;
 import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionBatchItemVO;
 import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.limit.TransactionConcurrencyLimiter;
 import com.hsbc.management.service.TransactionService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @WebMvcTest(TransactionController.class)
+@Import({SimpleMeterRegistry.class, TransactionResponseCache.class, TransactionConcurrencyLimiter.class})
+@TestPropertySource(properties = {"transaction.concurrency-limit.enabled=true",
+        "transaction.concurrency-limit.read.initial-limit=1", "transaction.concurrency-limit.read.min-limit=1", "transaction.concurrency-limit.read.max-limit=1",
+        "transaction.concurrency-limit.write.initial-limit=1", "transaction.concurrency-limit.write.min-limit=1", "transaction.concurrency-limit.write.max-limit=1"})
 public class TransactionControllerTest{
 
     private ObjectMapper objectMapper = new ObjectMapper();
@@ -45,9 +80,16 @@ public class TransactionControllerTest{
     @MockBean
     private TransactionService transactionService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionResponseCache transactionResponseCache;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        transactionResponseCache.clear();
     }
 
     @Test
@@ -58,7 +100,7 @@ public class TransactionControllerTest{
         transactionVO.setTransactionNo("12345");
     
         Page<TransactionVO> page = new PageImpl<>(Collections.singletonList(transactionVO));
-        when(transactionService.listAllTransactions(anyString(), any(Pageable.class))).thenReturn(page);
+        when(transactionService.listAllTransactions(anyString(), isNull(), isNull(), any(Pageable.class))).thenReturn(page);
     
         // Act & Assert
         mockMvc.perform(get("/transactions")
@@ -70,6 +112,133 @@ public class TransactionControllerTest{
                 .andExpect(jsonPath("$.data.content[0].transactionNo").value("12345"));
     }
 
+    @Test
+    public void testScrollTransactions() throws Exception {
+        // Arrange
+        TransactionVO transactionVO = new TransactionVO();
+        transactionVO.setId(1L);
+        transactionVO.setTransactionNo("12345");
+
+        CursorPageVO<TransactionVO> page = new CursorPageVO<>(Collections.singletonList(transactionVO), "AQAAAAAAAAAB");
+        when(transactionService.scrollTransactions(isNull(), isNull(), isNull(), isNull(), eq(10))).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/scroll")
+                .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].id").value(1L))
+                .andExpect(jsonPath("$.data.nextCursor").value("AQAAAAAAAAAB"))
+                .andExpect(jsonPath("$.data.hasNext").value(true));
+    }
+
+    @Test
+    public void testScrollTransactionsCreateTimeWindow() throws Exception {
+        // Arrange
+        CursorPageVO<TransactionVO> page = new CursorPageVO<>(Collections.emptyList(), null);
+        when(transactionService.scrollTransactions(isNull(), eq(1000L), eq(2000L), isNull(), eq(10))).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/scroll")
+                .param("startTime", "1000")
+                .param("endTime", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.hasNext").value(false));
+        mockMvc.perform(get("/transactions").param("startTime", "2000").param("endTime", "2000"))
+                .andExpect(jsonPath("$.code").value(1002))
+                .andExpect(jsonPath("$.msg").value("startTime must be less than endTime."));
+    }
+
+    @Test
+    public void testListAccountTransactions() throws Exception {
+        // Arrange
+        TransactionVO transactionVO = new TransactionVO();
+        transactionVO.setId(1L);
+        transactionVO.setSourceAccountId(42L);
+
+        CursorPageVO<TransactionVO> page = new CursorPageVO<>(Collections.singletonList(transactionVO), null);
+        when(transactionService.listAccountTransactions(eq(42L), eq(AccountRole.SOURCE), isNull(), eq(20))).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/accounts/42")
+                .param("role", "source")
+                .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].sourceAccountId").value(42L))
+                .andExpect(jsonPath("$.data.hasNext").value(false));
+        mockMvc.perform(get("/transactions/accounts/42").param("role", "owner"))
+                .andExpect(jsonPath("$.code").value(1002))
+                .andExpect(jsonPath("$.msg").value("Unsupported account role owner."));
+    }
+
+    @Test
+    public void testGetAccountSummary() throws Exception {
+        // Arrange
+        AccountSummaryVO summary = new AccountSummaryVO();
+        summary.setAccountId(42L);
+        summary.setInflow(new BigDecimal("150.00"));
+        summary.setOutflow(new BigDecimal("50.00"));
+        summary.setNet(new BigDecimal("100.00"));
+        summary.setCount(3L);
+        when(transactionService.getAccountSummary(42L)).thenReturn(summary);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/accounts/42/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.net").value(100.00))
+                .andExpect(jsonPath("$.data.count").value(3));
+        mockMvc.perform(post("/transactions/accounts/summaries/rebuild"))
+                .andExpect(jsonPath("$.code").value(0));
+        verify(transactionService, times(1)).rebuildAccountSummaries();
+    }
+
+    @Test
+    public void testAccountSummaryNotReady() throws Exception {
+        // Arrange: 启动时的重建尚未完成
+        when(transactionService.getAccountSummary(42L))
+                .thenThrow(new BizException(BizErrorEnum.NOT_READY, "Account summaries are being rebuilt, please retry later."));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/accounts/42/summary"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.code").value(1004));
+    }
+
+    @Test
+    public void testExportTransactionsCsv() throws Exception {
+        // Arrange
+        when(transactionService.exportTransactions(eq(1000L), isNull(), eq(ExportFormat.CSV), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(3);
+            outputStream.write("id,transactionNo\n1,12345\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/transactions/export")
+                .param("format", "csv")
+                .param("startTime", "1000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv\""))
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,transactionNo\n1,12345\n"));
+    }
+
+    @Test
+    public void testExportTransactionsInvalidParam() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/transactions/export").param("format", "xml"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(1002))
+                .andExpect(jsonPath("$.msg").value("Unsupported export format xml."));
+        mockMvc.perform(get("/transactions/export").param("startTime", "2000").param("endTime", "1000"))
+                .andExpect(jsonPath("$.msg").value("startTime must be less than endTime."));
+    }
+
     @Test
     public void testGetTransactionById() throws Exception {
         // Arrange
@@ -97,6 +266,73 @@ public class TransactionControllerTest{
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    public void testGetTransactionByIdServedFromResponseCache() throws Exception {
+        // Arrange
+        TransactionVO transactionVO = new TransactionVO();
+        transactionVO.setId(1L);
+        transactionVO.setTransactionNo("12345");
+        when(transactionService.getTransactionById(1L)).thenReturn(Optional.of(transactionVO));
+
+        // Act
+        MvcResult first = mockMvc.perform(get("/transactions/1")).andReturn();
+        MvcResult second = mockMvc.perform(get("/transactions/1")).andReturn();
+
+        // Assert: 第二次直接返回缓存的字节
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, second.getResponse().getContentType());
+        verify(transactionService, times(1)).getTransactionById(1L);
+
+        // Act: 交易变更后淘汰
+        transactionVO.setTransactionNo("67890");
+        transactionResponseCache.onTransactionChanged(TransactionChangedEvent.deleted(1L, null));
+
+        // Assert
+        mockMvc.perform(get("/transactions/1"))
+                .andExpect(jsonPath("$.data.transactionNo").value("67890"));
+        verify(transactionService, times(2)).getTransactionById(1L);
+    }
+
+    @Test
+    public void testGetTransactionByIdNotFoundNotCached() throws Exception {
+        // Arrange
+        when(transactionService.getTransactionById(anyLong())).thenReturn(Optional.empty());
+
+        // Act
+        mockMvc.perform(get("/transactions/1"));
+        mockMvc.perform(get("/transactions/1"))
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.data").isEmpty());
+
+        // Assert
+        verify(transactionService, times(2)).getTransactionById(1L);
+    }
+
+    @Test
+    public void testListAllTransactionsServedFromResponseCache() throws Exception {
+        // Arrange
+        TransactionVO transactionVO = new TransactionVO();
+        transactionVO.setId(1L);
+        when(transactionService.listAllTransactions(isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(transactionVO)));
+
+        // Act
+        mockMvc.perform(get("/transactions").param("page", "1").param("size", "10"));
+        mockMvc.perform(get("/transactions").param("page", "1").param("size", "10"))
+                .andExpect(jsonPath("$.data.content[0].id").value(1L));
+        mockMvc.perform(get("/transactions").param("page", "2").param("size", "10"));
+
+        // Assert: 同一分页只查询一次，不同分页分别缓存
+        verify(transactionService, times(2)).listAllTransactions(isNull(), isNull(), isNull(), any(Pageable.class));
+
+        // Act: 任何交易变更后分页重新查询
+        transactionResponseCache.onTransactionChanged(TransactionChangedEvent.deleted(99L, null));
+        mockMvc.perform(get("/transactions").param("page", "1").param("size", "10"));
+
+        // Assert
+        verify(transactionService, times(3)).listAllTransactions(isNull(), isNull(), isNull(), any(Pageable.class));
+    }
+
     @Test
     public void testCreateTransaction() throws Exception {
         // Arrange
@@ -124,6 +360,51 @@ public class TransactionControllerTest{
                 .andExpect(jsonPath("$.data.transactionNo").value("12345"));
     }
 
+    @Test
+    public void testBatchCreateTransactions() throws Exception {
+        // Arrange
+        TransactionBatchItemVO item = new TransactionBatchItemVO();
+        item.setIndex(0);
+        item.setTransactionNo("12345");
+        item.setSuccess(true);
+
+        when(transactionService.batchCreateTransactions(anyList())).thenReturn(List.of(item));
+
+        String batchJson = "{\"transactions\":[{\"amount\":100.0,\"transactionNo\":\"12345\",\"sourceAccountId\":1,\"targetAccountId\":2,\"description\":\"Test Transaction\"}]}";
+
+        // Act & Assert
+        mockMvc.perform(post("/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].transactionNo").value("12345"))
+                .andExpect(jsonPath("$.data[0].success").value(true));
+    }
+
+    @Test
+    public void testBatchCreateTransactionsEmpty() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"transactions\":[]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(1001));
+    }
+
+    @Test
+    public void testDeleteTransactionNotExistCounted() throws Exception {
+        // Arrange
+        doThrow(new BizException(BizErrorEnum.TRANSACTION_NOT_FOUND, "Transaction with id 2 does not exist."))
+                .when(transactionService).deleteTransaction(2L);
+
+        // Act & Assert
+        mockMvc.perform(delete("/transactions/{id}", 2L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(1002))
+                .andExpect(jsonPath("$.msg").value("Transaction with id 2 does not exist."));
+        assertEquals(1.0, meterRegistry.counter("transaction.biz.errors", "reason", "TRANSACTION_NOT_FOUND").count());
+    }
+
     @Test
     public void testDeleteTransaction() throws Exception {
         // Arrange
@@ -134,6 +415,54 @@ public class TransactionControllerTest{
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testWriteOverloaded() throws Exception {
+        // Arrange: 写名额为1，删除占用名额期间再创建交易
+        String transactionDTOJson = "{\"amount\":100.0,\"transactionNo\":\"12345\",\"sourceAccountId\":1,\"targetAccountId\":2,\"description\":\"Test Transaction\"}";
+        doAnswer(invocation -> {
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(transactionDTOJson))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.code").value(1003));
+            return null;
+        }).when(transactionService).deleteTransaction(1L);
+        double overloadedBefore = meterRegistry.counter("transaction.biz.errors", "reason", "OVERLOADED").count();
+
+        // Act & Assert: 超出上限的请求立即失败，不调用服务
+        mockMvc.perform(delete("/transactions/{id}", 1L))
+                .andExpect(status().isOk());
+        verify(transactionService, times(0)).createTransaction(any(TransactionDTO.class));
+        assertEquals(1.0, meterRegistry.counter("transaction.biz.errors", "reason", "OVERLOADED").count() - overloadedBefore);
+    }
+
+    @Test
+    public void testCachedReadBypassesLimit() throws Exception {
+        // Arrange
+        TransactionVO transactionVO = new TransactionVO();
+        transactionVO.setId(1L);
+        transactionVO.setTransactionNo("12345");
+        when(transactionService.getTransactionById(1L)).thenReturn(Optional.of(transactionVO));
+        mockMvc.perform(get("/transactions/1")).andExpect(status().isOk());
+        doNothing().when(transactionService).deleteTransaction(3L);
+
+        // Act & Assert: 读名额为1，查询ID 2占用名额期间，命中响应缓存的查询和写入仍然成功，需要查库的查询被拒绝
+        when(transactionService.getTransactionById(2L)).thenAnswer(invocation -> {
+            mockMvc.perform(get("/transactions/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.transactionNo").value("12345"));
+            mockMvc.perform(delete("/transactions/{id}", 3L))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/transactions/4"))
+                    .andExpect(status().isServiceUnavailable());
+            return Optional.empty();
+        });
+        mockMvc.perform(get("/transactions/2")).andExpect(status().isOk());
+        verify(transactionService, times(0)).getTransactionById(4L);
+        verify(transactionService, times(1)).deleteTransaction(3L);
+    }
+
     @Test
     public void testModifyTransaction() throws Exception {
         // Arrange
@@ -157,4 +486,94 @@ public class TransactionControllerTest{
                 .andExpect(jsonPath("$.data.id").value(1L))
                 .andExpect(jsonPath("$.data.transactionNo").value("12345"));
     }
+
+    @Test
+    public void testModifyTransactionIfMatch() throws Exception {
+        // Arrange
+        TransactionModifyDTO dto = new TransactionModifyDTO();
+        dto.setDescription("Test Transaction");
+        dto.setAmount(new BigDecimal("100.00"));
+        dto.setSourceAccountId(1L);
+        dto.setTargetAccountId(2L);
+        TransactionVO vo = new TransactionVO();
+        vo.setId(1L);
+        vo.setVersion(4L);
+        when(transactionService.modifyTransaction(eq(1L), any(TransactionModifyDTO.class))).thenReturn(vo);
+
+        // Act & Assert: If-Match中的版本传给服务，响应的ETag为修改后的版本
+        mockMvc.perform(put("/transactions/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+        verify(transactionService).modifyTransaction(eq(1L), argThat(modify -> Long.valueOf(3L).equals(modify.getVersion())));
+    }
+
+    @Test
+    public void testModifyTransactionVersionConflict() throws Exception {
+        // Arrange
+        TransactionModifyDTO dto = new TransactionModifyDTO();
+        dto.setDescription("Test Transaction");
+        dto.setAmount(new BigDecimal("100.00"));
+        dto.setSourceAccountId(1L);
+        dto.setTargetAccountId(2L);
+        when(transactionService.modifyTransaction(eq(1L), any(TransactionModifyDTO.class)))
+                .thenThrow(new BizException(BizErrorEnum.VERSION_CONFLICT, "Transaction with id 1 has been modified, current version is 4."));
+
+        // Act & Assert
+        mockMvc.perform(put("/transactions/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.code").value(1002));
+        mockMvc.perform(put("/transactions/1")
+                .header("If-Match", "\"abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals(2.0, meterRegistry.counter("transaction.biz.errors", "reason", "VERSION_CONFLICT").count());
+    }
+
+    @Test
+    public void testGetTransactionByIdNotModified() throws Exception {
+        // Arrange
+        TransactionVO transactionVO = new TransactionVO();
+        transactionVO.setId(1L);
+        transactionVO.setVersion(2L);
+        when(transactionService.getTransactionById(1L)).thenReturn(Optional.of(transactionVO));
+        mockMvc.perform(get("/transactions/1"))
+                .andExpect(header().string("ETag", "\"2\""));
+
+        // Act & Assert: 版本未变时返回304，命中响应缓存不再查询
+        MvcResult result = mockMvc.perform(get("/transactions/1").header("If-None-Match", "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andReturn();
+        assertEquals(0, result.getResponse().getContentLength());
+        mockMvc.perform(get("/transactions/1").header("If-None-Match", "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.version").value(2L));
+        verify(transactionService, times(1)).getTransactionById(1L);
+    }
+
+    @Test
+    public void testListAllTransactionsNotModified() throws Exception {
+        // Arrange
+        when(transactionService.listAllTransactions(isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(new TransactionVO())));
+        String eTag = mockMvc.perform(get("/transactions")).andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert: 没有交易变更时直接返回304
+        mockMvc.perform(get("/transactions").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        verify(transactionService, times(1)).listAllTransactions(isNull(), isNull(), isNull(), any(Pageable.class));
+
+        // Act & Assert: 任何交易变更后ETag失效
+        transactionResponseCache.onTransactionChanged(TransactionChangedEvent.deleted(99L, null));
+        mockMvc.perform(get("/transactions").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+        verify(transactionService, times(2)).listAllTransactions(isNull(), isNull(), isNull(), any(Pageable.class));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.hsbc.management.controller;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hsbc.management.common.vo.TransactionImportVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.bulkimport.TransactionImporter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+@WebMvcTest(TransactionImportController.class)
+@Import(SimpleMeterRegistry.class)
+public class TransactionImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionImporter transactionImporter;
+
+    private TransactionImportVO buildImportVO() {
+        TransactionImportVO vo = new TransactionImportVO();
+        vo.setPath("history.csv");
+        vo.setFormat("CSV");
+        vo.setStatus("RUNNING");
+        vo.setFileSize(1000L);
+        vo.setPosition(250L);
+        vo.setImported(9L);
+        vo.setRejected(1L);
+        vo.setProgress(25.0);
+        return vo;
+    }
+
+    @Test
+    public void testStartImport() throws Exception {
+        // Arrange
+        when(transactionImporter.start(eq("history.csv"), isNull())).thenReturn(buildImportVO());
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/transactions/imports")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"path\":\"history.csv\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("RUNNING"))
+                .andExpect(jsonPath("$.data.progress").value(25.0));
+    }
+
+    @Test
+    public void testStartImportInvalid() throws Exception {
+        // Arrange
+        when(transactionImporter.start("../etc/passwd", null))
+                .thenThrow(new BizException(BizErrorEnum.INVALID_PARAM, "Import file ../etc/passwd does not exist."));
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/transactions/imports")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"path\":\"\"}"))
+                .andExpect(jsonPath("$.code").value(1001));
+        mockMvc.perform(post("/admin/transactions/imports")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"path\":\"../etc/passwd\"}"))
+                .andExpect(jsonPath("$.code").value(1002))
+                .andExpect(jsonPath("$.msg").value("Import file ../etc/passwd does not exist."));
+    }
+
+    @Test
+    public void testGetImport() throws Exception {
+        // Arrange
+        when(transactionImporter.getJob("history.csv")).thenReturn(Optional.of(buildImportVO()));
+
+        // Act & Assert
+        mockMvc.perform(get("/admin/transactions/imports").param("path", "history.csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported").value(9))
+                .andExpect(jsonPath("$.data.rejected").value(1));
+    }
+
+}
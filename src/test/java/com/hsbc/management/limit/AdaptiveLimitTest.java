@@ -0,0 +1,108 @@
+package com.hsbc.management.limit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void testRejectsOverLimit() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 2.0, 0.2);
+
+        // Act & Assert
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.release(FAST);
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    void testReleaseWithoutSampleKeepsLimit() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 2.0, 0.2);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+
+        // Act: 长时间操作释放名额时不记录耗时
+        limit.releaseWithoutSample();
+        limit.releaseWithoutSample();
+
+        // Assert
+        assertEquals(0, limit.getInFlight());
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void testGrowsWhileLatencyStable() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100, 2.0, 0.2);
+
+        // Act: 请求占满上限且耗时稳定
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(FAST, limit.getLimit());
+        }
+
+        // Assert
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    void testShrinksWhenLatencyRises() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(50, 2, 100, 2.0, 0.2);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, limit.getLimit());
+        }
+        int before = limit.getLimit();
+
+        // Act: 耗时升高到基线的20倍
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(SLOW, limit.getLimit());
+        }
+
+        // Assert
+        assertTrue(limit.getLimit() < before / 4, "limit " + limit.getLimit() + " not reduced from " + before);
+        assertTrue(limit.getLimit() >= 2);
+    }
+
+    @Test
+    void testSustainedCongestionKeepsLimitLow() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(50, 2, 100, 2.0, 0.2);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, limit.getLimit());
+        }
+
+        // Act: 在途请求仍占满上限，耗时持续偏高，远超长期均值的窗口
+        for (int i = 0; i < 5000; i++) {
+            limit.onSample(SLOW / 4, limit.getLimit());
+        }
+
+        // Assert: 排队的耗时不会被当作基线，上限不会回升
+        assertTrue(limit.getLimit() <= 10, "limit " + limit.getLimit() + " recovered during congestion");
+    }
+
+    @Test
+    void testIdleDoesNotChangeLimit() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(20, 1, 100, 2.0, 0.2);
+
+        // Act: 在途请求不足上限一半
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(i % 2 == 0 ? FAST : SLOW, 5);
+        }
+
+        // Assert
+        assertEquals(20, limit.getLimit());
+    }
+}
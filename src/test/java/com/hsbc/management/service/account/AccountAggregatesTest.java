@@ -0,0 +1,207 @@
+package com.hsbc.management.service.account;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.event.TransactionChangedEvent.Flow;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class AccountAggregatesTest {
+
+    private AccountAggregates accountAggregates;
+
+    @BeforeEach
+    void setUp() {
+        accountAggregates = new AccountAggregates();
+        // 模拟启动时对空表的重建
+        accountAggregates.rebuild(loader -> {
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(accountAggregates);
+    }
+
+    private Transaction buildTransaction(long id, long sourceAccountId, long targetAccountId, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setSourceAccountId(sourceAccountId);
+        transaction.setTargetAccountId(targetAccountId);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+
+    /**
+     * 模拟一个事务：在同步回调激活的状态下发布事件，然后按提交流程依次回调
+     */
+    private void inTransaction(boolean commit, TransactionChangedEvent... events) {
+        TransactionSynchronizationManager.initSynchronization();
+        for (TransactionChangedEvent event : events) {
+            accountAggregates.onTransactionChanged(event);
+        }
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (commit) {
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        }
+        int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @Test
+    void testCreateModifyDelete() {
+        // Act
+        accountAggregates.onTransactionChanged(TransactionChangedEvent.created(buildTransaction(1L, 1L, 2L, "100.00")));
+        accountAggregates.onTransactionChanged(TransactionChangedEvent.created(buildTransaction(2L, 2L, 1L, "30.50")));
+        // 交易1改为3->2 80，账号1的转出移到账号3
+        accountAggregates.onTransactionChanged(TransactionChangedEvent.modified(1L,
+                new Flow(1L, 2L, new BigDecimal("100.00")), new Flow(3L, 2L, new BigDecimal("80.00"))));
+
+        // Assert
+        AccountSummaryVO first = accountAggregates.get(1L);
+        assertEquals(new BigDecimal("0.00"), first.getOutflow());
+        assertEquals(new BigDecimal("30.50"), first.getInflow());
+        assertEquals(new BigDecimal("30.50"), first.getNet());
+        assertEquals(0L, first.getOutflowCount());
+        assertEquals(1L, first.getCount());
+        AccountSummaryVO second = accountAggregates.get(2L);
+        assertEquals(new BigDecimal("80.00"), second.getInflow());
+        assertEquals(new BigDecimal("49.50"), second.getNet());
+        assertEquals(2L, second.getCount());
+        assertEquals(new BigDecimal("-80.00"), accountAggregates.get(3L).getNet());
+
+        // Act
+        accountAggregates.onTransactionChanged(TransactionChangedEvent.deleted(2L, new Flow(2L, 1L, new BigDecimal("30.50"))));
+
+        // Assert
+        assertEquals(0L, accountAggregates.get(1L).getCount());
+        assertEquals(new BigDecimal("80.00"), accountAggregates.get(2L).getNet());
+        assertEquals(new BigDecimal("0.00"), accountAggregates.get(99L).getNet());
+    }
+
+    @Test
+    void testNotReadyUntilRebuilt() {
+        // Arrange
+        AccountAggregates starting = new AccountAggregates();
+
+        // Act & Assert: 启动时的重建完成前返回未就绪，而不是全为0的汇总
+        BizException notReady = assertThrows(BizException.class, () -> starting.get(1L));
+        assertEquals(BizErrorEnum.NOT_READY, notReady.getError());
+        starting.rebuild(loader -> loader.outflow(1L, new BigDecimal("10.00"), 1));
+        assertEquals(new BigDecimal("-10.00"), starting.get(1L).getNet());
+    }
+
+    @Test
+    void testNullColumnsInRebuild() {
+        // Act
+        accountAggregates.rebuild(loader -> {
+            loader.outflow(null, new BigDecimal("5.00"), 1);
+            loader.inflow(3L, null, 2);
+        });
+
+        // Assert: 空账号不计入，空金额只计笔数
+        assertEquals(new BigDecimal("0.00"), accountAggregates.get(3L).getInflow());
+        assertEquals(2L, accountAggregates.get(3L).getInflowCount());
+    }
+
+    @Test
+    void testNullColumnsInEvents() {
+        // Act: 金额、收款账号为空的交易被修改为完整的交易
+        accountAggregates.onTransactionChanged(TransactionChangedEvent.modified(1L,
+                new Flow(1L, null, null), new Flow(1L, 2L, new BigDecimal("10.00"))));
+
+        // Assert: 修改前的流向只撤销来源账号的1笔，金额按0计
+        assertEquals(new BigDecimal("-10.00"), accountAggregates.get(1L).getNet());
+        assertEquals(0L, accountAggregates.get(1L).getOutflowCount());
+        assertEquals(new BigDecimal("10.00"), accountAggregates.get(2L).getInflow());
+    }
+
+    @Test
+    void testAppliedAfterCommitOnly() {
+        // Act
+        inTransaction(false, TransactionChangedEvent.created(buildTransaction(1L, 1L, 2L, "100.00")));
+        inTransaction(true,
+                TransactionChangedEvent.created(buildTransaction(2L, 1L, 2L, "10.00")),
+                TransactionChangedEvent.created(buildTransaction(3L, 1L, 2L, "20.00")));
+
+        // Assert
+        assertEquals(new BigDecimal("30.00"), accountAggregates.get(1L).getOutflow());
+        assertEquals(2L, accountAggregates.get(2L).getInflowCount());
+        assertNull(TransactionSynchronizationManager.getResource(accountAggregates));
+    }
+
+    @Test
+    void testConcurrentCreates() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act: 8个线程在同一对账号上各创建1000笔
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    accountAggregates.onTransactionChanged(TransactionChangedEvent.created(buildTransaction(i, 1L, 2L, "0.01")));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        // Assert
+        assertEquals(new BigDecimal("80.00"), accountAggregates.get(2L).getInflow());
+        assertEquals(8000L, accountAggregates.get(1L).getOutflowCount());
+    }
+
+    @Test
+    void testRebuildWaitsForCommittingWriters() throws Exception {
+        // Arrange: 一个写事务已进入提交，持有栅栏读锁
+        TransactionSynchronizationManager.initSynchronization();
+        accountAggregates.onTransactionChanged(TransactionChangedEvent.created(buildTransaction(1L, 1L, 2L, "5.00")));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        // Act: 重建读到的数据已包含该交易
+        Future<?> rebuild = pool.submit(() -> {
+            accountAggregates.rebuild(loader -> {
+                loader.outflow(1L, new BigDecimal("5.00"), 1);
+                loader.inflow(2L, new BigDecimal("5.00"), 1);
+            });
+            rebuilt.countDown();
+        });
+
+        // Assert: 重建等待写事务应用完差额后才替换，结果不重复计算
+        assertFalse(rebuilt.await(200, TimeUnit.MILLISECONDS));
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        rebuild.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(new BigDecimal("5.00"), accountAggregates.get(1L).getOutflow());
+        assertEquals(1L, accountAggregates.get(2L).getInflowCount());
+    }
+}
@@ -0,0 +1,68 @@
+package com.hsbc.management.service.bulkimport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.service.bulkimport.TransactionLineParser.ParsedLine;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class TransactionLineParserTest {
+
+    @Test
+    void testParseCsvExportFormat() {
+        // Arrange
+        TransactionLineParser parser = TransactionLineParser.csv("id,transactionNo,sourceAccountId,targetAccountId,amount,description,createTime,updateTime");
+
+        // Act
+        ParsedLine line = parser.parse(2, "7,10001,1,2,100.50,\"rent, \"\"May\"\"\",1500,1600");
+
+        // Assert
+        assertNull(line.error());
+        assertEquals(2, line.lineNo());
+        assertEquals("10001", line.dto().getTransactionNo());
+        assertEquals(1L, line.dto().getSourceAccountId());
+        assertEquals(2L, line.dto().getTargetAccountId());
+        assertEquals(new BigDecimal("100.50"), line.dto().getAmount());
+        assertEquals("rent, \"May\"", line.dto().getDescription());
+        assertEquals(1500L, line.createTime());
+        assertEquals(1600L, line.updateTime());
+    }
+
+    @Test
+    void testParseCsvRejected() {
+        // Arrange
+        TransactionLineParser parser = TransactionLineParser.csv("transactionNo,sourceAccountId,targetAccountId,amount");
+
+        // Act & Assert
+        assertTrue(parser.parse(2, "10001,1,2,abc").error().startsWith("invalid number"));
+        assertTrue(parser.parse(3, "10001,1,2,\"100").error().startsWith("malformed line"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionLineParser.csv("transactionNo,amount"));
+    }
+
+    @Test
+    void testParseNdjson() {
+        // Arrange
+        TransactionLineParser parser = TransactionLineParser.ndjson(new ObjectMapper());
+
+        // Act
+        ParsedLine line = parser.parse(1, "{\"id\":7,\"transactionNo\":\"10001\",\"sourceAccountId\":1,\"targetAccountId\":2,\"amount\":12345678901234.17,\"description\":\"rent\"}");
+
+        // Assert
+        assertNull(line.error());
+        assertEquals("10001", line.dto().getTransactionNo());
+        assertEquals(0, new BigDecimal("12345678901234.17").compareTo(line.dto().getAmount()));
+        assertNull(line.createTime());
+        assertTrue(parser.parse(2, "{\"transactionNo\":").error().startsWith("malformed line"));
+        assertTrue(parser.parse(3, "[1,2]").error().startsWith("malformed line"));
+    }
+
+    @Test
+    void testSplitCsv() {
+        // Act & Assert
+        assertEquals(List.of("a", "", "b,c", "d\"e"), TransactionLineParser.splitCsv("a,,\"b,c\",\"d\"\"e\""));
+    }
+}
@@ -0,0 +1,260 @@
+package com.hsbc.management.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hsbc.management.HomeworkApplication;
+import com.hsbc.management.cache.CacheRegions;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.vo.CacheRegionVO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.configuration.CacheConfig;
+import com.hsbc.management.service.TransactionService;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 缓存未命中的合并加载和分页的提前刷新，使用完整的应用上下文和内存库
+ */
+public class TransactionCacheLoadingTest {
+
+    private static final int BURST = 32;
+
+    private static ConfigurableApplicationContext context;
+
+    private static TransactionService transactionService;
+
+    private static Statistics statistics;
+
+    private static final AtomicReference<CountDownLatch> reloadGate = new AtomicReference<>();
+
+    private static volatile Thread gateOwner;
+
+    @BeforeAll
+    static void setUp() {
+        context = new SpringApplicationBuilder(HomeworkApplication.class)
+                .initializers(TransactionCacheLoadingTest::gateBackgroundConnections)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.springframework.cache=WARN",
+                        "--transaction.cache.regions.transactionPages.refresh-after-write=200ms");
+        transactionService = context.getBean(TransactionService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        context.close();
+    }
+
+    /**
+     * reloadGate不为空时，除gateOwner外的线程取得连接前等待该latch；分页缓存的后台刷新由Caffeine提交到ForkJoinPool.commonPool()，
+     * 单核时CompletableFuture改为每个任务新建线程，因此不按ForkJoinWorkerThread判断
+     */
+    private static void gateBackgroundConnections(ConfigurableApplicationContext context) {
+        context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return new DelegatingDataSource(dataSource) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        CountDownLatch gate = reloadGate.get();
+                        if (gate != null && Thread.currentThread() != gateOwner) {
+                            try {
+                                gate.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return super.getConnection();
+                    }
+                };
+            }
+        });
+    }
+
+    private TransactionDTO buildTransaction(String transactionNo) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo(transactionNo);
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.50"));
+        dto.setDescription("Test Transaction");
+        return dto;
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        // Arrange
+        Long id = transactionService.createTransaction(buildTransaction("S0001")).getId();
+        context.getBean(CacheManager.class).getCache(CacheConfig.TRANSACTION_CACHE).evict(id);
+        ExecutorService executor = Executors.newFixedThreadPool(BURST);
+        CountDownLatch start = new CountDownLatch(1);
+        long queriesBefore = statistics.getQueryExecutionCount();
+
+        // Act: BURST个线程同时请求同一个未缓存的ID
+        List<Future<Optional<TransactionVO>>> results = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return transactionService.getTransactionById(id);
+            }));
+        }
+        start.countDown();
+        for (Future<Optional<TransactionVO>> result : results) {
+            assertTrue(result.get().isPresent());
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, statistics.getQueryExecutionCount() - queriesBefore);
+    }
+
+    @Test
+    void testFilterNegativeNotCached() {
+        // Arrange: 同一节点的ID按序列分配，紧随其后的ID尚不存在
+        Long first = transactionService.createTransaction(buildTransaction("N0001")).getId();
+        Cache cache = context.getBean(CacheManager.class).getCache(CacheConfig.TRANSACTION_CACHE);
+
+        // Act
+        Optional<TransactionVO> missing = transactionService.getTransactionById(first + 1);
+
+        // Assert: 布隆过滤器判定不存在的结果没有写入缓存
+        assertTrue(missing.isEmpty());
+        assertNull(cache.get(first + 1));
+
+        // Act
+        List<Long> ids = transactionService.batchCreateTransactions(List.of(buildTransaction("N0002"), buildTransaction("N0003")))
+                .stream().map(item -> item.getTransaction().getId()).toList();
+
+        // Assert
+        assertEquals(first + 1, ids.get(0));
+        ids.forEach(id -> assertTrue(transactionService.getTransactionById(id).isPresent()));
+    }
+
+    @Test
+    void testRowInsertedOutsideServiceFound() {
+        // Arrange: 直接SQL写入的行不会记入布隆过滤器
+        Long id = transactionService.createTransaction(buildTransaction("O0001")).getId() + 1_000_000;
+        context.getBean(JdbcTemplate.class).update("insert into transaction_management (id, transaction_no, source_account_id,"
+                + " target_account_id, amount, description, create_time, update_time, version)"
+                + " values (?, 'O0002', 1, 2, 1.00, 'direct sql', 0, 0, 0)", id);
+        Cache cache = context.getBean(CacheManager.class).getCache(CacheConfig.TRANSACTION_CACHE);
+
+        // Act
+        Optional<TransactionVO> first = transactionService.getTransactionById(id);
+        Optional<TransactionVO> second = transactionService.getTransactionById(id);
+
+        // Assert: 判定不存在时查库确认，查到后补入过滤器，之后的查询进入缓存
+        assertEquals("direct sql", first.orElseThrow().getDescription());
+        assertEquals("direct sql", second.orElseThrow().getDescription());
+        assertNotNull(cache.get(id));
+    }
+
+    @Test
+    void testCreatedEvictsCachedEmpty() {
+        // Arrange: 模拟布隆过滤器误判后缓存了空结果
+        Long first = transactionService.createTransaction(buildTransaction("E0001")).getId();
+        Cache cache = context.getBean(CacheManager.class).getCache(CacheConfig.TRANSACTION_CACHE);
+        for (long id = first + 1; id <= first + 2; id++) {
+            cache.put(id, null);
+        }
+
+        // Act
+        List<Long> ids = transactionService.batchCreateTransactions(List.of(buildTransaction("E0002"), buildTransaction("E0003")))
+                .stream().map(item -> item.getTransaction().getId()).toList();
+
+        // Assert
+        assertEquals(List.of(first + 1, first + 2), ids);
+        ids.forEach(id -> assertTrue(transactionService.getTransactionById(id).isPresent()));
+    }
+
+    @Test
+    void testHotPageRefreshedAhead() throws Exception {
+        // Arrange
+        Long id = transactionService.createTransaction(buildTransaction("R0001")).getId();
+        PageRequest pageable = PageRequest.of(0, 1000);
+        assertEquals("Test Transaction", description(transactionService.listAllTransactions(null, null, null, pageable), id));
+        // 绕过服务直接修改，不发布变更事件，列表版本号不变
+        context.getBean(JdbcTemplate.class).update("update transaction_management set description = 'Changed' where id = ?", id);
+
+        // Act: 后台刷新在取得连接时等待，直到本次访问返回
+        CountDownLatch gate = new CountDownLatch(1);
+        Page<TransactionVO> refreshing;
+        gateOwner = Thread.currentThread();
+        reloadGate.set(gate);
+        try {
+            Thread.sleep(300);
+            refreshing = transactionService.listAllTransactions(null, null, null, pageable);
+        } finally {
+            reloadGate.set(null);
+            gate.countDown();
+        }
+
+        // Assert: 超过刷新间隔的访问不等待查询，返回旧数据；后台刷新完成后同一key返回新数据
+        assertEquals("Test Transaction", description(refreshing, id));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"Changed".equals(description(transactionService.listAllTransactions(null, null, null, pageable), id))) {
+            assertTrue(System.currentTimeMillis() < deadline, "page not refreshed within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testSearchesUseOwnRegion() {
+        // Arrange
+        transactionService.createTransaction(buildTransaction("Q0001"));
+        CacheRegions cacheRegions = context.getBean(CacheRegions.class);
+        long pagesBefore = region(cacheRegions, CacheConfig.PAGE_CACHE).getMissCount();
+        long searchesBefore = region(cacheRegions, CacheConfig.SEARCH_CACHE).getMissCount();
+
+        // Act
+        transactionService.listAllTransactions("Q0001", null, null, PageRequest.of(0, 10));
+        transactionService.listAllTransactions(null, 0L, null, PageRequest.of(0, 10));
+        transactionService.listAllTransactions(null, null, null, PageRequest.of(0, 10));
+
+        // Assert: 带交易编号或时间范围的查询进入搜索结果区域
+        assertEquals(2, region(cacheRegions, CacheConfig.SEARCH_CACHE).getMissCount() - searchesBefore);
+        assertEquals(1, region(cacheRegions, CacheConfig.PAGE_CACHE).getMissCount() - pagesBefore);
+    }
+
+    private static CacheRegionVO region(CacheRegions cacheRegions, String name) {
+        return cacheRegions.list().stream().filter(region -> region.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static String description(Page<TransactionVO> page, Long id) {
+        return page.getContent().stream().filter(t -> t.getId().equals(id)).findFirst().orElseThrow().getDescription();
+    }
+}
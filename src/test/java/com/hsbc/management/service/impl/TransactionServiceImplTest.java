@@ -8,35 +8,95 @@ import static org.mockito.Mockito.*;
 import com.hsbc.management.common.dto.TransactionDTO;
 import com.hsbc.management.common.dto.TransactionModifyDTO;
 import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.event.TransactionChangedEvent.Flow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.AccountRole;
+import com.hsbc.management.common.CursorCodec;
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionBatchItemVO;
 import com.hsbc.management.common.vo.TransactionVO;
 import com.hsbc.management.dao.TransactionRepository;
+import com.hsbc.management.exception.BizErrorEnum;
 import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.index.TransactionExistenceFilter;
+import com.hsbc.management.service.index.TransactionNoGramIndex;
+import com.hsbc.management.service.writebehind.TransactionWriteBehind;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class TransactionServiceImplTest{
 
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionNoGramIndex transactionNoGramIndex;
+
+    @Mock
+    private TransactionExistenceFilter transactionExistenceFilter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheManager cacheManager;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(transactionService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(transactionService, "objectMapper", new ObjectMapper());
+        when(transactionExistenceFilter.mightContainTransactionNo(anyString())).thenReturn(true);
+        when(transactionExistenceFilter.mightContainId(anyLong())).thenReturn(true);
+    }
+
+    private TransactionDTO buildTransactionDTO(String transactionNo) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setTransactionNo(transactionNo);
+        transactionDTO.setSourceAccountId(1L);
+        transactionDTO.setTargetAccountId(2L);
+        transactionDTO.setAmount(BigDecimal.valueOf(100));
+        transactionDTO.setDescription("Test Transaction");
+        return transactionDTO;
     }
 
     @Test
@@ -59,6 +119,7 @@ public class TransactionServiceImplTest{
         assertEquals("Transaction with transactionNo 12345 already exists.", exception.getMessage());
         verify(transactionRepository, times(1)).findByTransactionNo("12345");
         verify(transactionRepository, times(0)).save(any(Transaction.class));
+        verify(eventPublisher, times(0)).publishEvent(any(TransactionChangedEvent.class));
     }
 
     @Test
@@ -82,7 +143,7 @@ public class TransactionServiceImplTest{
         transaction.setUpdateTime(now);
     
         when(transactionRepository.findByTransactionNo("12345")).thenReturn(Optional.empty());
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenReturn(transaction);
     
         // Act
         TransactionVO result = transactionService.createTransaction(transactionDTO);
@@ -93,26 +154,186 @@ public class TransactionServiceImplTest{
         assertEquals(BigDecimal.valueOf(100), result.getAmount());
         assertEquals("Test Transaction", result.getDescription());
         verify(transactionRepository, times(1)).findByTransactionNo("12345");
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(transactionRepository, times(1)).saveAndFlush(any(Transaction.class));
+        verify(transactionNoGramIndex, times(1)).index(transaction);
+        verify(eventPublisher, times(1)).publishEvent(any(TransactionChangedEvent.class));
+    }
+
+    @Test
+    void testCreateTransactionFilterMissSkipsLookup() {
+        // Arrange
+        Transaction saved = new Transaction();
+        saved.setId(1L);
+        saved.setTransactionNo("12345");
+        when(transactionExistenceFilter.mightContainTransactionNo("12345")).thenReturn(false);
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenReturn(saved);
+
+        // Act
+        TransactionVO result = transactionService.createTransaction(buildTransactionDTO("12345"));
+
+        // Assert
+        assertEquals(1L, result.getId());
+        verify(transactionRepository, never()).findByTransactionNo(anyString());
+        verify(transactionExistenceFilter, times(1)).add(1L, "12345");
+    }
+
+    @Test
+    void testCreateTransactionUniqueIndexConflict() {
+        // Arrange
+        when(transactionExistenceFilter.mightContainTransactionNo("12345")).thenReturn(false);
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException("Unique index or primary key violation: \"PUBLIC.IDX_TRANSACTION_NO ON PUBLIC.TRANSACTION_MANAGEMENT(TRANSACTION_NO)\"")));
+
+        // Act & Assert
+        BizException exception = assertThrows(BizException.class, () -> transactionService.createTransaction(buildTransactionDTO("12345")));
+        assertEquals("Transaction with transactionNo 12345 already exists.", exception.getMessage());
+        verify(transactionExistenceFilter, never()).add(anyLong(), anyString());
+        verifyNoInteractions(transactionNoGramIndex, eventPublisher);
+    }
+
+    @Test
+    void testCreateTransactionWriteBehind() {
+        // Arrange
+        TransactionWriteBehind writeBehind = mock(TransactionWriteBehind.class);
+        ReflectionTestUtils.setField(transactionService, "transactionWriteBehind", writeBehind);
+        when(writeBehind.submit(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            transaction.setId(51L);
+            return transaction;
+        });
+
+        // Act
+        TransactionVO result = transactionService.createTransaction(buildTransactionDTO("12345"));
+
+        // Assert
+        assertEquals(51L, result.getId());
+        assertEquals("12345", result.getTransactionNo());
+        verify(writeBehind, times(1)).submit(any(Transaction.class));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verifyNoInteractions(transactionNoGramIndex, eventPublisher, transactionManager);
+    }
+
+    @Test
+    void testBatchCreateTransactions() {
+        // Arrange
+        TransactionDTO invalid = buildTransactionDTO("1");
+        List<TransactionDTO> dtos = Arrays.asList(buildTransactionDTO("10001"), buildTransactionDTO("10002"),
+                buildTransactionDTO("10001"), invalid);
+        Transaction saved = new Transaction();
+        saved.setId(1L);
+        saved.setTransactionNo("10001");
+
+        when(transactionRepository.findExistingTransactionNos(any())).thenReturn(List.of("10002"));
+        when(transactionRepository.saveAllAndFlush(anyList())).thenReturn(List.of(saved));
+
+        // Act
+        List<TransactionBatchItemVO> results = transactionService.batchCreateTransactions(dtos);
+
+        // Assert
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(1L, results.get(0).getTransaction().getId());
+        assertEquals("Transaction with transactionNo 10002 already exists.", results.get(1).getMsg());
+        assertEquals("Transaction with transactionNo 10001 is duplicated in batch.", results.get(2).getMsg());
+        assertFalse(results.get(3).isSuccess());
+        assertTrue(results.get(3).getMsg().contains("transactionNo"));
+        verify(transactionRepository, times(1)).findExistingTransactionNos(any());
+        verify(transactionRepository, never()).findByTransactionNo(anyString());
+        verify(eventPublisher, times(1)).publishEvent(any(TransactionChangedEvent.class));
+    }
+
+    @Test
+    void testBatchCreateTransactionsConcurrentConflict() {
+        // Arrange: IN查询之后10002被并发创建，整批插入触发唯一索引冲突
+        List<TransactionDTO> dtos = Arrays.asList(buildTransactionDTO("10001"), buildTransactionDTO("10002"));
+        Transaction saved = new Transaction();
+        saved.setId(1L);
+        saved.setTransactionNo("10001");
+        DataIntegrityViolationException conflict = new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException("Unique index or primary key violation: \"PUBLIC.IDX_TRANSACTION_NO ON PUBLIC.TRANSACTION_MANAGEMENT(TRANSACTION_NO)\""));
+        when(transactionRepository.findExistingTransactionNos(any())).thenReturn(List.of());
+        when(transactionRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            if (transactions.size() > 1 || transactions.get(0).getTransactionNo().equals("10002")) {
+                throw conflict;
+            }
+            return List.of(saved);
+        });
+
+        // Act
+        List<TransactionBatchItemVO> results = transactionService.batchCreateTransactions(dtos);
+
+        // Assert: 逐条重试，冲突的记录单独标记失败
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(1L, results.get(0).getTransaction().getId());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Transaction with transactionNo 10002 already exists.", results.get(1).getMsg());
+        verify(transactionExistenceFilter, times(1)).add(1L, "10001");
+    }
+
+    private Transaction buildTransaction(Long id, Long sourceAccountId, Long targetAccountId, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionNo("12345");
+        transaction.setSourceAccountId(sourceAccountId);
+        transaction.setTargetAccountId(targetAccountId);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+
+    private static List<Object[]> row(Object... columns) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(columns);
+        return rows;
+    }
+
+    private TransactionModifyDTO buildModify(Long version) {
+        TransactionModifyDTO dto = new TransactionModifyDTO();
+        dto.setSourceAccountId(3L);
+        dto.setTargetAccountId(2L);
+        dto.setAmount(new BigDecimal("80.00"));
+        dto.setDescription("Modified");
+        dto.setVersion(version);
+        return dto;
     }
 
     @Test
     void testDeleteTransactionTransactionExists() {
         // Arrange
         Long transactionId = 1L;
-        when(transactionRepository.existsById(transactionId)).thenReturn(true);
+        when(transactionRepository.deleteReturningFlow(transactionId)).thenReturn(row(1L, 2L, new BigDecimal("100.00")));
     
-        // Act & Assert
+        // Act & Assert: 一条DELETE语句完成，不先查询
         transactionService.deleteTransaction(transactionId);
-        verify(transactionRepository, times(1)).deleteById(transactionId);
-        verify(transactionRepository, times(1)).existsById(transactionId);
+        verify(transactionRepository, times(1)).deleteReturningFlow(transactionId);
+        verify(transactionNoGramIndex, times(1)).remove(transactionId);
+        verify(transactionRepository, never()).findById(any());
+        verify(eventPublisher, times(1)).publishEvent(new TransactionChangedEvent(TransactionChangedEvent.ChangeType.DELETED, transactionId,
+                new Flow(1L, 2L, new BigDecimal("100.00")), null));
+    }
+
+    @Test
+    void testDeleteTransactionFlushesWriteBehind() {
+        // Arrange
+        Long transactionId = 51L;
+        TransactionWriteBehind writeBehind = mock(TransactionWriteBehind.class);
+        ReflectionTestUtils.setField(transactionService, "transactionWriteBehind", writeBehind);
+        when(transactionRepository.deleteReturningFlow(transactionId)).thenReturn(row(1L, 2L, new BigDecimal("100.00")));
+
+        // Act
+        transactionService.deleteTransaction(transactionId);
+
+        // Assert
+        var inOrder = inOrder(writeBehind, transactionRepository);
+        inOrder.verify(writeBehind).flushIfPending(transactionId);
+        inOrder.verify(transactionRepository).deleteReturningFlow(transactionId);
     }
 
     @Test
     void testDeleteTransactionTransactionDoesNotExist() {
         // Arrange
         Long transactionId = 1L;
-        when(transactionRepository.existsById(transactionId)).thenReturn(false);
+        when(transactionRepository.deleteReturningFlow(transactionId)).thenReturn(List.of());
     
         // Act & Assert
         BizException exception = assertThrows(BizException.class, () -> {
@@ -120,25 +341,94 @@ public class TransactionServiceImplTest{
         });
     
         assertEquals("Transaction with id 1 does not exist.", exception.getMessage());
-        verify(transactionRepository, times(1)).existsById(transactionId);
-        verify(transactionRepository, times(0)).deleteById(transactionId);
+        verify(transactionNoGramIndex, never()).remove(transactionId);
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
+    @Test
+    void testModifyTransactionVersionConflict() {
+        // Arrange: 客户端读到的是版本1，交易已被修改为版本2
+        Long transactionId = 7L;
+        TransactionModifyDTO dto = buildModify(1L);
+        when(transactionRepository.updateReturningPrevious(eq(transactionId), eq(3L), eq(2L), eq(new BigDecimal("80.00")), eq("Modified"),
+                anyLong(), eq(1L))).thenReturn(List.of());
+        when(transactionRepository.findVOById(transactionId)).thenReturn(Optional.of(
+                new TransactionVO(transactionId, "T7", 1L, 2L, new BigDecimal("100.00"), null, 0L, 0L, 2L)));
 
+        // Act & Assert
+        BizException exception = assertThrows(BizException.class, () -> transactionService.modifyTransaction(transactionId, dto));
+        assertEquals(BizErrorEnum.VERSION_CONFLICT, exception.getError());
+        assertEquals("Transaction with id 7 has been modified, current version is 2.", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testModifyTransactionDoesNotExist() {
+        // Arrange
+        Long transactionId = 8L;
+        TransactionModifyDTO dto = buildModify(1L);
+        when(transactionRepository.updateReturningPrevious(any(), any(), any(), any(), any(), any(), any())).thenReturn(List.of());
+        when(transactionRepository.findVOById(transactionId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        BizException exception = assertThrows(BizException.class, () -> transactionService.modifyTransaction(transactionId, dto));
+        assertEquals(BizErrorEnum.TRANSACTION_NOT_FOUND, exception.getError());
+        assertEquals("Transaction with id 8 does not exist.", exception.getMessage());
+    }
+
+    @Test
+    void testModifyTransactionPublishesAccountChange() {
+        // Arrange: 修改同时变更了来源账号和金额，语句返回修改前的行
+        Long transactionId = 7L;
+        when(transactionRepository.updateReturningPrevious(eq(transactionId), eq(3L), eq(2L), eq(new BigDecimal("80.00")), eq("Modified"),
+                anyLong(), isNull())).thenReturn(row("T7", 1L, 2L, new BigDecimal("100.00"), 1000L, 4L));
+        TransactionModifyDTO dto = buildModify(null);
+
+        // Act
+        TransactionVO result = transactionService.modifyTransaction(transactionId, dto);
+
+        // Assert: 由修改前的行和dto组装结果，不再查询
+        assertEquals(3L, result.getSourceAccountId());
+        assertEquals("T7", result.getTransactionNo());
+        assertEquals(1000L, result.getCreateTime());
+        assertEquals(5L, result.getVersion());
+        verify(transactionRepository, never()).findVOById(any());
+        verify(transactionRepository, never()).findById(any());
+        verify(eventPublisher, times(1)).publishEvent(new TransactionChangedEvent(TransactionChangedEvent.ChangeType.MODIFIED, transactionId,
+                new Flow(1L, 2L, new BigDecimal("100.00")), new Flow(3L, 2L, new BigDecimal("80.00"))));
+    }
 
     @Test
     void testListAllTransactionsWithTransactionNo() {
         // Arrange
         String transactionNo = "12345";
         Pageable pageable = PageRequest.of(0, 10);
-        Transaction transaction = new Transaction();
-        Page<Transaction> transactionPage = new PageImpl<>(Collections.singletonList(transaction));
-    
+        Page<TransactionVO> transactionPage = new PageImpl<>(Collections.singletonList(new TransactionVO()));
+        Set<String> grams = Set.of("123", "234", "345");
+
+        when(transactionRepository.searchByTransactionNoGrams(transactionNo, grams, 3, pageable)).thenReturn(transactionPage);
+
+        // Act
+        Page<TransactionVO> result = transactionService.listAllTransactions(transactionNo, null, null, pageable);
+
+        // Assert
+        assertEquals(1, result.getTotalElements());
+        verify(transactionRepository, times(1)).searchByTransactionNoGrams(transactionNo, grams, 3, pageable);
+        verify(transactionRepository, never()).findByTransactionNoContaining(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void testListAllTransactionsWithShortTransactionNo() {
+        // Arrange
+        String transactionNo = "12";
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<TransactionVO> transactionPage = new PageImpl<>(Collections.singletonList(new TransactionVO()));
+
         when(transactionRepository.findByTransactionNoContaining(transactionNo, pageable)).thenReturn(transactionPage);
-    
+
         // Act
-        Page<TransactionVO> result = transactionService.listAllTransactions(transactionNo, pageable);
-    
+        Page<TransactionVO> result = transactionService.listAllTransactions(transactionNo, null, null, pageable);
+
         // Assert
         assertEquals(1, result.getTotalElements());
         verify(transactionRepository, times(1)).findByTransactionNoContaining(transactionNo, pageable);
@@ -148,26 +438,226 @@ public class TransactionServiceImplTest{
     void testListAllTransactionsWithoutTransactionNo() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        Transaction transaction = new Transaction();
-        Page<Transaction> transactionPage = new PageImpl<>(Collections.singletonList(transaction));
+        Page<TransactionVO> transactionPage = new PageImpl<>(Collections.singletonList(new TransactionVO()));
     
-        when(transactionRepository.findAll(pageable)).thenReturn(transactionPage);
+        when(transactionRepository.findAllVO(pageable)).thenReturn(transactionPage);
     
         // Act
-        Page<TransactionVO> result = transactionService.listAllTransactions(null, pageable);
+        Page<TransactionVO> result = transactionService.listAllTransactions(null, null, null, pageable);
     
         // Assert
         assertEquals(1, result.getTotalElements());
-        verify(transactionRepository, times(1)).findAll(pageable);
+        verify(transactionRepository, times(1)).findAllVO(pageable);
+        verify(transactionRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void testListAllTransactionsWithCreateTimeWindow() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<TransactionVO> transactionPage = new PageImpl<>(Collections.singletonList(new TransactionVO()));
+        when(transactionRepository.findByCreateTimeWindow("", 1000L, Long.MAX_VALUE, pageable)).thenReturn(transactionPage);
+
+        // Act
+        Page<TransactionVO> result = transactionService.listAllTransactions(null, 1000L, null, pageable);
+
+        // Assert
+        assertEquals(1, result.getTotalElements());
+        verify(transactionRepository, never()).findAllVO(any(Pageable.class));
+    }
+
+    @Test
+    void testScrollTransactionsCreateTimeWindow() {
+        // Arrange: 游标位于窗口内，以游标的创建时间作为范围下界
+        String cursor = CursorCodec.encode(1500L, 7L);
+        when(transactionRepository.findByCreateTimeWindowAfter("T1", 1500L, 2000L, 7L, Limit.of(3)))
+                .thenReturn(List.of(buildAccountTransaction(8L, 1500L), buildAccountTransaction(3L, 1600L), buildAccountTransaction(9L, 1700L)));
+
+        // Act
+        CursorPageVO<TransactionVO> result = transactionService.scrollTransactions("T1", 1000L, 2000L, cursor, 2);
+
+        // Assert
+        assertEquals(List.of(8L, 3L), result.getContent().stream().map(TransactionVO::getId).toList());
+        assertArrayEquals(new long[]{1600L, 3L}, CursorCodec.decode(result.getNextCursor(), 2));
+    }
+
+    @Test
+    void testScrollTransactionsCursorBeforeWindow() {
+        // Arrange: 游标早于窗口下限时从窗口起点开始
+        String cursor = CursorCodec.encode(500L, 7L);
+        when(transactionRepository.findByCreateTimeWindowAfter("", 1000L, Long.MAX_VALUE, Long.MIN_VALUE, Limit.of(11)))
+                .thenReturn(List.of(buildAccountTransaction(8L, 1000L)));
+
+        // Act
+        CursorPageVO<TransactionVO> result = transactionService.scrollTransactions(null, 1000L, null, cursor, 10);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNextCursor());
+        verify(transactionRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void testScrollTransactionsHasNext() {
+        // Arrange
+        Transaction first = new Transaction();
+        first.setId(5L);
+        Transaction second = new Transaction();
+        second.setId(6L);
+        Transaction third = new Transaction();
+        third.setId(7L);
+        String cursor = CursorCodec.encode(4L);
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(4L, Limit.of(3))).thenReturn(List.of(first, second, third));
+
+        // Act
+        CursorPageVO<TransactionVO> result = transactionService.scrollTransactions(null, null, null, cursor, 2);
+
+        // Assert
+        assertEquals(2, result.getContent().size());
+        assertTrue(result.isHasNext());
+        assertEquals(6L, CursorCodec.decode(result.getNextCursor(), 1)[0]);
+        verify(transactionRepository, times(0)).count();
+    }
+
+    @Test
+    void testScrollTransactionsLastPage() {
+        // Arrange
+        Transaction transaction = new Transaction();
+        transaction.setId(1L);
+        when(transactionRepository.searchByTransactionNoGramsAfterId("123", Set.of("123"), 1, 0L, Limit.of(11)))
+                .thenReturn(List.of(transaction));
+
+        // Act
+        CursorPageVO<TransactionVO> result = transactionService.scrollTransactions("123", null, null, null, 10);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testScrollTransactionsInvalidCursor() {
+        // Act & Assert
+        assertThrows(BizException.class, () -> transactionService.scrollTransactions(null, null, null, "not-a-cursor", 10));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private Transaction buildAccountTransaction(long id, long createTime) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setCreateTime(createTime);
+        return transaction;
+    }
+
+    @Test
+    void testListAccountTransactionsHasNext() {
+        // Arrange
+        String cursor = CursorCodec.encode(2000L, 9L);
+        when(transactionRepository.findBySourceAccountBefore(42L, 2000L, 9L, Limit.of(3)))
+                .thenReturn(List.of(buildAccountTransaction(8L, 2000L), buildAccountTransaction(5L, 1500L), buildAccountTransaction(7L, 1000L)));
+
+        // Act
+        CursorPageVO<TransactionVO> result = transactionService.listAccountTransactions(42L, AccountRole.SOURCE, cursor, 2);
+
+        // Assert
+        assertEquals(List.of(8L, 5L), result.getContent().stream().map(TransactionVO::getId).toList());
+        assertArrayEquals(new long[]{1500L, 5L}, CursorCodec.decode(result.getNextCursor(), 2));
+        verify(transactionRepository, never()).findByTargetAccountBefore(any(), any(), any(), any());
+    }
+
+    @Test
+    void testListAccountTransactionsAnyMergesBothIndexes() {
+        // Arrange: 交易3的来源和收款都是该账号，两边各返回一次
+        when(transactionRepository.findBySourceAccountBefore(42L, Long.MAX_VALUE, Long.MAX_VALUE, Limit.of(4)))
+                .thenReturn(List.of(buildAccountTransaction(6L, 3000L), buildAccountTransaction(3L, 2000L), buildAccountTransaction(1L, 1000L)));
+        when(transactionRepository.findByTargetAccountBefore(42L, Long.MAX_VALUE, Long.MAX_VALUE, Limit.of(4)))
+                .thenReturn(List.of(buildAccountTransaction(4L, 2000L), buildAccountTransaction(3L, 2000L), buildAccountTransaction(2L, 1500L)));
+
+        // Act
+        CursorPageVO<TransactionVO> result = transactionService.listAccountTransactions(42L, AccountRole.ANY, null, 3);
+
+        // Assert
+        assertEquals(List.of(6L, 4L, 3L), result.getContent().stream().map(TransactionVO::getId).toList());
+        assertArrayEquals(new long[]{2000L, 3L}, CursorCodec.decode(result.getNextCursor(), 2));
+    }
+
+    @Test
+    void testExportTransactionsNdjson() throws Exception {
+        // Arrange
+        Transaction first = new Transaction();
+        first.setId(1L);
+        first.setTransactionNo("10001");
+        Transaction second = new Transaction();
+        second.setId(2L);
+        second.setTransactionNo("10002");
+        when(transactionRepository.streamAll()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = transactionService.exportTransactions(null, null, ExportFormat.NDJSON, out);
+
+        // Assert
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"transactionNo\":\"10001\""));
+        assertTrue(lines[1].contains("\"id\":2"));
+        verify(entityManager, times(1)).detach(first);
+        verify(entityManager, times(1)).detach(second);
+    }
+
+    @Test
+    void testExportTransactionsCsv() throws Exception {
+        // Arrange
+        Transaction transaction = new Transaction();
+        transaction.setId(1L);
+        transaction.setTransactionNo("10001");
+        transaction.setAmount(new BigDecimal("100.50"));
+        transaction.setDescription("rent, \"May\"");
+        transaction.setCreateTime(1500L);
+        when(transactionRepository.streamByCreateTime(1000L, 2000L)).thenReturn(Stream.of(transaction));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = transactionService.exportTransactions(1000L, 2000L, ExportFormat.CSV, out);
+
+        // Assert
+        assertEquals(1, count);
+        assertEquals("id,transactionNo,sourceAccountId,targetAccountId,amount,description,createTime,updateTime\n"
+                + "1,10001,,,100.50,\"rent, \"\"May\"\"\",1500,\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testPurgeTransactions() {
+        // Arrange
+        Transaction first = buildTransaction(1L, 1L, 2L, "10.00");
+        Transaction second = buildTransaction(2L, 2L, 3L, "20.00");
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache("transactions")).thenReturn(cache);
+        when(transactionRepository.findOldestBefore(1000L, Limit.of(1000))).thenReturn(List.of(first, second));
+
+        // Act
+        long purged = transactionService.purgeTransactions(1000L);
+
+        // Assert: 不足一批时只执行一个事务
+        assertEquals(2, purged);
+        verify(transactionRepository, times(1)).findOldestBefore(anyLong(), any());
+        verify(transactionNoGramIndex, times(1)).remove(List.of(1L, 2L));
+        verify(transactionRepository, times(1)).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(cache, times(1)).evict(1L);
+        verify(cache, times(1)).evict(2L);
+        verify(eventPublisher, times(1)).publishEvent(TransactionChangedEvent.deleted(2L, new Flow(2L, 3L, new BigDecimal("20.00"))));
+        verify(transactionManager, times(1)).commit(any());
     }
 
     @Test
     void testGetTransactionByIdTransactionExists() {
         // Arrange
         Long transactionId = 1L;
-        Transaction transaction = new Transaction();
+        TransactionVO transaction = new TransactionVO();
         transaction.setId(transactionId);
-        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
+        when(transactionRepository.findVOById(transactionId)).thenReturn(Optional.of(transaction));
     
         // Act
         Optional<TransactionVO> result = transactionService.getTransactionById(transactionId);
@@ -175,21 +665,59 @@ public class TransactionServiceImplTest{
         // Assert
         assertTrue(result.isPresent());
         assertEquals(transactionId, result.get().getId());
-        verify(transactionRepository, times(1)).findById(transactionId);
+        verify(transactionRepository, times(1)).findVOById(transactionId);
+        verify(transactionRepository, never()).findById(anyLong());
     }
 
     @Test
     void testGetTransactionByIdTransactionDoesNotExist() {
         // Arrange
         Long transactionId = 1L;
-        when(transactionRepository.findById(transactionId)).thenReturn(Optional.empty());
+        when(transactionRepository.findVOById(transactionId)).thenReturn(Optional.empty());
     
         // Act
         Optional<TransactionVO> result = transactionService.getTransactionById(transactionId);
     
         // Assert
         assertFalse(result.isPresent());
-        verify(transactionRepository, times(1)).findById(transactionId);
+        verify(transactionRepository, times(1)).findVOById(transactionId);
+    }
+
+    @Test
+    void testGetTransactionByIdFilterMiss() {
+        // Arrange: 布隆过滤器没有记入其他实例写入的行
+        TransactionVO transactionVO = new TransactionVO();
+        transactionVO.setId(1L);
+        when(transactionExistenceFilter.mightContainId(1L)).thenReturn(false);
+        when(transactionRepository.findVOById(1L)).thenReturn(Optional.of(transactionVO));
+
+        // Act
+        Optional<TransactionVO> result = transactionService.getTransactionById(1L);
+
+        // Assert: 判定不存在时仍查库，查到后补入过滤器
+        assertTrue(result.isPresent());
+        verify(transactionRepository, times(1)).findVOById(1L);
+        verify(transactionExistenceFilter, times(1)).addId(1L);
+    }
+
+    @Test
+    void testGetTransactionByIdPendingWriteBehind() {
+        // Arrange
+        Long transactionId = 51L;
+        Transaction transaction = new Transaction();
+        transaction.setId(transactionId);
+        transaction.setTransactionNo("12345");
+        TransactionWriteBehind writeBehind = mock(TransactionWriteBehind.class);
+        ReflectionTestUtils.setField(transactionService, "transactionWriteBehind", writeBehind);
+        when(writeBehind.getPending(transactionId)).thenReturn(transaction);
+
+        // Act
+        Optional<TransactionVO> result = transactionService.getTransactionById(transactionId);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals("12345", result.get().getTransactionNo());
+        verify(transactionRepository, never()).findVOById(transactionId);
     }
 
-}
\ No newline at end of file
+}
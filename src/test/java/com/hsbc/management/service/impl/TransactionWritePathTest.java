@@ -0,0 +1,198 @@
+package com.hsbc.management.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hsbc.management.HomeworkApplication;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.entity.Transaction;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.dao.TransactionRepository;
+import com.hsbc.management.dao.TransactionWriteRepositoryImpl;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.TransactionService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * 修改、删除的单语句写路径，使用完整的应用上下文和内存库，按Hibernate统计的JDBC语句数校验
+ */
+public class TransactionWritePathTest {
+
+    private static ConfigurableApplicationContext context;
+
+    private static TransactionService transactionService;
+
+    private static TransactionRepository transactionRepository;
+
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void setUp() {
+        context = new SpringApplicationBuilder(HomeworkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.springframework.cache=WARN");
+        transactionService = context.getBean(TransactionService.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        context.close();
+    }
+
+    private TransactionVO create(String transactionNo) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo(transactionNo);
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.50"));
+        dto.setDescription("Test Transaction");
+        return transactionService.createTransaction(dto);
+    }
+
+    private TransactionModifyDTO buildModify(Long version) {
+        TransactionModifyDTO dto = new TransactionModifyDTO();
+        dto.setSourceAccountId(3003L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("80.00"));
+        dto.setDescription("Modified");
+        dto.setVersion(version);
+        return dto;
+    }
+
+    @Test
+    void testModifyIsSingleStatement() {
+        // Arrange
+        TransactionVO created = create("W0001");
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        // Act
+        TransactionVO modified = transactionService.modifyTransaction(created.getId(), buildModify(created.getVersion()));
+
+        // Assert: 一条UPDATE语句，返回值与库中的行一致
+        assertEquals(1, statistics.getPrepareStatementCount() - statementsBefore);
+        assertEquals(created.getVersion() + 1, modified.getVersion());
+        assertEquals(transactionRepository.findVOById(created.getId()).orElseThrow(), modified);
+    }
+
+    @Test
+    void testModifyWithoutVersion() {
+        // Arrange
+        TransactionVO created = create("W0002");
+        transactionService.modifyTransaction(created.getId(), buildModify(null));
+
+        // Act
+        TransactionVO modified = transactionService.modifyTransaction(created.getId(), buildModify(null));
+
+        // Assert
+        assertEquals(created.getVersion() + 2, modified.getVersion());
+        assertEquals("W0002", modified.getTransactionNo());
+        assertEquals(created.getCreateTime(), modified.getCreateTime());
+    }
+
+    @Test
+    void testModifyVersionConflictAndNotFound() {
+        // Arrange
+        TransactionVO created = create("W0003");
+        transactionService.modifyTransaction(created.getId(), buildModify(null));
+
+        // Act & Assert
+        BizException conflict = assertThrows(BizException.class,
+                () -> transactionService.modifyTransaction(created.getId(), buildModify(created.getVersion())));
+        assertEquals(BizErrorEnum.VERSION_CONFLICT, conflict.getError());
+        assertTrue(conflict.getMessage().endsWith("current version is " + (created.getVersion() + 1) + "."));
+        BizException notFound = assertThrows(BizException.class, () -> transactionService.modifyTransaction(-1L, buildModify(null)));
+        assertEquals(BizErrorEnum.TRANSACTION_NOT_FOUND, notFound.getError());
+    }
+
+    @Test
+    void testDeleteWithoutSelect() {
+        // Arrange
+        TransactionVO created = create("W0004");
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        // Act
+        transactionService.deleteTransaction(created.getId());
+
+        // Assert: 交易行和交易编号索引各一条DELETE
+        assertEquals(2, statistics.getPrepareStatementCount() - statementsBefore);
+        assertTrue(transactionRepository.findVOById(created.getId()).isEmpty());
+        BizException exception = assertThrows(BizException.class, () -> transactionService.deleteTransaction(created.getId()));
+        assertEquals(BizErrorEnum.TRANSACTION_NOT_FOUND, exception.getError());
+    }
+
+    @Test
+    void testOnlyAffectedEntityDetached() {
+        // Arrange
+        TransactionVO created = create("W0005");
+        TransactionVO other = create("W0007");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+
+        // Act: 同一事务中先加载两个实体并修改其中一个，再对另一个执行单语句修改
+        String description = transactionTemplate.execute(status -> {
+            transactionRepository.findById(created.getId()).orElseThrow();
+            Transaction pending = transactionRepository.findById(other.getId()).orElseThrow();
+            pending.setDescription("Pending");
+            transactionRepository.updateReturningPrevious(created.getId(), 3003L, 2002L, new BigDecimal("80.00"), "Modified",
+                    System.currentTimeMillis(), null);
+            assertTrue(entityManager.contains(pending));
+            return transactionRepository.findById(created.getId()).orElseThrow().getDescription();
+        });
+
+        // Assert: 只分离被修改的实体，再次加载读到修改后的行；其他实体仍托管，修改随事务提交
+        assertEquals("Modified", description);
+        assertEquals("Pending", transactionRepository.findVOById(other.getId()).orElseThrow().getDescription());
+    }
+
+    @Test
+    void testPortableWritePath() {
+        // Arrange: 按非H2数据库的方式先加锁查询再写入
+        TransactionWriteRepositoryImpl writeRepository = context.getBean(TransactionWriteRepositoryImpl.class);
+        ReflectionTestUtils.setField(writeRepository, "dataChangeDeltaTable", false);
+        try {
+            TransactionVO created = create("W0006");
+            long statementsBefore = statistics.getPrepareStatementCount();
+
+            // Act
+            TransactionVO modified = transactionService.modifyTransaction(created.getId(), buildModify(created.getVersion()));
+
+            // Assert: 加锁查询和UPDATE两条语句，结果与单语句写入一致
+            assertEquals(2, statistics.getPrepareStatementCount() - statementsBefore);
+            assertEquals(transactionRepository.findVOById(created.getId()).orElseThrow(), modified);
+            BizException conflict = assertThrows(BizException.class,
+                    () -> transactionService.modifyTransaction(created.getId(), buildModify(created.getVersion())));
+            assertEquals(BizErrorEnum.VERSION_CONFLICT, conflict.getError());
+
+            // Act
+            transactionService.deleteTransaction(created.getId());
+
+            // Assert
+            assertTrue(transactionRepository.findVOById(created.getId()).isEmpty());
+            BizException notFound = assertThrows(BizException.class, () -> transactionService.deleteTransaction(created.getId()));
+            assertEquals(BizErrorEnum.TRANSACTION_NOT_FOUND, notFound.getError());
+        } finally {
+            ReflectionTestUtils.setField(writeRepository, "dataChangeDeltaTable", true);
+        }
+    }
+}
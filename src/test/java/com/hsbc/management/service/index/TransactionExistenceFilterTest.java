@@ -0,0 +1,130 @@
+package com.hsbc.management.service.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.hsbc.management.dao.TransactionRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TransactionExistenceFilterTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private TransactionExistenceFilter transactionExistenceFilter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transactionExistenceFilter = new TransactionExistenceFilter(10000, 0.01, "");
+        ReflectionTestUtils.setField(transactionExistenceFilter, "transactionRepository", transactionRepository);
+    }
+
+    @Test
+    void testMaybeBeforeSeeded() {
+        // Act & Assert
+        assertTrue(transactionExistenceFilter.mightContainTransactionNo("12345"));
+        assertTrue(transactionExistenceFilter.mightContainId(1L));
+    }
+
+    @Test
+    void testSeedAndAdd() {
+        // Arrange
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            rows.add(new Object[]{id, "T" + id});
+        }
+        when(transactionRepository.findIdAndTransactionNoAfterId(eq(0L), any(Limit.class))).thenReturn(rows);
+        when(transactionRepository.findIdAndTransactionNoAfterId(eq(5000L), any(Limit.class))).thenReturn(Collections.emptyList());
+
+        // Act
+        transactionExistenceFilter.run(null);
+        transactionExistenceFilter.add(9001L, "NEW-1");
+
+        // Assert
+        for (long id = 1; id <= 5000; id++) {
+            assertTrue(transactionExistenceFilter.mightContainId(id));
+            assertTrue(transactionExistenceFilter.mightContainTransactionNo("T" + id));
+        }
+        assertTrue(transactionExistenceFilter.mightContainId(9001L));
+        assertTrue(transactionExistenceFilter.mightContainTransactionNo("NEW-1"));
+        int falsePositives = 0;
+        for (long id = 100001; id <= 110000; id++) {
+            if (transactionExistenceFilter.mightContainTransactionNo("T" + id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testSnapshotRestore(@TempDir Path dir) {
+        // Arrange
+        String snapshot = dir.resolve("filter.snapshot").toString();
+        TransactionExistenceFilter before = new TransactionExistenceFilter(10000, 0.01, snapshot);
+        ReflectionTestUtils.setField(before, "transactionRepository", transactionRepository);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            rows.add(new Object[]{id, "T" + id});
+        }
+        when(transactionRepository.findIdAndTransactionNoAfterId(eq(0L), any(Limit.class))).thenReturn(rows);
+        when(transactionRepository.findIdAndTransactionNoAfterId(eq(3000L), any(Limit.class)))
+                .thenReturn(Collections.singletonList(new Object[]{3001L, "T3001"}));
+        when(transactionRepository.findMaxId()).thenReturn(3000L);
+        when(transactionRepository.count()).thenReturn(3000L, 3001L);
+        when(transactionRepository.countByIdGreaterThan(3000L)).thenReturn(1L);
+        before.run(null);
+        before.saveSnapshot();
+
+        // Act
+        TransactionExistenceFilter after = new TransactionExistenceFilter(10000, 0.01, snapshot);
+        ReflectionTestUtils.setField(after, "transactionRepository", transactionRepository);
+        after.run(null);
+
+        // Assert
+        for (long id = 1; id <= 3001; id++) {
+            assertTrue(after.mightContainId(id));
+            assertTrue(after.mightContainTransactionNo("T" + id));
+        }
+        assertFalse(Files.exists(dir.resolve("filter.snapshot")));
+    }
+
+    @Test
+    void testSnapshotIgnoredWhenDatabaseChanged(@TempDir Path dir) {
+        // Arrange
+        String snapshot = dir.resolve("filter.snapshot").toString();
+        TransactionExistenceFilter before = new TransactionExistenceFilter(10000, 0.01, snapshot);
+        ReflectionTestUtils.setField(before, "transactionRepository", transactionRepository);
+        when(transactionRepository.findIdAndTransactionNoAfterId(eq(0L), any(Limit.class)))
+                .thenReturn(Collections.singletonList(new Object[]{1L, "T1"}));
+        when(transactionRepository.findMaxId()).thenReturn(1L);
+        when(transactionRepository.count()).thenReturn(1L, 0L);
+        before.run(null);
+        before.saveSnapshot();
+        when(transactionRepository.findIdAndTransactionNoAfterId(eq(0L), any(Limit.class))).thenReturn(Collections.emptyList());
+
+        // Act
+        TransactionExistenceFilter after = new TransactionExistenceFilter(10000, 0.01, snapshot);
+        ReflectionTestUtils.setField(after, "transactionRepository", transactionRepository);
+        after.run(null);
+
+        // Assert
+        assertFalse(after.mightContainTransactionNo("T1"));
+        assertFalse(after.mightContainId(1L));
+    }
+}
@@ -0,0 +1,439 @@
+package com.hsbc.management.service.memory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.AccountRole;
+import com.hsbc.management.common.CursorCodec;
+import com.hsbc.management.common.ExportFormat;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.event.TransactionChangedEvent;
+import com.hsbc.management.common.vo.AccountSummaryVO;
+import com.hsbc.management.common.vo.CursorPageVO;
+import com.hsbc.management.common.vo.TransactionBatchItemVO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.account.AccountAggregates;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoryTransactionServiceTest {
+
+    @TempDir
+    private Path directory;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private TransactionStore transactionStore;
+
+    private AccountAggregates accountAggregates;
+
+    private MemoryTransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        accountAggregates = new AccountAggregates();
+        accountAggregates.rebuild(loader -> {
+        });
+        doAnswer(invocation -> {
+            accountAggregates.onTransactionChanged(invocation.getArgument(0));
+            return null;
+        }).when(eventPublisher).publishEvent(any(TransactionChangedEvent.class));
+        transactionStore = newStore();
+        transactionService = newService(transactionStore);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transactionStore.stop();
+    }
+
+    private TransactionStore newStore() {
+        TransactionStore store = new TransactionStore(directory.toString(), 64L * 1024 * 1024, new ObjectMapper());
+        store.start();
+        return store;
+    }
+
+    private MemoryTransactionService newService(TransactionStore store) {
+        MemoryTransactionService service = new MemoryTransactionService();
+        ReflectionTestUtils.setField(service, "transactionStore", store);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(service, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "accountAggregates", accountAggregates);
+        return service;
+    }
+
+    private TransactionDTO buildTransactionDTO(String transactionNo) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setTransactionNo(transactionNo);
+        transactionDTO.setSourceAccountId(1L);
+        transactionDTO.setTargetAccountId(2L);
+        transactionDTO.setAmount(BigDecimal.valueOf(100));
+        transactionDTO.setDescription("Test Transaction");
+        return transactionDTO;
+    }
+
+    private TransactionModifyDTO buildModifyDTO() {
+        TransactionModifyDTO dto = new TransactionModifyDTO();
+        dto.setSourceAccountId(3L);
+        dto.setTargetAccountId(4L);
+        dto.setAmount(new BigDecimal("250.5"));
+        dto.setDescription("Modified");
+        return dto;
+    }
+
+    @Test
+    void testCreateAndGetTransaction() {
+        // Act
+        TransactionVO created = transactionService.createTransaction(buildTransactionDTO("12345"));
+
+        // Assert
+        assertEquals(1L, created.getId());
+        assertEquals(new BigDecimal("100.00"), created.getAmount());
+        assertEquals(created, transactionService.getTransactionById(created.getId()).orElseThrow());
+        assertTrue(transactionService.getTransactionById(2L).isEmpty());
+        assertTrue(transactionService.getTransactionById(-1L).isEmpty());
+        verify(eventPublisher, times(1)).publishEvent(any(TransactionChangedEvent.class));
+    }
+
+    @Test
+    void testCreateTransactionTransactionAlreadyExists() {
+        // Arrange
+        transactionService.createTransaction(buildTransactionDTO("12345"));
+
+        // Act & Assert
+        BizException exception = assertThrows(BizException.class, () -> transactionService.createTransaction(buildTransactionDTO("12345")));
+        assertEquals(BizErrorEnum.TRANSACTION_DUPLICATED, exception.getError());
+        assertEquals(1, transactionService.listAllTransactions(null, null, null, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testCreateTransactionConcurrentDuplicates() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger duplicated = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 400; i++) {
+            String transactionNo = "C" + (i % 50);
+            futures.add(pool.submit(() -> {
+                try {
+                    transactionService.createTransaction(buildTransactionDTO(transactionNo));
+                    created.incrementAndGet();
+                } catch (BizException e) {
+                    duplicated.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        // Assert
+        assertEquals(50, created.get());
+        assertEquals(350, duplicated.get());
+        assertEquals(50, transactionService.listAllTransactions(null, null, null, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testModifyTransaction() {
+        // Arrange
+        TransactionVO created = transactionService.createTransaction(buildTransactionDTO("12345"));
+
+        // Act
+        TransactionVO modified = transactionService.modifyTransaction(created.getId(), buildModifyDTO());
+
+        // Assert
+        assertEquals("12345", modified.getTransactionNo());
+        assertEquals(new BigDecimal("250.50"), modified.getAmount());
+        assertEquals(created.getCreateTime(), modified.getCreateTime());
+        assertEquals(modified, transactionService.getTransactionById(created.getId()).orElseThrow());
+        assertEquals(0L, created.getVersion());
+        assertEquals(1L, modified.getVersion());
+        assertThrows(BizException.class, () -> transactionService.modifyTransaction(99L, buildModifyDTO()));
+    }
+
+    @Test
+    void testModifyTransactionVersionConflict() {
+        // Arrange
+        TransactionVO created = transactionService.createTransaction(buildTransactionDTO("12345"));
+        TransactionModifyDTO first = buildModifyDTO();
+        first.setVersion(0L);
+        transactionService.modifyTransaction(created.getId(), first);
+
+        // Act: 另一个客户端仍按版本0修改
+        TransactionModifyDTO stale = buildModifyDTO();
+        stale.setVersion(0L);
+        stale.setDescription("stale write");
+        BizException exception = assertThrows(BizException.class, () -> transactionService.modifyTransaction(created.getId(), stale));
+
+        // Assert
+        assertEquals(BizErrorEnum.VERSION_CONFLICT, exception.getError());
+        TransactionVO current = transactionService.getTransactionById(created.getId()).orElseThrow();
+        assertEquals(1L, current.getVersion());
+        assertNotEquals("stale write", current.getDescription());
+    }
+
+    @Test
+    void testDeleteTransaction() {
+        // Arrange
+        TransactionVO created = transactionService.createTransaction(buildTransactionDTO("12345"));
+
+        // Act
+        transactionService.deleteTransaction(created.getId());
+
+        // Assert
+        assertTrue(transactionService.getTransactionById(created.getId()).isEmpty());
+        BizException exception = assertThrows(BizException.class, () -> transactionService.deleteTransaction(created.getId()));
+        assertEquals(BizErrorEnum.TRANSACTION_NOT_FOUND, exception.getError());
+        assertNotEquals(created.getId(), transactionService.createTransaction(buildTransactionDTO("12345")).getId());
+    }
+
+    @Test
+    void testBatchCreateTransactions() {
+        // Arrange
+        transactionService.createTransaction(buildTransactionDTO("EXIST"));
+        TransactionDTO invalid = buildTransactionDTO("BAD");
+        invalid.setAmount(null);
+        List<TransactionDTO> dtos = Arrays.asList(buildTransactionDTO("NEW1"), buildTransactionDTO("NEW1"),
+                buildTransactionDTO("EXIST"), invalid, null, buildTransactionDTO("NEW2"));
+
+        // Act
+        List<TransactionBatchItemVO> results = transactionService.batchCreateTransactions(dtos);
+
+        // Assert
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).getMsg().contains("duplicated in batch"));
+        assertTrue(results.get(2).getMsg().contains("already exists"));
+        assertTrue(results.get(3).getMsg().contains("amount"));
+        assertEquals("transaction不能为空", results.get(4).getMsg());
+        assertTrue(results.get(5).isSuccess());
+        assertEquals(3, transactionService.listAllTransactions(null, null, null, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testListAllTransactions() {
+        // Arrange
+        for (int i = 1; i <= 25; i++) {
+            transactionService.createTransaction(buildTransactionDTO("T" + i));
+        }
+        transactionService.deleteTransaction(3L);
+
+        // Act
+        Page<TransactionVO> secondPage = transactionService.listAllTransactions(null, null, null, PageRequest.of(1, 10));
+        Page<TransactionVO> search = transactionService.listAllTransactions("T2", null, null, PageRequest.of(0, 3));
+
+        // Assert
+        assertEquals(24, secondPage.getTotalElements());
+        assertEquals(10, secondPage.getContent().size());
+        assertEquals(12L, secondPage.getContent().get(0).getId());
+        assertEquals(7, search.getTotalElements());
+        assertEquals(List.of("T2", "T20", "T21"), search.getContent().stream().map(TransactionVO::getTransactionNo).toList());
+    }
+
+    @Test
+    void testScrollTransactions() {
+        // Arrange
+        for (int i = 1; i <= 5; i++) {
+            transactionService.createTransaction(buildTransactionDTO("T" + i));
+        }
+
+        // Act
+        CursorPageVO<TransactionVO> first = transactionService.scrollTransactions(null, null, null, null, 2);
+        CursorPageVO<TransactionVO> last = transactionService.scrollTransactions(null, null, null, CursorCodec.encode(4L), 2);
+
+        // Assert
+        assertEquals(2, first.getContent().size());
+        assertTrue(first.isHasNext());
+        assertEquals(2L, CursorCodec.decode(first.getNextCursor(), 1)[0]);
+        assertEquals(1, last.getContent().size());
+        assertFalse(last.isHasNext());
+        assertThrows(BizException.class, () -> transactionService.scrollTransactions(null, null, null, "not-a-cursor", 10));
+        assertThrows(BizException.class, () -> transactionService.scrollTransactions(null, null, null, null, 0));
+    }
+
+    @Test
+    void testCreateTimeWindowAndPurge() {
+        // Arrange
+        List<TransactionVO> created = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            created.add(transactionService.createTransaction(buildTransactionDTO("T" + i)));
+        }
+        long startTime = created.get(0).getCreateTime();
+        long endTime = created.get(4).getCreateTime() + 1;
+
+        // Act: 在窗口内按(创建时间, ID)游标翻页
+        List<Long> scrolled = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageVO<TransactionVO> page = transactionService.scrollTransactions(null, startTime, endTime, cursor, 2);
+            page.getContent().forEach(vo -> scrolled.add(vo.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        Page<TransactionVO> secondPage = transactionService.listAllTransactions("T", startTime, endTime, PageRequest.of(1, 2));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), scrolled);
+        assertEquals(5, secondPage.getTotalElements());
+        assertEquals(List.of(3L, 4L), secondPage.getContent().stream().map(TransactionVO::getId).toList());
+        assertEquals(0, transactionService.listAllTransactions(null, endTime, null, PageRequest.of(0, 10)).getTotalElements());
+
+        // Act & Assert: 清理窗口之前的交易不影响窗口内的交易，清理全部后账号汇总归零
+        assertEquals(0, transactionService.purgeTransactions(startTime));
+        assertEquals(5, transactionService.purgeTransactions(endTime));
+        assertTrue(transactionService.getTransactionById(1L).isEmpty());
+        assertEquals(0L, transactionService.getAccountSummary(1L).getCount());
+    }
+
+    @Test
+    void testExportTransactionsCsv() throws Exception {
+        // Arrange
+        TransactionDTO dto = buildTransactionDTO("10001");
+        dto.setDescription("rent, \"May\"");
+        TransactionVO created = transactionService.createTransaction(dto);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = transactionService.exportTransactions(null, null, ExportFormat.CSV, out);
+
+        // Assert
+        assertEquals(1, count);
+        assertEquals("id,transactionNo,sourceAccountId,targetAccountId,amount,description,createTime,updateTime\n"
+                + "1,10001,1,2,100.00,\"rent, \"\"May\"\"\"," + created.getCreateTime() + "," + created.getUpdateTime() + "\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertEquals(0, transactionService.exportTransactions(created.getCreateTime() + 1, null, ExportFormat.NDJSON, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void testListAccountTransactions() {
+        // Arrange: 账号1作为来源的交易5条，另有1条收款和1条无关交易
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(buildTransactionDTO("S" + i));
+        }
+        TransactionDTO incoming = buildTransactionDTO("IN");
+        incoming.setSourceAccountId(9L);
+        incoming.setTargetAccountId(1L);
+        transactionService.createTransaction(incoming);
+        TransactionDTO other = buildTransactionDTO("OTHER");
+        other.setSourceAccountId(9L);
+        other.setTargetAccountId(8L);
+        transactionService.createTransaction(other);
+
+        // Act
+        CursorPageVO<TransactionVO> first = transactionService.listAccountTransactions(1L, AccountRole.ANY, null, 4);
+        CursorPageVO<TransactionVO> second = transactionService.listAccountTransactions(1L, AccountRole.ANY, first.getNextCursor(), 4);
+
+        // Assert: 创建时间可能相同，同一毫秒内按ID倒序
+        assertEquals(List.of(6L, 5L, 4L, 3L), first.getContent().stream().map(TransactionVO::getId).toList());
+        assertEquals(List.of(2L, 1L), second.getContent().stream().map(TransactionVO::getId).toList());
+        assertNull(second.getNextCursor());
+        assertEquals(5, transactionService.listAccountTransactions(1L, AccountRole.SOURCE, null, 10).getContent().size());
+        assertEquals(List.of(6L), transactionService.listAccountTransactions(1L, AccountRole.TARGET, null, 10).getContent()
+                .stream().map(TransactionVO::getId).toList());
+    }
+
+    @Test
+    void testAccountSummary() {
+        // Arrange
+        TransactionVO first = transactionService.createTransaction(buildTransactionDTO("A1"));
+        TransactionVO second = transactionService.createTransaction(buildTransactionDTO("A2"));
+        transactionService.createTransaction(buildTransactionDTO("A3"));
+
+        // Act: 1->2 共300，修改一笔为3->4 250.5，删除一笔
+        transactionService.modifyTransaction(first.getId(), buildModifyDTO());
+        transactionService.deleteTransaction(second.getId());
+
+        // Assert
+        AccountSummaryVO source = transactionService.getAccountSummary(1L);
+        assertEquals(new BigDecimal("100.00"), source.getOutflow());
+        assertEquals(new BigDecimal("-100.00"), source.getNet());
+        assertEquals(1L, source.getOutflowCount());
+        AccountSummaryVO target = transactionService.getAccountSummary(4L);
+        assertEquals(new BigDecimal("250.50"), target.getInflow());
+        assertEquals(1L, target.getCount());
+        assertEquals(0L, transactionService.getAccountSummary(99L).getCount());
+
+        // Act & Assert: 全量重建的结果与增量维护一致
+        List<AccountSummaryVO> incremental = new ArrayList<>();
+        for (long accountId = 1; accountId <= 4; accountId++) {
+            incremental.add(transactionService.getAccountSummary(accountId));
+        }
+        transactionService.rebuildAccountSummaries();
+        for (long accountId = 1; accountId <= 4; accountId++) {
+            assertEquals(incremental.get((int) accountId - 1), transactionService.getAccountSummary(accountId));
+        }
+    }
+
+    @Test
+    void testRecoverFromJournal() {
+        // Arrange
+        TransactionVO kept = transactionService.createTransaction(buildTransactionDTO("KEEP"));
+        TransactionVO removed = transactionService.createTransaction(buildTransactionDTO("GONE"));
+        TransactionVO modified = transactionService.modifyTransaction(kept.getId(), buildModifyDTO());
+        transactionService.deleteTransaction(removed.getId());
+
+        // Act: 不经过stop，模拟进程崩溃后只剩日志
+        transactionStore = newStore();
+        MemoryTransactionService service = newService(transactionStore);
+
+        // Assert
+        assertEquals(modified, service.getTransactionById(kept.getId()).orElseThrow());
+        assertTrue(service.getTransactionById(removed.getId()).isEmpty());
+        assertThrows(BizException.class, () -> service.createTransaction(buildTransactionDTO("KEEP")));
+        assertTrue(service.createTransaction(buildTransactionDTO("GONE")).getId() > removed.getId());
+    }
+
+    @Test
+    void testRecoverFromSnapshotAndJournal() throws Exception {
+        // Arrange
+        for (int i = 1; i <= 10; i++) {
+            transactionService.createTransaction(buildTransactionDTO("T" + i));
+        }
+        transactionStore.snapshot();
+        transactionService.deleteTransaction(1L);
+        transactionService.createTransaction(buildTransactionDTO("T11"));
+
+        // Act
+        transactionStore = newStore();
+        MemoryTransactionService service = newService(transactionStore);
+
+        // Assert
+        assertEquals(10, service.listAllTransactions(null, null, null, PageRequest.of(0, 20)).getTotalElements());
+        assertTrue(service.getTransactionById(1L).isEmpty());
+        assertEquals("T11", service.getTransactionById(11L).orElseThrow().getTransactionNo());
+        assertEquals(12L, service.createTransaction(buildTransactionDTO("T1")).getId());
+    }
+}
@@ -0,0 +1,83 @@
+package com.hsbc.management.service.writebehind;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.management.common.entity.Transaction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class TransactionJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Transaction buildTransaction(Long id, String transactionNo) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionNo(transactionNo);
+        transaction.setSourceAccountId(1L);
+        transaction.setTargetAccountId(2L);
+        transaction.setAmount(new BigDecimal("100.50"));
+        transaction.setDescription("Test Transaction");
+        transaction.setCreateTime(1L);
+        transaction.setUpdateTime(1L);
+        return transaction;
+    }
+
+    @Test
+    void testReadUnflushedAfterReopen() throws IOException {
+        // Arrange
+        Path path = tempDir.resolve("journal.log");
+        try (TransactionJournal journal = new TransactionJournal(path, objectMapper)) {
+            journal.appendCreated(buildTransaction(1L, "10001"));
+            journal.appendCreated(buildTransaction(2L, "10002"));
+            journal.appendCreated(buildTransaction(3L, "10003"));
+            journal.appendFlushed(List.of(1L, 3L));
+        }
+        // 模拟崩溃时写了一半的记录
+        Files.writeString(path, "{\"op\":\"CREATED\",\"transaction\":{\"id\":4", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // Act
+        List<Transaction> unflushed;
+        try (TransactionJournal journal = new TransactionJournal(path, objectMapper)) {
+            unflushed = journal.readUnflushed();
+        }
+
+        // Assert
+        assertEquals(1, unflushed.size());
+        assertEquals(2L, unflushed.get(0).getId());
+        assertEquals("10002", unflushed.get(0).getTransactionNo());
+        assertEquals(new BigDecimal("100.50"), unflushed.get(0).getAmount());
+    }
+
+    @Test
+    void testTruncateIfDrained() throws IOException {
+        // Arrange
+        Path path = tempDir.resolve("journal.log");
+        try (TransactionJournal journal = new TransactionJournal(path, objectMapper)) {
+            journal.appendCreated(buildTransaction(1L, "10001"));
+
+            // Act & Assert
+            assertFalse(journal.truncateIfDrained(() -> false));
+            assertTrue(Files.size(path) > 0);
+            journal.appendFlushed(List.of(1L));
+            assertTrue(journal.truncateIfDrained(() -> true));
+            assertEquals(0, Files.size(path));
+
+            journal.appendCreated(buildTransaction(2L, "10002"));
+            assertEquals(2L, journal.readUnflushed().get(0).getId());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.hsbc.management.service.writebehind;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hsbc.management.HomeworkApplication;
+import com.hsbc.management.common.dto.TransactionDTO;
+import com.hsbc.management.common.dto.TransactionModifyDTO;
+import com.hsbc.management.common.vo.TransactionVO;
+import com.hsbc.management.exception.BizErrorEnum;
+import com.hsbc.management.exception.BizException;
+import com.hsbc.management.service.TransactionService;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * 写入缓冲模式的提交、拒绝和修改路径，使用完整的应用上下文和内存库
+ * <p>
+ * 连接池只有1个连接，修改、删除在事务内强制提交时会等待第二个连接直到超时；
+ * 写线程的等待间隔设为60秒，由测试调用flush()控制提交时机
+ */
+public class TransactionWriteBehindTest {
+
+    @TempDir
+    static Path tempDir;
+
+    private static ConfigurableApplicationContext context;
+
+    private static TransactionService transactionService;
+
+    private static TransactionWriteBehind writeBehind;
+
+    @BeforeAll
+    static void setUp() {
+        context = new SpringApplicationBuilder(HomeworkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.springframework.cache=WARN",
+                        "--spring.datasource.hikari.maximum-pool-size=1",
+                        "--spring.datasource.hikari.connection-timeout=2000",
+                        "--transaction.write-behind.enabled=true",
+                        "--transaction.write-behind.journal=" + tempDir.resolve("journal.log"),
+                        "--transaction.write-behind.rejected-log=" + tempDir.resolve("rejected.log"),
+                        "--transaction.write-behind.flush-interval-ms=60000");
+        transactionService = context.getBean(TransactionService.class);
+        writeBehind = context.getBean(TransactionWriteBehind.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        context.close();
+    }
+
+    private TransactionDTO buildTransaction(String transactionNo) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setTransactionNo(transactionNo);
+        dto.setSourceAccountId(1001L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("100.50"));
+        dto.setDescription("Test Transaction");
+        return dto;
+    }
+
+    @Test
+    void testRejectedCreateIsReported() throws IOException {
+        // Arrange: 已应答的交易尚未提交时，同一交易编号被其他实例写入
+        Long id = transactionService.createTransaction(buildTransaction("WB001")).getId();
+        assertTrue(transactionService.getTransactionById(id).isPresent());
+        context.getBean(JdbcTemplate.class).update("insert into transaction_management (id, transaction_no, source_account_id,"
+                + " target_account_id, amount, description, create_time, update_time, version)"
+                + " values (?, 'WB001', 1, 2, 1.00, 'other replica', 0, 0, 0)", id + 1_000_000);
+
+        // Act
+        writeBehind.flush();
+
+        // Assert: 缓存被淘汰，按ID查询返回拒绝原因，拒绝记录已落盘
+        BizException exception = assertThrows(BizException.class, () -> transactionService.getTransactionById(id));
+        assertEquals(BizErrorEnum.TRANSACTION_REJECTED, exception.getError());
+        assertTrue(exception.getMessage().contains("WB001 already exists"));
+        assertTrue(Files.readString(tempDir.resolve("rejected.log")).contains("\"transactionNo\":\"WB001\""));
+    }
+
+    @Test
+    void testModifyPendingWithOneConnection() {
+        // Arrange
+        Long id = transactionService.createTransaction(buildTransaction("WB002")).getId();
+        TransactionModifyDTO dto = new TransactionModifyDTO();
+        dto.setSourceAccountId(3003L);
+        dto.setTargetAccountId(2002L);
+        dto.setAmount(new BigDecimal("80.00"));
+        dto.setDescription("Modified");
+
+        // Act: 强制提交在修改的事务开始之前完成，不会同时占用两个连接
+        TransactionVO modified = transactionService.modifyTransaction(id, dto);
+
+        // Assert
+        assertNull(writeBehind.getPending(id));
+        assertEquals(1L, modified.getVersion());
+        assertEquals("Modified", transactionService.getTransactionById(id).orElseThrow().getDescription());
+    }
+}